@@ -0,0 +1,25 @@
+-- 头像版本化URL迁移脚本
+-- 头像URL带内容哈希版本号（SHA-256前16位），上传头像时写入 users.avatar / chat_groups.group_avatar，
+-- 带当前版本号的头像请求按 immutable 长期缓存。本脚本为已上传的头像回填版本化URL。
+
+USE chat_app;
+
+-- 1. 用户头像
+UPDATE users
+SET avatar = CONCAT('/api/user/avatar/', id, '?v=', LEFT(SHA2(avatar_data, 256), 16))
+WHERE avatar_data IS NOT NULL AND LENGTH(avatar_data) > 0;
+
+-- 2. 群头像
+UPDATE chat_groups
+SET group_avatar = CONCAT('/api/group/', id, '/avatar?v=', LEFT(SHA2(group_avatar_data, 256), 16))
+WHERE group_avatar_data IS NOT NULL AND LENGTH(group_avatar_data) > 0;
+
+-- 3. 头像只保留内容哈希版本，移除早期的递增版本列（如果存在）- 兼容 MySQL
+SET @col_exists := (SELECT COUNT(1) FROM information_schema.columns 
+  WHERE table_schema = DATABASE() AND table_name = 'users' AND column_name = 'avatar_version');
+SET @sql := IF(@col_exists > 0, 'ALTER TABLE users DROP COLUMN avatar_version;', 'SELECT ''avatar_version not present'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 4. 验证
+SELECT COUNT(*) AS users_with_versioned_avatar FROM users WHERE avatar LIKE '/api/user/avatar/%?v=%';
+SELECT COUNT(*) AS groups_with_versioned_avatar FROM chat_groups WHERE group_avatar LIKE '/api/group/%/avatar?v=%';
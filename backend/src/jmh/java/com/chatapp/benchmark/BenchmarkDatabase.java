@@ -0,0 +1,33 @@
+package com.chatapp.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * 访问数据库的基准使用的连接
+ *
+ * 默认连接与 application.yml 相同的本地 chat_app 库，可通过系统属性
+ * bench.jdbc.url / bench.jdbc.user / bench.jdbc.password 覆盖。
+ * 基准在 JMH fork 出的进程中运行，mvn 命令行上的 -D 参数既不会传给 exec:exec 启动的 JMH 进程，
+ * 也不会传给 fork，需要放进 jmh.args 由 -jvmArgsAppend 传给 fork（值中不能含空格），例如：
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="UserLookupBytesBenchmark -jvmArgsAppend -Dbench.jdbc.url=jdbc:mysql://db:3306/chat_app"
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+final class BenchmarkDatabase {
+
+    private static final String DEFAULT_URL = "jdbc:mysql://localhost:3306/chat_app"
+            + "?useUnicode=true&characterEncoding=utf8&useSSL=false&serverTimezone=Asia/Shanghai";
+
+    private BenchmarkDatabase() {
+    }
+
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(
+                System.getProperty("bench.jdbc.url", DEFAULT_URL),
+                System.getProperty("bench.jdbc.user", "root"),
+                System.getProperty("bench.jdbc.password", "123456"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.chatapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离线同步推进游标的基准：一页离线消息写出后更新 message_sync_cursors
+ *
+ * perMessageUpserts 为逐条确认时每条消息一条单行 upsert，
+ * pageUpsert 对应 OfflineMessageServiceImpl.advanceCursors（整页按会话取最大ID，一条多行 upsert，
+ * SQL 与 MessageSyncCursorMapper.upsertCursors 相同）。
+ * 一页 pageSize 条消息按消息ID轮流分布在 conversations 个会话中；写入 message_sync_cursors 结构的临时表，不影响业务数据。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="OfflineCursorAdvanceBenchmark"
+ * 数据库连接见 BenchmarkDatabase（通过 jmh.args 中的 -jvmArgsAppend 指定）
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OfflineCursorAdvanceBenchmark {
+
+    private static final long USER_ID = 1L;
+
+    @Param({"200"})
+    private int pageSize;
+
+    @Param({"1", "20"})
+    private int conversations;
+
+    private Connection connection;
+    private long lastMessageId;
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        connection = BenchmarkDatabase.connect();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE bench_sync_cursors LIKE message_sync_cursors");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void perMessageUpserts() throws SQLException {
+        try (PreparedStatement upsert = connection.prepareStatement(
+                "INSERT INTO bench_sync_cursors (user_id, conversation_type, target_id, last_message_id, update_time) "
+                        + "VALUES (?, 2, ?, ?, NOW()) "
+                        + "ON DUPLICATE KEY UPDATE last_message_id = GREATEST(last_message_id, VALUES(last_message_id)), "
+                        + "update_time = NOW()")) {
+            for (int i = 0; i < pageSize; i++) {
+                long messageId = ++lastMessageId;
+                upsert.setLong(1, USER_ID);
+                upsert.setLong(2, messageId % conversations);
+                upsert.setLong(3, messageId);
+                upsert.executeUpdate();
+            }
+        }
+    }
+
+    @Benchmark
+    public void pageUpsert() throws SQLException {
+        // 一页中每个会话的最大ID即该会话最后一条消息的ID
+        long pageEnd = lastMessageId + pageSize;
+        int rows = Math.min(conversations, pageSize);
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO bench_sync_cursors (user_id, conversation_type, target_id, last_message_id, update_time) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i > 0 ? ",(?, 2, ?, ?, NOW())" : "(?, 2, ?, ?, NOW())");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE last_message_id = GREATEST(last_message_id, VALUES(last_message_id)), "
+                + "update_time = NOW()");
+        try (PreparedStatement upsert = connection.prepareStatement(sql.toString())) {
+            for (int i = 0; i < rows; i++) {
+                upsert.setLong(3 * i + 1, USER_ID);
+                upsert.setLong(3 * i + 2, (pageEnd - i) % conversations);
+                upsert.setLong(3 * i + 3, pageEnd - i);
+            }
+            upsert.executeUpdate();
+        }
+        lastMessageId = pageEnd;
+    }
+}
@@ -0,0 +1,125 @@
+package com.chatapp.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按用户名查询用户的基准：每次请求读取的字节数与耗时
+ *
+ * selectAll 为拆分前 findByUsername 的 SELECT *（含 avatar_data），
+ * baseColumns 为现在的 findByUsername（不含头像二进制），summary 为 findSummaryByUsername。
+ * 查询对象取头像最大的用户；bytesPerRequest 为结果行所有列的字节数之和。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="UserLookupBytesBenchmark"
+ * 数据库连接见 BenchmarkDatabase（通过 jmh.args 中的 -jvmArgsAppend 指定）
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class UserLookupBytesBenchmark {
+
+    private static final String SELECT_ALL =
+            "SELECT * FROM users WHERE username = ? AND deleted = 0";
+
+    private static final String SELECT_BASE_COLUMNS =
+            "SELECT id, username, password, email, nickname, avatar, avatar_content_type, status, "
+                    + "signature, phone, gender, birthday, last_login_time, create_time, update_time, deleted "
+                    + "FROM users WHERE username = ? AND deleted = 0";
+
+    private static final String SELECT_SUMMARY =
+            "SELECT id, username, nickname, avatar, status FROM users WHERE username = ? AND deleted = 0";
+
+    /**
+     * 每次请求读取的字节数（单线程运行，直接报告最后一次请求的值）
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BytesRead {
+        public long bytesPerRequest;
+    }
+
+    private Connection connection;
+    private PreparedStatement selectAll;
+    private PreparedStatement selectBaseColumns;
+    private PreparedStatement selectSummary;
+    private String username;
+
+    @Setup(Level.Trial)
+    public void connect() throws SQLException {
+        connection = BenchmarkDatabase.connect();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT username FROM users WHERE deleted = 0 ORDER BY LENGTH(avatar_data) DESC LIMIT 1");
+             ResultSet rs = statement.executeQuery()) {
+            if (!rs.next()) {
+                throw new IllegalStateException("users 表中没有可查询的用户");
+            }
+            username = rs.getString(1);
+        }
+        selectAll = connection.prepareStatement(SELECT_ALL);
+        selectBaseColumns = connection.prepareStatement(SELECT_BASE_COLUMNS);
+        selectSummary = connection.prepareStatement(SELECT_SUMMARY);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long selectAll(BytesRead bytesRead) throws SQLException {
+        return read(selectAll, bytesRead);
+    }
+
+    @Benchmark
+    public long baseColumns(BytesRead bytesRead) throws SQLException {
+        return read(selectBaseColumns, bytesRead);
+    }
+
+    @Benchmark
+    public long summary(BytesRead bytesRead) throws SQLException {
+        return read(selectSummary, bytesRead);
+    }
+
+    private long read(PreparedStatement statement, BytesRead bytesRead) throws SQLException {
+        statement.setString(1, username);
+        long bytes = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            int columns = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int i = 1; i <= columns; i++) {
+                    byte[] value = rs.getBytes(i);
+                    if (value != null) {
+                        bytes += value.length;
+                    }
+                }
+            }
+        }
+        bytesRead.bytesPerRequest = bytes;
+        return bytes;
+    }
+}
@@ -0,0 +1,93 @@
+package com.chatapp.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上行帧解码基准：每帧耗时与分配字节数
+ *
+ * mapDecode 为改造前 handleTextMessage 的做法（readValue 成 Map 后按字段 toString / valueOf 转换），
+ * streamingDecode 为 InboundFrameDecoder 的流式解码。分配量用 gc 分析器查看 gc.alloc.rate.norm（字节/帧）。
+ *
+ * 运行：mvn -Pjmh test-compile exec:exec -Djmh.args="InboundFrameDecoderBenchmark -prof gc"
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InboundFrameDecoderBenchmark {
+
+    private static final Map<String, String> FRAMES = Map.of(
+            "private", "{\"type\":\"private\",\"toUserId\":10086,\"content\":\"晚上一起吃饭吗？\",\"messageType\":1}",
+            "group", "{\"type\":\"group\",\"groupId\":42,\"content\":\"会议改到下午三点\",\"messageType\":1}",
+            "typing", "{\"type\":\"typing\",\"toUserId\":10086,\"isTyping\":true}",
+            "read_receipt", "{\"type\":\"read_receipt\",\"messageId\":123456789}",
+            "heartbeat", "{\"type\":\"heartbeat\"}");
+
+    @Param({"private", "group", "typing", "read_receipt", "heartbeat"})
+    private String frameType;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String payload;
+
+    @Setup
+    public void setup() {
+        payload = FRAMES.get(frameType);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object mapDecode() throws IOException {
+        Map<String, Object> data = objectMapper.readValue(payload, Map.class);
+        String type = (String) data.get("type");
+        switch (type) {
+            case "private": {
+                Long toUserId = Long.valueOf(data.get("toUserId").toString());
+                String content = (String) data.get("content");
+                Integer messageType = data.get("messageType") != null
+                        ? Integer.valueOf(data.get("messageType").toString()) : 1;
+                return new InboundFrame.PrivateFrame(toUserId, content, messageType);
+            }
+            case "group": {
+                Long groupId = Long.valueOf(data.get("groupId").toString());
+                String content = (String) data.get("content");
+                Integer messageType = data.get("messageType") != null
+                        ? Integer.valueOf(data.get("messageType").toString()) : 1;
+                return new InboundFrame.GroupFrame(groupId, content, messageType);
+            }
+            case "typing": {
+                Long toUserId = Long.valueOf(data.get("toUserId").toString());
+                Boolean isTyping = (Boolean) data.get("isTyping");
+                return new InboundFrame.TypingFrame(toUserId, Boolean.TRUE.equals(isTyping));
+            }
+            case "read_receipt":
+                return new InboundFrame.ReadReceiptFrame(Long.valueOf(data.get("messageId").toString()));
+            default:
+                return data;
+        }
+    }
+
+    @Benchmark
+    public InboundFrame streamingDecode() throws IOException {
+        return InboundFrameDecoder.decode(payload);
+    }
+}
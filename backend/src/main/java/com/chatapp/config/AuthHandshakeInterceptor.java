@@ -32,50 +32,35 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
     public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, 
                                  WebSocketHandler wsHandler, Map<String, Object> attributes) throws Exception {
         try {
-            logger.info("🔍 开始WebSocket握手验证...");
-            logger.info("请求URI: {}", request.getURI());
-            logger.info("请求方法: {}", request.getMethod());
-            logger.info("请求头: {}", request.getHeaders());
+            logger.debug("开始WebSocket握手验证: uri={}", request.getURI());
             
             // 从请求中获取token
             String token = extractToken(request);
-            logger.info("提取到的token: {}", token != null ? token.substring(0, Math.min(20, token.length())) + "..." : "null");
             
             if (!StringUtils.hasText(token)) {
                 logger.warn("❌ WebSocket握手失败: 缺少认证token");
                 return false;
             }
 
-            // 解码token查看内容
-            try {
-                String decoded = new String(java.util.Base64.getDecoder().decode(token));
-                logger.info("解码后的token: {}", decoded);
-            } catch (Exception e) {
-                logger.warn("Token解码失败: {}", e.getMessage());
-            }
-
-            // 验证token并获取用户ID
-            boolean isValid = jwtTokenService.validateToken(token);
-            logger.info("Token验证结果: {}", isValid);
-            
-            if (!isValid) {
+            // 验证token并获取用户ID（只做签名校验，不访问数据库）
+            JwtTokenService.TokenClaims claims = jwtTokenService.parseToken(token);
+            if (claims == null) {
                 logger.warn("❌ WebSocket握手失败: token无效");
                 return false;
             }
 
-            Long userId = jwtTokenService.getUserIdFromToken(token);
-            logger.info("从token获取的用户ID: {}", userId);
-            
-            if (userId == null) {
-                logger.warn("❌ WebSocket握手失败: 无法从token中获取用户ID");
-                return false;
-            }
+            Long userId = claims.userId();
 
             // 将用户ID存储到会话属性中
             attributes.put("userId", userId);
             attributes.put("token", token);
+
+            // 客户端通过 batch=1 请求批量模式：出站事件在合并窗口内合并为数组帧
+            if ("1".equals(extractQueryParam(request, "batch"))) {
+                attributes.put("batching", true);
+            }
             
-            logger.info("✅ WebSocket握手成功: userId={}", userId);
+            logger.debug("✅ WebSocket握手成功: userId={}", userId);
             return true;
             
         } catch (Exception e) {
@@ -98,15 +83,9 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
      */
     private String extractToken(ServerHttpRequest request) {
         // 1. 尝试从查询参数中获取token
-        URI uri = request.getURI();
-        String query = uri.getQuery();
-        if (StringUtils.hasText(query)) {
-            String[] params = query.split("&");
-            for (String param : params) {
-                if (param.startsWith("token=")) {
-                    return param.substring(6); // 去掉"token="前缀
-                }
-            }
+        String queryToken = extractQueryParam(request, "token");
+        if (queryToken != null) {
+            return queryToken;
         }
 
         // 2. 尝试从Authorization请求头获取
@@ -123,4 +102,21 @@ public class AuthHandshakeInterceptor implements HandshakeInterceptor {
 
         return null;
     }
+
+    /**
+     * 从查询字符串中读取参数，不存在时返回null
+     */
+    private String extractQueryParam(ServerHttpRequest request, String name) {
+        URI uri = request.getURI();
+        String query = uri.getQuery();
+        if (StringUtils.hasText(query)) {
+            String prefix = name + "=";
+            for (String param : query.split("&")) {
+                if (param.startsWith(prefix)) {
+                    return param.substring(prefix.length());
+                }
+            }
+        }
+        return null;
+    }
 }
\ No newline at end of file
@@ -4,23 +4,29 @@ import com.chatapp.entity.Message;
 import com.chatapp.service.GroupService;
 import com.chatapp.service.MessageService;
 import com.chatapp.service.OfflineMessageService;
+import com.chatapp.service.UnreadCounterService;
 import com.chatapp.service.WebSocketSessionService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * WebSocket消息处理器
+ *
+ * 上行帧由 InboundFrameDecoder 流式解码为按类型区分的帧记录，再经分发表交给对应处理方法
  * 
  * @author ChatApp
  * @since 1.0.0
@@ -29,7 +35,6 @@ import java.util.Map;
 public class ChatWebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatWebSocketHandler.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Autowired
     private MessageService messageService;
@@ -43,6 +48,49 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private GroupService groupService;
 
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    /**
+     * 单类型帧处理器
+     */
+    @FunctionalInterface
+    private interface FrameHandler<F extends InboundFrame> {
+        void handle(Long userId, WebSocketSession session, F frame);
+    }
+
+    /**
+     * 帧解码
+     */
+    @FunctionalInterface
+    private interface FrameDecoding {
+        InboundFrame decode() throws IOException;
+    }
+
+    // 帧类型 -> 处理器
+    private final Map<InboundFrame.FrameType, FrameHandler<InboundFrame>> frameHandlers =
+            new EnumMap<>(InboundFrame.FrameType.class);
+
+    public ChatWebSocketHandler() {
+        register(InboundFrame.FrameType.PRIVATE, InboundFrame.PrivateFrame.class,
+                (userId, session, frame) -> handlePrivateMessage(userId, frame));
+        register(InboundFrame.FrameType.GROUP, InboundFrame.GroupFrame.class,
+                (userId, session, frame) -> handleGroupMessage(userId, frame));
+        register(InboundFrame.FrameType.TYPING, InboundFrame.TypingFrame.class,
+                (userId, session, frame) -> handleTypingIndicator(userId, frame));
+        register(InboundFrame.FrameType.READ_RECEIPT, InboundFrame.ReadReceiptFrame.class,
+                (userId, session, frame) -> handleReadReceipt(userId, frame));
+        register(InboundFrame.FrameType.HEARTBEAT, InboundFrame.HeartbeatFrame.class,
+                (userId, session, frame) -> handleHeartbeat(userId, session));
+        register(InboundFrame.FrameType.GET_ONLINE_USERS, InboundFrame.GetOnlineUsersFrame.class,
+                (userId, session, frame) -> handleGetOnlineUsers(userId));
+    }
+
+    private <F extends InboundFrame> void register(InboundFrame.FrameType type, Class<F> frameClass,
+                                                   FrameHandler<F> handler) {
+        frameHandlers.put(type, (userId, session, frame) -> handler.handle(userId, session, frameClass.cast(frame)));
+    }
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         Long userId = (Long) session.getAttributes().get("userId");
@@ -71,11 +119,32 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        handleFrame(session, () -> InboundFrameDecoder.decode(message.getPayload()));
+    }
+
+    /**
+     * 二进制帧：协商了 chat.cbor 子协议的客户端以CBOR编码上行帧
+     */
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        ByteBuffer payload = message.getPayload();
+        byte[] bytes;
+        int offset;
+        if (payload.hasArray()) {
+            bytes = payload.array();
+            offset = payload.arrayOffset() + payload.position();
+        } else {
+            bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            offset = 0;
+        }
+        int length = payload.remaining();
+        handleFrame(session, () -> InboundFrameDecoder.decodeBinary(bytes, offset, length));
+    }
+
+    private void handleFrame(WebSocketSession session, FrameDecoding decoding) {
         try {
-            Map<String, Object> data = objectMapper.readValue(message.getPayload(), Map.class);
-            String type = (String) data.get("type");
             Long userId = (Long) session.getAttributes().get("userId");
-
             if (userId == null) {
                 sendError(session, "用户未认证");
                 return;
@@ -84,28 +153,11 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
             // 更新心跳
             sessionService.updateHeartbeat(session.getId());
 
-            switch (type) {
-                case "private":
-                    handlePrivateMessage(userId, data);
-                    break;
-                case "group":
-                    handleGroupMessage(userId, data);
-                    break;
-                case "typing":
-                    handleTypingIndicator(userId, data);
-                    break;
-                case "read_receipt":
-                    handleReadReceipt(userId, data);
-                    break;
-                case "heartbeat":
-                    handleHeartbeat(userId, session);
-                    break;
-                case "get_online_users":
-                    handleGetOnlineUsers(userId);
-                    break;
-                default:
-                    sendError(session, "未知的消息类型: " + type);
-            }
+            InboundFrame frame = decoding.decode();
+            frameHandlers.get(frame.type()).handle(userId, session, frame);
+        } catch (IllegalArgumentException e) {
+            // 帧格式错误、缺少字段或类型未知
+            sendError(session, e.getMessage());
         } catch (Exception e) {
             logger.error("处理WebSocket消息失败", e);
             sendError(session, "消息处理失败: " + e.getMessage());
@@ -115,12 +167,11 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
     /**
      * 处理私聊消息
      */
-    private void handlePrivateMessage(Long fromUserId, Map<String, Object> data) {
+    private void handlePrivateMessage(Long fromUserId, InboundFrame.PrivateFrame frame) {
         try {
-            Long toUserId = Long.valueOf(data.get("toUserId").toString());
-            String content = (String) data.get("content");
-            Integer messageType = data.get("messageType") != null ? 
-                Integer.valueOf(data.get("messageType").toString()) : 1;
+            Long toUserId = frame.toUserId();
+            String content = frame.content();
+            Integer messageType = frame.messageType();
 
             // 保存消息到数据库
             Message message = messageService.sendPrivateMessage(fromUserId, toUserId, content, messageType);
@@ -148,12 +199,11 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
     /**
      * 处理群聊消息
      */
-    private void handleGroupMessage(Long fromUserId, Map<String, Object> data) {
+    private void handleGroupMessage(Long fromUserId, InboundFrame.GroupFrame frame) {
         try {
-            Long groupId = Long.valueOf(data.get("groupId").toString());
-            String content = (String) data.get("content");
-            Integer messageType = data.get("messageType") != null ? 
-                Integer.valueOf(data.get("messageType").toString()) : 1;
+            Long groupId = frame.groupId();
+            String content = frame.content();
+            Integer messageType = frame.messageType();
 
             // 检查用户是否是群成员
             if (!groupService.isGroupMember(groupId, fromUserId)) {
@@ -178,17 +228,13 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
             response.put("message", message);
             response.put("timestamp", System.currentTimeMillis());
 
-            // 获取群成员列表并发送给所有在线成员
+            // 获取群成员列表，消息只序列化一次后发送给所有在线成员
             try {
                 var memberIds = groupService.getGroupMemberIds(groupId);
-                for (Long memberId : memberIds) {
-                    if (sessionService.isUserOnline(memberId)) {
-                        sessionService.sendToUser(memberId, response);
-                    } else {
-                        // 为离线成员推送离线消息
-                        offlineMessageService.pushMessageToUser(memberId, message);
-                    }
-                }
+                // 离线成员无需写入记录，上线时按群聊游标同步
+                List<Long> offlineMemberIds = sessionService.broadcastToUsers(memberIds, response,
+                        memberId -> offlineMessageService.recordDelivered(memberId, message));
+                logger.debug("群聊消息广播: 群{} 离线成员{}个", groupId, offlineMemberIds.size());
             } catch (Exception e) {
                 logger.error("广播群聊消息失败", e);
                 // 至少发送给发送者作为确认
@@ -204,10 +250,10 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
     /**
      * 处理正在输入指示器
      */
-    private void handleTypingIndicator(Long userId, Map<String, Object> data) {
+    private void handleTypingIndicator(Long userId, InboundFrame.TypingFrame frame) {
         try {
-            Long toUserId = Long.valueOf(data.get("toUserId").toString());
-            Boolean isTyping = (Boolean) data.get("isTyping");
+            Long toUserId = frame.toUserId();
+            boolean isTyping = frame.typing();
 
             Map<String, Object> response = new HashMap<>();
             response.put("type", "typing");
@@ -226,10 +272,10 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
     /**
      * 处理已读回执
      */
-    private void handleReadReceipt(Long userId, Map<String, Object> data) {
+    private void handleReadReceipt(Long userId, InboundFrame.ReadReceiptFrame frame) {
         try {
-            Long messageId = Long.valueOf(data.get("messageId").toString());
-            messageService.markMessageAsRead(messageId);
+            Long messageId = frame.messageId();
+            messageService.markMessageAsRead(userId, messageId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("type", "read_receipt");
@@ -276,17 +322,10 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
     }
 
     /**
-     * 发送消息到指定会话
+     * 发送消息到指定会话（经由会话出站队列，与广播消息共享同一写线程）
      */
     private void sendToSession(WebSocketSession session, Object message) {
-        try {
-            if (session.isOpen()) {
-                String messageJson = objectMapper.writeValueAsString(message);
-                session.sendMessage(new TextMessage(messageJson));
-            }
-        } catch (IOException e) {
-            logger.error("发送消息到会话失败: sessionId={}", session.getId(), e);
-        }
+        sessionService.sendToSession(session.getId(), message);
     }
 
     /**
@@ -313,6 +352,12 @@ public class ChatWebSocketHandler extends TextWebSocketHandler {
         // 从会话管理服务中移除会话
         sessionService.removeSession(sessionId);
         
+        // 用户最后一个会话断开时保存投递游标，释放未读计数缓存
+        if (userId != null && !sessionService.isUserOnline(userId)) {
+            offlineMessageService.handleUserOffline(userId);
+            unreadCounterService.evict(userId);
+        }
+        
         logger.info("用户 {} 断开WebSocket连接: sessionId={}, status={}", userId, sessionId, status);
     }
 
@@ -0,0 +1,162 @@
+package com.chatapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.Decoder;
+import jakarta.websocket.Encoder;
+import jakarta.websocket.Extension;
+import jakarta.websocket.HandshakeResponse;
+import jakarta.websocket.server.HandshakeRequest;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.adapter.standard.StandardToWebSocketExtensionAdapter;
+import org.springframework.web.socket.adapter.standard.WebSocketToStandardExtensionAdapter;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按配置协商 permessage-deflate 的升级策略
+ *
+ * 容器升级时会重新读取请求中的 Sec-WebSocket-Extensions，并总是把自带的 permessage-deflate
+ * 加入可用扩展，再由 ServerEndpointConfig.Configurator#getNegotiatedExtensions 决定结果，
+ * 所以压缩策略只能在这里生效：未启用时不协商该扩展，启用时为客户端的请求追加
+ * no_context_takeover 参数，容器据此配置压缩器并写入响应
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class CompressionPolicyUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean compressionEnabled;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    CompressionPolicyUpgradeStrategy(boolean compressionEnabled, boolean serverNoContextTakeover,
+                                     boolean clientNoContextTakeover) {
+        this.compressionEnabled = compressionEnabled;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    @Override
+    protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+            ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+        super.upgradeHttpToWebSocket(request, response, new PolicyEndpointConfig(endpointConfig), pathParams);
+    }
+
+    /**
+     * 在容器的协商结果上应用压缩策略
+     */
+    List<Extension> negotiate(List<Extension> negotiated) {
+        List<Extension> result = new ArrayList<>(negotiated.size());
+        boolean deflateAccepted = false;
+        for (Extension extension : negotiated) {
+            if (!PERMESSAGE_DEFLATE.equals(extension.getName())) {
+                result.add(extension);
+                continue;
+            }
+            // 客户端可按偏好顺序给出多个压缩请求，只接受第一个
+            if (!compressionEnabled || deflateAccepted) {
+                continue;
+            }
+            deflateAccepted = true;
+            Map<String, String> parameters = new LinkedHashMap<>(
+                    new StandardToWebSocketExtensionAdapter(extension).getParameters());
+            if (serverNoContextTakeover) {
+                parameters.putIfAbsent("server_no_context_takeover", null);
+            }
+            if (clientNoContextTakeover) {
+                parameters.putIfAbsent("client_no_context_takeover", null);
+            }
+            result.add(new WebSocketToStandardExtensionAdapter(new WebSocketExtension(extension.getName(), parameters)));
+        }
+        return result;
+    }
+
+    /**
+     * 只替换扩展协商的端点配置，其余调用交给原配置
+     */
+    private final class PolicyEndpointConfig implements ServerEndpointConfig {
+
+        private final ServerEndpointConfig delegate;
+        private final Configurator configurator;
+
+        PolicyEndpointConfig(ServerEndpointConfig delegate) {
+            this.delegate = delegate;
+            Configurator original = delegate.getConfigurator();
+            this.configurator = new Configurator() {
+                @Override
+                public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+                    return original.getNegotiatedSubprotocol(supported, requested);
+                }
+
+                @Override
+                public List<Extension> getNegotiatedExtensions(List<Extension> installed, List<Extension> requested) {
+                    return negotiate(original.getNegotiatedExtensions(installed, requested));
+                }
+
+                @Override
+                public boolean checkOrigin(String originHeaderValue) {
+                    return original.checkOrigin(originHeaderValue);
+                }
+
+                @Override
+                public void modifyHandshake(ServerEndpointConfig config, HandshakeRequest request,
+                                            HandshakeResponse response) {
+                    original.modifyHandshake(config, request, response);
+                }
+
+                @Override
+                public <T> T getEndpointInstance(Class<T> endpointClass) throws InstantiationException {
+                    return original.getEndpointInstance(endpointClass);
+                }
+            };
+        }
+
+        @Override
+        public Class<?> getEndpointClass() {
+            return delegate.getEndpointClass();
+        }
+
+        @Override
+        public String getPath() {
+            return delegate.getPath();
+        }
+
+        @Override
+        public List<String> getSubprotocols() {
+            return delegate.getSubprotocols();
+        }
+
+        @Override
+        public List<Extension> getExtensions() {
+            return delegate.getExtensions();
+        }
+
+        @Override
+        public Configurator getConfigurator() {
+            return configurator;
+        }
+
+        @Override
+        public List<Class<? extends Encoder>> getEncoders() {
+            return delegate.getEncoders();
+        }
+
+        @Override
+        public List<Class<? extends Decoder>> getDecoders() {
+            return delegate.getDecoders();
+        }
+
+        @Override
+        public Map<String, Object> getUserProperties() {
+            return delegate.getUserProperties();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.chatapp.config;
+
+import com.chatapp.entity.ImageFile;
+import com.chatapp.mapper.ImageFileMapper;
+import com.chatapp.service.impl.DatabaseImageStorage;
+import com.chatapp.service.impl.LocalFileImageStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 图片存储迁移工具
+ *
+ * 启动参数 --image.storage.migrate-on-startup=true 时，在后台线程中把 images.data 中的图片
+ * 按ID顺序分批迁移到本地内容寻址存储，并清空数据库中的二进制数据。
+ * 每张图片先写入文件再更新记录，迁移期间图片始终可读；中断后重新执行会从剩余的图片继续
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Component
+@ConditionalOnProperty(name = "image.storage.migrate-on-startup", havingValue = "true")
+public class ImageStorageMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageMigrationRunner.class);
+
+    @Autowired
+    private ImageFileMapper imageFileMapper;
+
+    @Autowired
+    private DatabaseImageStorage databaseStorage;
+
+    @Autowired
+    private LocalFileImageStorage localStorage;
+
+    @Value("${image.storage.migration-batch-size:100}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread worker = new Thread(this::migrate, "image-storage-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void migrate() {
+        logger.info("开始迁移数据库中的图片到本地存储: batchSize={}", batchSize);
+        long afterId = 0;
+        int migrated = 0;
+        int deduplicated = 0;
+        int failed = 0;
+
+        while (true) {
+            List<ImageFile> batch = imageFileMapper.selectDatabaseStoredAfter(afterId, batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (ImageFile image : batch) {
+                afterId = image.getId();
+                try {
+                    LocalFileImageStorage.StoredContent stored =
+                            localStorage.storeContent(out -> databaseStorage.copyTo(image, out));
+                    if (image.getSize() != null && image.getSize() != stored.size()) {
+                        logger.warn("图片记录的大小与实际内容不一致，按实际大小更新: id={}, size={}, actual={}",
+                                image.getId(), image.getSize(), stored.size());
+                    }
+                    if (imageFileMapper.moveToContentStore(image.getId(), stored.hash(), stored.size()) > 0) {
+                        migrated++;
+                        if (stored.deduplicated()) {
+                            deduplicated++;
+                        }
+                    }
+                } catch (Exception e) {
+                    failed++;
+                    logger.error("迁移图片失败: id={}", image.getId(), e);
+                }
+            }
+            logger.info("图片迁移进度: lastId={}, migrated={}, deduplicated={}, failed={}",
+                    afterId, migrated, deduplicated, failed);
+        }
+
+        logger.info("图片迁移完成: migrated={}, deduplicated={}, failed={}", migrated, deduplicated, failed);
+    }
+}
@@ -0,0 +1,118 @@
+package com.chatapp.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 客户端上行的WebSocket帧
+ *
+ * 每种消息类型对应一个记录，字段为已解析的基本类型，处理器不再从Map中取值转换
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+interface InboundFrame {
+
+    FrameType type();
+
+    /**
+     * 上行帧类型，wireName 为帧中 type 字段的取值
+     */
+    enum FrameType {
+        PRIVATE("private"),
+        GROUP("group"),
+        TYPING("typing"),
+        READ_RECEIPT("read_receipt"),
+        HEARTBEAT("heartbeat"),
+        GET_ONLINE_USERS("get_online_users");
+
+        private static final Map<String, FrameType> BY_WIRE_NAME = new HashMap<>();
+
+        static {
+            for (FrameType type : values()) {
+                BY_WIRE_NAME.put(type.wireName, type);
+            }
+        }
+
+        private final String wireName;
+
+        FrameType(String wireName) {
+            this.wireName = wireName;
+        }
+
+        String wireName() {
+            return wireName;
+        }
+
+        /**
+         * 按 type 字段取值查找帧类型，未知类型返回null
+         */
+        static FrameType of(String wireName) {
+            return wireName != null ? BY_WIRE_NAME.get(wireName) : null;
+        }
+    }
+
+    /**
+     * 私聊消息
+     */
+    record PrivateFrame(long toUserId, String content, int messageType) implements InboundFrame {
+        @Override
+        public FrameType type() {
+            return FrameType.PRIVATE;
+        }
+    }
+
+    /**
+     * 群聊消息
+     */
+    record GroupFrame(long groupId, String content, int messageType) implements InboundFrame {
+        @Override
+        public FrameType type() {
+            return FrameType.GROUP;
+        }
+    }
+
+    /**
+     * 正在输入指示
+     */
+    record TypingFrame(long toUserId, boolean typing) implements InboundFrame {
+        @Override
+        public FrameType type() {
+            return FrameType.TYPING;
+        }
+    }
+
+    /**
+     * 已读回执
+     */
+    record ReadReceiptFrame(long messageId) implements InboundFrame {
+        @Override
+        public FrameType type() {
+            return FrameType.READ_RECEIPT;
+        }
+    }
+
+    /**
+     * 心跳（无字段，共享单例）
+     */
+    record HeartbeatFrame() implements InboundFrame {
+        static final HeartbeatFrame INSTANCE = new HeartbeatFrame();
+
+        @Override
+        public FrameType type() {
+            return FrameType.HEARTBEAT;
+        }
+    }
+
+    /**
+     * 获取在线用户列表（无字段，共享单例）
+     */
+    record GetOnlineUsersFrame() implements InboundFrame {
+        static final GetOnlineUsersFrame INSTANCE = new GetOnlineUsersFrame();
+
+        @Override
+        public FrameType type() {
+            return FrameType.GET_ONLINE_USERS;
+        }
+    }
+}
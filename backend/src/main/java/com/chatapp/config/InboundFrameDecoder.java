@@ -0,0 +1,141 @@
+package com.chatapp.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.IOException;
+
+/**
+ * 上行帧解码器
+ *
+ * 用流式解析器逐字段读取，数值直接读为基本类型，不构建中间Map；
+ * 字段顺序不限，未识别的字段跳过。兼容客户端以字符串形式发送的数字ID。
+ * 文本帧按JSON解码，二进制帧（chat.cbor 子协议）按CBOR解码，字段结构相同。
+ * 帧格式错误、缺少必填字段或类型未知时抛出 IllegalArgumentException
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+final class InboundFrameDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    // 表示字段缺失
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private static final int DEFAULT_MESSAGE_TYPE = 1;
+
+    private InboundFrameDecoder() {
+    }
+
+    static InboundFrame decode(String payload) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            return decode(parser);
+        }
+    }
+
+    static InboundFrame decodeBinary(byte[] payload, int offset, int length) throws IOException {
+        try (JsonParser parser = CBOR_FACTORY.createParser(payload, offset, length)) {
+            return decode(parser);
+        }
+    }
+
+    private static InboundFrame decode(JsonParser parser) throws IOException {
+        String type = null;
+        long toUserId = MISSING;
+        long groupId = MISSING;
+        long messageId = MISSING;
+        long messageType = MISSING;
+        String content = null;
+        boolean typing = false;
+
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("消息格式错误");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "type":
+                    type = token == JsonToken.VALUE_STRING ? parser.getText() : null;
+                    break;
+                case "toUserId":
+                    toUserId = readLong(parser, token, field);
+                    break;
+                case "groupId":
+                    groupId = readLong(parser, token, field);
+                    break;
+                case "messageId":
+                    messageId = readLong(parser, token, field);
+                    break;
+                case "messageType":
+                    messageType = readLong(parser, token, field);
+                    break;
+                case "content":
+                    content = token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getText() : null;
+                    parser.skipChildren();
+                    break;
+                case "isTyping":
+                    typing = parser.getValueAsBoolean();
+                    parser.skipChildren();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        InboundFrame.FrameType frameType = InboundFrame.FrameType.of(type);
+        if (frameType == null) {
+            throw new IllegalArgumentException(type == null ? "缺少消息类型" : "未知的消息类型: " + type);
+        }
+
+        switch (frameType) {
+            case PRIVATE:
+                return new InboundFrame.PrivateFrame(require(toUserId, "toUserId"), content,
+                        messageType != MISSING ? (int) messageType : DEFAULT_MESSAGE_TYPE);
+            case GROUP:
+                return new InboundFrame.GroupFrame(require(groupId, "groupId"), content,
+                        messageType != MISSING ? (int) messageType : DEFAULT_MESSAGE_TYPE);
+            case TYPING:
+                return new InboundFrame.TypingFrame(require(toUserId, "toUserId"), typing);
+            case READ_RECEIPT:
+                return new InboundFrame.ReadReceiptFrame(require(messageId, "messageId"));
+            case HEARTBEAT:
+                return InboundFrame.HeartbeatFrame.INSTANCE;
+            case GET_ONLINE_USERS:
+                return InboundFrame.GetOnlineUsersFrame.INSTANCE;
+            default:
+                throw new IllegalArgumentException("未知的消息类型: " + type);
+        }
+    }
+
+    /**
+     * 读取整数字段，接受数字和数字字符串，null视为缺失
+     */
+    private static long readLong(JsonParser parser, JsonToken token, String field) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return MISSING;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("字段格式错误: " + field);
+            }
+        }
+        throw new IllegalArgumentException("字段格式错误: " + field);
+    }
+
+    private static long require(long value, String field) {
+        if (value == MISSING) {
+            throw new IllegalArgumentException("缺少字段: " + field);
+        }
+        return value;
+    }
+}
@@ -7,9 +7,10 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -19,18 +20,26 @@ import java.util.*;
 /**
  * JWT认证过滤器
  * 用于验证JWT令牌并设置认证信息
+ *
+ * 用户名和用户ID直接取自已验签的令牌，认证过程不访问数据库；
+ * 用户ID在 security.admin-user-ids 中的用户额外授予管理员角色
  * 
  * @author ChatApp
  * @since 1.0.0
  */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final List<SimpleGrantedAuthority> USER_AUTHORITIES =
+            List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    private static final List<SimpleGrantedAuthority> ADMIN_AUTHORITIES =
+            List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"));
+
     private final JwtTokenService jwtTokenService;
-    private final UserDetailsService userDetailsService;
+    private final Set<Long> adminUserIds;
 
-    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenService jwtTokenService, Set<Long> adminUserIds) {
         this.jwtTokenService = jwtTokenService;
-        this.userDetailsService = userDetailsService;
+        this.adminUserIds = adminUserIds != null ? Set.copyOf(adminUserIds) : Set.of();
     }
 
     @Override
@@ -43,49 +52,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 String token = authHeader.substring(7);
+                JwtTokenService.TokenClaims claims = jwtTokenService.parseToken(token);
+
+                if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = new User(claims.username(), "",
+                            adminUserIds.contains(claims.userId()) ? ADMIN_AUTHORITIES : USER_AUTHORITIES);
+
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                // 添加调试信息
-                System.out.println("JWT过滤器 - 处理token: " + token.substring(0, Math.min(20, token.length())) + "...");
-                System.out.println("JWT过滤器 - 请求URL: " + request.getRequestURI());
-
-                if (jwtTokenService.validateToken(token)) {
-                    String username = jwtTokenService.getUsernameFromToken(token);
-
-                    System.out.println("JWT过滤器 - 提取到用户名: " + username);
-
-                    if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                        UsernamePasswordAuthenticationToken authentication =
-                                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        
-                        // 从token中提取用户ID并设置到请求头
-                        try {
-                            Long userId = jwtTokenService.getUserIdFromToken(token);
-                            if (userId != null) {
-                                // 创建包装器来添加请求头
-                                RequestWrapper requestWrapper = new RequestWrapper(request);
-                                requestWrapper.addHeader("X-User-Id", userId.toString());
-                                request = requestWrapper;
-                                System.out.println("JWT过滤器 - 设置用户ID: " + userId);
-                            }
-                        } catch (Exception e) {
-                            System.err.println("JWT过滤器 - 提取用户ID失败: " + e.getMessage());
-                        }
-                        
-                        System.out.println("JWT过滤器 - 认证成功，用户: " + username);
-                    }
-                } else {
-                    System.out.println("JWT过滤器 - Token验证失败");
+                    // 将令牌中的用户ID设置到请求头
+                    RequestWrapper requestWrapper = new RequestWrapper(request);
+                    requestWrapper.addHeader("X-User-Id", claims.userId().toString());
+                    request = requestWrapper;
+                } else if (claims == null && logger.isDebugEnabled()) {
+                    logger.debug("JWT过滤器 - Token验证失败: " + request.getRequestURI());
                 }
-            } else {
-                System.out.println("JWT过滤器 - 未找到Authorization头或格式不正确");
             }
         } catch (Exception e) {
-            System.err.println("JWT认证失败: " + e.getMessage());
             logger.error("JWT认证失败: " + e.getMessage(), e);
         }
 
@@ -1,5 +1,6 @@
 package com.chatapp.config;
 
+import com.chatapp.service.ReadWatermarkService;
 import com.chatapp.service.WebSocketSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +24,9 @@ public class ScheduleConfig {
     @Autowired
     private WebSocketSessionService sessionService;
 
+    @Autowired
+    private ReadWatermarkService readWatermarkService;
+
     /**
      * 每5分钟清理一次过期的WebSocket会话
      */
@@ -36,4 +40,28 @@ public class ScheduleConfig {
             logger.error("清理过期WebSocket会话失败", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 定期将内存中累积的心跳批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${websocket.heartbeat.flush-interval-ms:30000}")
+    public void flushHeartbeats() {
+        try {
+            sessionService.flushHeartbeats();
+        } catch (Exception e) {
+            logger.error("批量写入心跳失败", e);
+        }
+    }
+
+    /**
+     * 定期将内存中合并的已读水位批量写入数据库
+     */
+    @Scheduled(fixedDelayString = "${message.read-watermark.flush-interval-ms:2000}")
+    public void flushReadWatermarks() {
+        try {
+            readWatermarkService.flush();
+        } catch (Exception e) {
+            logger.error("批量写入已读水位失败", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.chatapp.config;
 
 import com.chatapp.service.JwtTokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -18,6 +19,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Set;
 
 /**
  * 安全配置类
@@ -29,6 +31,18 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * 运行统计接口（含会话ID、用户ID等运维信息），仅管理员可访问
+     */
+    private static final String[] ADMIN_PATHS = {
+            "/chat/sessions/*-stats", "/chat/read-watermarks/stats",
+            "/user/principal-cache/stats", "/user/avatar-cache/stats", "/group/cache/stats"
+    };
+
+    // 拥有管理员角色的用户ID
+    @Value("${security.admin-user-ids:}")
+    private Set<Long> adminUserIds;
+
     public SecurityConfig() {
         // 无参构造函数，已移除JWT相关依赖
     }
@@ -59,6 +73,7 @@ public class SecurityConfig {
                                 "/user/avatar/**", "/api/files/**", "/ws/**", "/api/ws/**", "/api/messages/**","/api/groups/**",
                                 "/images/**")
                         .permitAll()
+                        .requestMatchers(ADMIN_PATHS).hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
                 .exceptionHandling(exception -> exception
@@ -72,7 +87,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenService(), userDetailsService());
+        return new JwtAuthenticationFilter(jwtTokenService(), adminUserIds);
     }
 
     @Bean
@@ -1,13 +1,22 @@
 package com.chatapp.config;
 
+import com.chatapp.service.impl.FrameCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 /**
  * WebSocket配置类
+ *
+ * /ws/chat 可协商子协议：客户端在 Sec-WebSocket-Protocol 中请求 chat.cbor 时使用二进制CBOR帧，
+ * 请求 chat.json 或不请求子协议时使用JSON文本帧。
+ *
+ * 客户端请求 permessage-deflate 时由容器压缩数据帧；是否接受压缩以及双方是否保留跨消息的
+ * 压缩上下文由 CompressionPolicyUpgradeStrategy 在容器协商扩展时决定
  * 
  * @author ChatApp
  * @since 1.0.0
@@ -22,10 +31,31 @@ public class WebSocketConfig implements WebSocketConfigurer {
     @Autowired
     private AuthHandshakeInterceptor authHandshakeInterceptor;
 
+    @Value("${websocket.binary-protocol.enabled:true}")
+    private boolean binaryProtocolEnabled;
+
+    @Value("${websocket.compression.enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${websocket.compression.server-no-context-takeover:true}")
+    private boolean serverNoContextTakeover;
+
+    @Value("${websocket.compression.client-no-context-takeover:false}")
+    private boolean clientNoContextTakeover;
+
     @Override
     public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler(
+                new CompressionPolicyUpgradeStrategy(compressionEnabled, serverNoContextTakeover, clientNoContextTakeover));
+        if (binaryProtocolEnabled) {
+            handshakeHandler.setSupportedProtocols(FrameCodec.CBOR_PROTOCOL, FrameCodec.JSON_PROTOCOL);
+        } else {
+            handshakeHandler.setSupportedProtocols(FrameCodec.JSON_PROTOCOL);
+        }
+
         registry.addHandler(chatWebSocketHandler, "/ws/chat")
+                .setHandshakeHandler(handshakeHandler)
                 .setAllowedOrigins("*")
                 .addInterceptors(authHandshakeInterceptor);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,50 @@
+package com.chatapp.controller;
+
+import com.chatapp.service.AvatarService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * 头像响应构建
+ *
+ * 请求的版本号（?v=）与当前内容一致时按 immutable 长期缓存；
+ * 不带版本号或版本号已过期时返回 no-cache，客户端凭ETag重新验证
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+final class AvatarResponses {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    private AvatarResponses() {
+    }
+
+    static ResponseEntity<byte[]> of(AvatarService.Avatar avatar, String requestedVersion, String ifNoneMatch) {
+        String etag = "\"avatar-" + avatar.version() + "\"";
+        String cacheControl = avatar.version().equals(requestedVersion) ? IMMUTABLE : REVALIDATE;
+
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(avatar.contentType());
+        } catch (Exception e) {
+            mediaType = MediaType.IMAGE_JPEG;
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .contentLength(avatar.data().length)
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .body(avatar.data());
+    }
+}
@@ -1,11 +1,12 @@
 package com.chatapp.controller;
 
+import com.chatapp.dto.ConversationDTO;
 import com.chatapp.entity.Message;
 import com.chatapp.service.MessageService;
+import com.chatapp.service.ReadWatermarkService;
 import com.chatapp.service.WebSocketSessionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -30,6 +31,9 @@ public class ChatController {
     @Autowired
     private WebSocketSessionService sessionService;
 
+    @Autowired
+    private ReadWatermarkService readWatermarkService;
+
     /**
      * 获取私聊消息历史
      */
@@ -38,9 +42,8 @@ public class ChatController {
             @RequestParam Long friendId,
             @RequestParam(defaultValue = "50") Integer limit,
             @RequestParam(defaultValue = "0") Integer offset,
-            Authentication authentication) {
+            @RequestHeader("X-User-Id") Long userId) {
         
-        Long userId = Long.valueOf(authentication.getName());
         List<Message> messages = messageService.getPrivateMessageHistory(userId, friendId, limit, offset);
         
         Map<String, Object> result = new HashMap<>();
@@ -74,8 +77,7 @@ public class ChatController {
      * 获取未读消息数量
      */
     @GetMapping("/unread-count")
-    public ResponseEntity<Map<String, Object>> getUnreadCount(Authentication authentication) {
-        Long userId = Long.valueOf(authentication.getName());
+    public ResponseEntity<Map<String, Object>> getUnreadCount(@RequestHeader("X-User-Id") Long userId) {
         int unreadCount = messageService.getUnreadMessageCount(userId);
         
         Map<String, Object> result = new HashMap<>();
@@ -90,8 +92,11 @@ public class ChatController {
      * 标记消息为已读
      */
     @PostMapping("/messages/{messageId}/read")
-    public ResponseEntity<Map<String, Object>> markMessageAsRead(@PathVariable Long messageId) {
-        boolean success = messageService.markMessageAsRead(messageId);
+    public ResponseEntity<Map<String, Object>> markMessageAsRead(
+            @PathVariable Long messageId,
+            @RequestHeader("X-User-Id") Long userId) {
+        
+        boolean success = messageService.markMessageAsRead(userId, messageId);
         
         Map<String, Object> result = new HashMap<>();
         result.put("code", success ? 200 : 500);
@@ -107,9 +112,8 @@ public class ChatController {
     @PostMapping("/messages/read-all")
     public ResponseEntity<Map<String, Object>> markAllMessagesAsRead(
             @RequestParam Long fromUserId,
-            Authentication authentication) {
+            @RequestHeader("X-User-Id") Long userId) {
         
-        Long userId = Long.valueOf(authentication.getName());
         boolean success = messageService.markAllMessagesAsRead(userId, fromUserId);
         
         Map<String, Object> result = new HashMap<>();
@@ -165,15 +169,83 @@ public class ChatController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 获取WebSocket会话出站队列统计（用于定位慢客户端）
+     */
+    @GetMapping("/sessions/outbound-stats")
+    public ResponseEntity<Map<String, Object>> getOutboundQueueStats() {
+        List<Map<String, Object>> stats = sessionService.getOutboundQueueStats();
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取会话出站队列统计成功");
+        result.put("data", stats);
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 获取WebSocket压缩统计（用于调整压缩配置）
+     */
+    @GetMapping("/sessions/compression-stats")
+    public ResponseEntity<Map<String, Object>> getCompressionStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取WebSocket压缩统计成功");
+        result.put("data", sessionService.getCompressionStats());
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 获取心跳批量写入统计
+     */
+    @GetMapping("/sessions/heartbeat-stats")
+    public ResponseEntity<Map<String, Object>> getHeartbeatStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取心跳写入统计成功");
+        result.put("data", sessionService.getHeartbeatStats());
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 获取已读水位合并写入统计
+     */
+    @GetMapping("/read-watermarks/stats")
+    public ResponseEntity<Map<String, Object>> getReadWatermarkStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取已读水位写入统计成功");
+        result.put("data", readWatermarkService.getStats());
+        
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 获取会话列表（最后一条消息和未读数一次返回，用于聊天侧边栏）
+     */
+    @GetMapping("/conversations")
+    public ResponseEntity<Map<String, Object>> getConversations(@RequestHeader("X-User-Id") Long userId) {
+        List<ConversationDTO> conversations = messageService.getConversationList(userId);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取会话列表成功");
+        result.put("data", conversations);
+        
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 获取最近联系人
      */
     @GetMapping("/recent-contacts")
     public ResponseEntity<Map<String, Object>> getRecentContacts(
             @RequestParam(defaultValue = "10") Integer limit,
-            Authentication authentication) {
+            @RequestHeader("X-User-Id") Long userId) {
         
-        Long userId = Long.valueOf(authentication.getName());
         List<Long> recentContacts = messageService.getRecentContacts(userId, limit);
         
         Map<String, Object> result = new HashMap<>();
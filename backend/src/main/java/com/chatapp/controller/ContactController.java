@@ -152,11 +152,12 @@ public class ContactController {
             Long currentUserId = getCurrentUserId();
             List<Friendship> requests = friendshipService.getPendingRequests(currentUserId);
 
-            // 将Friendship转换为包含用户信息的DTO
-            List<FriendshipWithUserDTO> requestDTOs = requests.stream().map(friendship -> {
-                User fromUser = userService.findById(friendship.getUserId()).orElse(null);
-                return new FriendshipWithUserDTO(friendship, fromUser, null);
-            }).collect(Collectors.toList());
+            // 将Friendship转换为包含用户信息的DTO（请求方一次批量查询）
+            Map<Long, User> fromUsers = userService.findByIds(
+                    requests.stream().map(Friendship::getUserId).collect(Collectors.toList()));
+            List<FriendshipWithUserDTO> requestDTOs = requests.stream()
+                    .map(friendship -> new FriendshipWithUserDTO(friendship, fromUsers.get(friendship.getUserId()), null))
+                    .collect(Collectors.toList());
 
             return ResponseEntity.ok(createSuccessResponse("获取好友请求成功", requestDTOs));
         } catch (Exception e) {
@@ -174,11 +175,12 @@ public class ContactController {
             Long currentUserId = getCurrentUserId();
             List<Friendship> requests = friendshipService.getSentRequests(currentUserId);
 
-            // 将Friendship转换为包含用户信息的DTO
-            List<FriendshipWithUserDTO> requestDTOs = requests.stream().map(friendship -> {
-                User toUser = userService.findById(friendship.getFriendId()).orElse(null);
-                return new FriendshipWithUserDTO(friendship, null, toUser);
-            }).collect(Collectors.toList());
+            // 将Friendship转换为包含用户信息的DTO（接收方一次批量查询）
+            Map<Long, User> toUsers = userService.findByIds(
+                    requests.stream().map(Friendship::getFriendId).collect(Collectors.toList()));
+            List<FriendshipWithUserDTO> requestDTOs = requests.stream()
+                    .map(friendship -> new FriendshipWithUserDTO(friendship, null, toUsers.get(friendship.getFriendId())))
+                    .collect(Collectors.toList());
 
             return ResponseEntity.ok(createSuccessResponse("获取发送的请求成功", requestDTOs));
         } catch (Exception e) {
@@ -244,9 +246,9 @@ public class ContactController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
-        User user = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("用户不存在"));
-        return user.getId();
+        return userService.findSummaryByUsername(username)
+                .orElseThrow(() -> new RuntimeException("用户不存在"))
+                .getId();
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.chatapp.controller;
+
+/**
+ * ETag条件请求判断（图片和头像接口共用）
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * 判断If-None-Match是否命中（弱比较，支持*和多个ETag）
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -3,26 +3,22 @@ package com.chatapp.controller;
 import com.chatapp.dto.GroupDTO;
 import com.chatapp.entity.ChatGroup;
 import com.chatapp.entity.GroupAnnouncement;
+import com.chatapp.service.AvatarService;
 import com.chatapp.service.GroupService;
 import com.chatapp.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import javax.imageio.ImageIO;
 
 /**
  * 群组控制器
@@ -41,6 +37,9 @@ public class GroupController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AvatarService avatarService;
+
     // ==================== 群组管理 ====================
 
     /**
@@ -55,7 +54,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -112,7 +111,7 @@ public class GroupController {
         try {
             // 从认证信息中获取用户名，然后通过用户服务获取用户ID
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -148,7 +147,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -191,7 +190,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -281,7 +280,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -330,6 +329,18 @@ public class GroupController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * 获取群组缓存统计
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", 200);
+        result.put("message", "获取群组缓存统计成功");
+        result.put("data", groupService.getCacheStats());
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * 上传群头像
      */
@@ -343,7 +354,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -378,11 +389,12 @@ public class GroupController {
                 return ResponseEntity.ok(result);
             }
 
-            boolean success = groupService.uploadGroupAvatar(groupId, userId, file.getBytes(), contentType);
+            String avatarUrl = groupService.uploadGroupAvatar(groupId, userId, file.getBytes(), contentType);
+            boolean success = avatarUrl != null;
             
             result.put("code", success ? 200 : 500);
             result.put("message", success ? "上传群头像成功" : "上传群头像失败");
-            result.put("data", success);
+            result.put("data", success ? avatarUrl : false);
         } catch (Exception e) {
             result.put("code", 500);
             result.put("message", "上传群头像失败: " + e.getMessage());
@@ -393,76 +405,21 @@ public class GroupController {
     }
 
     /**
-     * 获取群头像
+     * 获取群头像，未上传时返回默认群头像
+     *
+     * 带当前版本号（?v=内容哈希）的请求按 immutable 缓存，其余请求凭ETag重新验证
      */
     @GetMapping("/{groupId}/avatar")
-    public ResponseEntity<byte[]> getGroupAvatar(@PathVariable Long groupId) {
+    public ResponseEntity<byte[]> getGroupAvatar(@PathVariable Long groupId,
+                                                 @RequestParam(value = "v", required = false) String version,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            ChatGroup group = groupService.getGroupAvatar(groupId);
-            
-            if (group != null && group.getGroupAvatarData() != null) {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.parseMediaType(
-                    group.getGroupAvatarContentType() != null ? 
-                    group.getGroupAvatarContentType() : "image/jpeg"));
-                
-                return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(group.getGroupAvatarData());
-            } else {
-                // 返回默认头像
-                byte[] defaultAvatar = getDefaultGroupAvatar();
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.IMAGE_JPEG);
-                return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(defaultAvatar);
-            }
+            return AvatarResponses.of(avatarService.getGroupAvatar(groupId), version, ifNoneMatch);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    /**
-     * 生成默认群头像
-     */
-    private byte[] getDefaultGroupAvatar() {
-        try {
-            // 创建一个简单的默认头像（蓝色圆形背景 + 白色"群"字）
-            int width = 100;
-            int height = 100;
-            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = image.createGraphics();
-            
-            // 设置抗锯齿
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            
-            // 绘制蓝色背景
-            g2d.setColor(new Color(64, 158, 255)); // Element Plus 主题蓝色
-            g2d.fillOval(0, 0, width, height);
-            
-            // 绘制白色"群"字
-            g2d.setColor(Color.WHITE);
-            Font font = new Font("Microsoft YaHei", Font.BOLD, 40);
-            g2d.setFont(font);
-            
-            FontMetrics metrics = g2d.getFontMetrics();
-            int x = (width - metrics.stringWidth("群")) / 2;
-            int y = ((height - metrics.getHeight()) / 2) + metrics.getAscent();
-            
-            g2d.drawString("群", x, y);
-            g2d.dispose();
-            
-            // 转换为字节数组
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(image, "JPEG", baos);
-            return baos.toByteArray();
-        } catch (Exception e) {
-            // 如果生成失败，返回一个简单的占位符
-            return new byte[0];
-        }
-    }
-
     // ==================== 成员管理 ====================
 
     /**
@@ -477,7 +434,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -514,7 +471,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -561,7 +518,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -621,7 +578,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -676,7 +633,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -714,7 +671,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -789,7 +746,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -830,7 +787,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -881,7 +838,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -928,7 +885,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -973,7 +930,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
             
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
@@ -1012,7 +969,7 @@ public class GroupController {
         
         try {
             String username = authentication.getName();
-            var userOpt = userService.findByUsername(username);
+            var userOpt = userService.findSummaryByUsername(username);
 
             if (userOpt.isEmpty()) {
                 result.put("code", 500);
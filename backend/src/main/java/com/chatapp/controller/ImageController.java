@@ -1,21 +1,36 @@
 package com.chatapp.controller;
 
 import com.chatapp.entity.ImageFile;
+import com.chatapp.entity.ImageThumbnail;
 import com.chatapp.service.ImageFileService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/images")
 public class ImageController {
 
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    // Tomcat sendfile请求属性（end为不包含的结束位置）
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private ImageFileService imageFileService;
 
@@ -32,34 +47,146 @@ public class ImageController {
 
             ImageFile saved = imageFileService.save(contentType, data, size, originalName);
 
-            Map<String, Object> resp = ok("上传成功", Map.of(
-                    "id", saved.getId(),
-                    "contentType", saved.getContentType(),
-                    "size", saved.getSize(),
-                    "originalName", saved.getOriginalName()
-            ));
+            Map<String, Object> body = new HashMap<>();
+            body.put("id", saved.getId());
+            body.put("contentType", saved.getContentType());
+            body.put("size", saved.getSize());
+            body.put("originalName", saved.getOriginalName());
+            body.put("width", saved.getWidth());
+            body.put("height", saved.getHeight());
+            body.put("placeholder", saved.getPlaceholder());
+            Map<String, Object> resp = ok("上传成功", body);
             return ResponseEntity.ok(resp);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(error(500, "上传失败: " + e.getMessage()));
         }
     }
 
+    /**
+     * 获取图片内容
+     *
+     * 图片内容不可变，ETag由图片ID和大小构成；支持If-None-Match返回304、
+     * 单段Range请求返回206，内容从存储中分段读取并直接写出到响应；
+     * 本地存储的图片在容器支持时通过sendfile零拷贝发送
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<byte[]> fetch(@PathVariable("id") Long id) {
+    public ResponseEntity<StreamingResponseBody> fetch(@PathVariable("id") Long id,
+                                                       @RequestHeader HttpHeaders requestHeaders,
+                                                       HttpServletRequest request) {
+        ImageFile img = imageFileService.get(id);
+        if (img == null || img.getSize() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return serve(img, "\"img-" + img.getId() + "-" + img.getSize() + "\"", CACHE_CONTROL, requestHeaders, request);
+    }
+
+    /**
+     * 获取图片缩略图
+     *
+     * 返回长边不小于size的最小规格缩略图；请求尺寸不小于原图或缩略图尚未生成时返回原图
+     */
+    @GetMapping("/{id}/thumbnail")
+    public ResponseEntity<StreamingResponseBody> fetchThumbnail(@PathVariable("id") Long id,
+                                                                @RequestParam(value = "size", defaultValue = "240") int size,
+                                                                @RequestHeader HttpHeaders requestHeaders,
+                                                                HttpServletRequest request) {
         ImageFile img = imageFileService.get(id);
-        if (img == null || img.getData() == null) {
+        if (img == null || img.getSize() == null) {
             return ResponseEntity.notFound().build();
         }
+
+        ImageThumbnail thumbnail = imageFileService.getThumbnail(img, size);
+        if (thumbnail == null) {
+            // 缩略图可能稍后生成，回退的原图需每次重新验证，不能被长期缓存在缩略图地址下
+            return serve(img, "\"img-" + img.getId() + "-" + img.getSize() + "\"", "no-cache", requestHeaders, request);
+        }
+
+        // 以图片记录的形式描述缩略图内容，复用原图的发送逻辑
+        ImageFile content = new ImageFile();
+        content.setId(img.getId());
+        content.setContentType(thumbnail.getContentType());
+        content.setSize(thumbnail.getSize());
+        content.setContentHash(thumbnail.getContentHash());
+        String etag = "\"img-" + img.getId() + "-t" + thumbnail.getMaxEdge() + "-" + thumbnail.getSize() + "\"";
+        return serve(content, etag, CACHE_CONTROL, requestHeaders, request);
+    }
+
+    /**
+     * 按条件请求和Range请求头发送图片内容
+     */
+    private ResponseEntity<StreamingResponseBody> serve(ImageFile img, String etag, String cacheControl,
+                                                        HttpHeaders requestHeaders, HttpServletRequest request) {
+        long size = img.getSize();
+
+        if (ETags.matches(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .build();
+        }
+
         MediaType mt;
         try {
             mt = MediaType.parseMediaType(img.getContentType());
         } catch (Exception e) {
             mt = MediaType.APPLICATION_OCTET_STREAM;
         }
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable")
+
+        // If-Range与当前ETag不一致时忽略Range，返回完整内容
+        String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (rangeHeader != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+
+            // 多段Range按完整内容返回
+            if (ranges.size() == 1) {
+                long start;
+                long end;
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                            .build();
+                }
+                ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                return content(builder, img, etag, cacheControl, mt, start, end - start + 1, request);
+            }
+        }
+
+        return content(ResponseEntity.ok(), img, etag, cacheControl, mt, 0, size, request);
+    }
+
+    /**
+     * 写出图片内容：本地文件且容器支持sendfile时交给容器零拷贝发送，否则流式写出
+     */
+    private ResponseEntity<StreamingResponseBody> content(ResponseEntity.BodyBuilder builder, ImageFile img,
+                                                          String etag, String cacheControl, MediaType mt,
+                                                          long start, long length, HttpServletRequest request) {
+        builder.eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
                 .contentType(mt)
-                .body(img.getData());
+                .contentLength(length);
+
+        if (length > 0 && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            Path path = imageFileService.getLocalPath(img);
+            if (path != null) {
+                request.setAttribute(SENDFILE_FILENAME, path.toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, start + length);
+                return builder.build();
+            }
+        }
+
+        return builder.body(out -> imageFileService.writeContent(img, start, length, out));
     }
 
     @GetMapping("/by-name")
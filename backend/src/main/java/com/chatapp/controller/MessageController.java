@@ -58,19 +58,8 @@ public class MessageController {
             Message message = messageService.sendPrivateMessage(userId, toUserId, content, messageType);
 
             // 入库成功后，复用 WebSocket 推送给接收方（与 ChatWebSocketHandler 保持一致负载）
-            Map<String, Object> wsPayload = new HashMap<>();
-            wsPayload.put("type", "private");
-            wsPayload.put("fromUserId", userId);
-            wsPayload.put("toUserId", toUserId);
-            wsPayload.put("message", message);
-            wsPayload.put("timestamp", System.currentTimeMillis());
-
-            // 在线实时推送；离线则走离线推送服务
-            if (sessionService.isUserOnline(toUserId)) {
-                sessionService.sendToUser(toUserId, wsPayload);
-            } else {
-                offlineMessageService.pushMessageToUser(toUserId, message);
-            }
+            // 在线实时推送（并推进接收方投递游标）；离线则等待上线时按游标同步
+            offlineMessageService.pushMessageToUser(toUserId, message);
 
             return ResponseEntity.ok(createSuccessResponse("消息发送成功", message));
         } catch (Exception e) {
@@ -110,10 +99,14 @@ public class MessageController {
             @RequestHeader("X-User-Id") Long userId,
             @RequestParam Long friendId,
             @RequestParam(required = false, defaultValue = "50") Integer limit,
-            @RequestParam(required = false, defaultValue = "0") Integer offset) {
+            @RequestParam(required = false, defaultValue = "0") Integer offset,
+            @RequestParam(required = false) Long beforeMessageId) {
         
         try {
-            List<Message> messages = messageService.getPrivateMessageHistory(userId, friendId, limit, offset);
+            // 传入beforeMessageId时使用游标分页，深翻页与首页代价相同；否则兼容旧的偏移分页
+            List<Message> messages = beforeMessageId != null || offset == 0
+                    ? messageService.getPrivateMessageHistoryBefore(userId, friendId, beforeMessageId, limit)
+                    : messageService.getPrivateMessageHistory(userId, friendId, limit, offset);
             return ResponseEntity.ok(createSuccessResponse("获取消息历史成功", messages));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -128,10 +121,14 @@ public class MessageController {
     public ResponseEntity<Map<String, Object>> getGroupMessageHistory(
             @RequestParam Long groupId,
             @RequestParam(required = false, defaultValue = "50") Integer limit,
-            @RequestParam(required = false, defaultValue = "0") Integer offset) {
+            @RequestParam(required = false, defaultValue = "0") Integer offset,
+            @RequestParam(required = false) Long beforeMessageId) {
         
         try {
-            List<Message> messages = messageService.getGroupMessageHistory(groupId, limit, offset);
+            // 传入beforeMessageId时使用游标分页，深翻页与首页代价相同；否则兼容旧的偏移分页
+            List<Message> messages = beforeMessageId != null || offset == 0
+                    ? messageService.getGroupMessageHistoryBefore(groupId, beforeMessageId, limit)
+                    : messageService.getGroupMessageHistory(groupId, limit, offset);
             return ResponseEntity.ok(createSuccessResponse("获取群消息历史成功", messages));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -177,10 +174,11 @@ public class MessageController {
      */
     @PutMapping("/read/{messageId}")
     public ResponseEntity<Map<String, Object>> markMessageAsRead(
+            @RequestHeader("X-User-Id") Long userId,
             @PathVariable Long messageId) {
         
         try {
-            boolean success = messageService.markMessageAsRead(messageId);
+            boolean success = messageService.markMessageAsRead(userId, messageId);
             if (success) {
                 return ResponseEntity.ok(createSuccessResponse("消息标记为已读成功", null));
             } else {
@@ -215,6 +213,28 @@ public class MessageController {
         }
     }
 
+    /**
+     * 标记群聊的所有消息为已读
+     */
+    @PutMapping("/read/group")
+    public ResponseEntity<Map<String, Object>> markGroupMessagesAsRead(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam Long groupId) {
+        
+        try {
+            boolean success = messageService.markGroupMessagesAsRead(userId, groupId);
+            if (success) {
+                return ResponseEntity.ok(createSuccessResponse("群聊消息标记为已读成功", null));
+            } else {
+                return ResponseEntity.badRequest()
+                        .body(createErrorResponse(400, "群聊消息标记为已读失败"));
+            }
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(createErrorResponse(400, "群聊消息标记为已读失败: " + e.getMessage()));
+        }
+    }
+
     /**
      * 撤回消息
      */
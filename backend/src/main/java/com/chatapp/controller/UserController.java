@@ -1,10 +1,12 @@
 package com.chatapp.controller;
 
 import com.chatapp.entity.User;
+import com.chatapp.service.AvatarService;
 import com.chatapp.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -28,11 +30,16 @@ import java.util.Map;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class UserController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
     private final UserService userService;
 
+    private final AvatarService avatarService;
+
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, AvatarService avatarService) {
         this.userService = userService;
+        this.avatarService = avatarService;
     }
 
     /**
@@ -223,35 +230,21 @@ public class UserController {
 
     /**
      * 获取用户头像
+     *
+     * 带当前版本号（?v=内容哈希）的请求按 immutable 缓存，其余请求凭ETag重新验证
      */
     @GetMapping("/avatar/{userId}")
-    public ResponseEntity<byte[]> getUserAvatar(@PathVariable Long userId) {
+    public ResponseEntity<byte[]> getUserAvatar(@PathVariable Long userId,
+                                                @RequestParam(value = "v", required = false) String version,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            System.out.println("获取用户头像，用户ID: " + userId);
-            
-            User user = userService.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("用户不存在"));
-            
-            byte[] avatarData = user.getAvatarData();
-            String contentType = user.getAvatarContentType();
-            
-            if (avatarData == null || avatarData.length == 0) {
-                System.out.println("用户没有头像数据");
+            AvatarService.Avatar avatar = avatarService.getUserAvatar(userId);
+            if (avatar == null) {
                 return ResponseEntity.notFound().build();
             }
-            
-            System.out.println("返回头像数据，大小: " + avatarData.length + " bytes, 类型: " + contentType);
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/jpeg"))
-                    .header(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate")
-                    .header(HttpHeaders.PRAGMA, "no-cache")
-                    .header(HttpHeaders.EXPIRES, "0")
-                    .body(avatarData);
-                    
+            return AvatarResponses.of(avatar, version, ifNoneMatch);
         } catch (Exception e) {
-            System.err.println("获取头像失败: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("获取头像失败: userId={}", userId, e);
             return ResponseEntity.internalServerError().build();
         }
     }
@@ -277,6 +270,30 @@ public class UserController {
         }
     }
 
+    /**
+     * 获取用户摘要缓存统计
+     */
+    @GetMapping("/principal-cache/stats")
+    public ResponseEntity<?> getPrincipalCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "获取用户摘要缓存统计成功");
+        response.put("data", userService.getPrincipalCacheStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 获取头像缓存统计
+     */
+    @GetMapping("/avatar-cache/stats")
+    public ResponseEntity<?> getAvatarCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("code", 200);
+        response.put("message", "获取头像缓存统计成功");
+        response.put("data", avatarService.getCacheStats());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/change-password")
     public ResponseEntity<?> changePassword(@RequestBody Map<String, String> passwordData) {
         try {
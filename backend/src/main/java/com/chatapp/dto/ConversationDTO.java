@@ -0,0 +1,49 @@
+package com.chatapp.dto;
+
+import com.chatapp.entity.Conversation;
+import com.chatapp.entity.Message;
+
+/**
+ * 会话列表项DTO
+ * 用于聊天侧边栏，一次查询返回会话、最后一条消息和未读数
+ * 
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public class ConversationDTO {
+    private Conversation conversation;
+    private Message lastMessage;
+
+    public ConversationDTO() {
+    }
+
+    public ConversationDTO(Conversation conversation, Message lastMessage) {
+        this.conversation = conversation;
+        this.lastMessage = lastMessage;
+    }
+
+    // Getter and Setter methods
+    public Conversation getConversation() {
+        return conversation;
+    }
+
+    public void setConversation(Conversation conversation) {
+        this.conversation = conversation;
+    }
+
+    public Message getLastMessage() {
+        return lastMessage;
+    }
+
+    public void setLastMessage(Message lastMessage) {
+        this.lastMessage = lastMessage;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversationDTO{" +
+                "conversation=" + conversation +
+                ", lastMessage=" + lastMessage +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.chatapp.dto;
+
+/**
+ * 用户摘要DTO
+ * 只包含身份和展示所需的字段，用于鉴权、群主/邀请人昵称等非头像场景，
+ * 头像二进制数据只由头像接口读取
+ * 
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public class UserSummaryDTO {
+    private Long id;
+    private String username;
+    private String nickname;
+    private Integer status;
+    private String avatar;  // 头像URL（带内容哈希版本号，头像变化时URL随之变化）
+
+    public UserSummaryDTO() {
+    }
+
+    /**
+     * 获取展示名称（优先昵称）
+     */
+    public String getDisplayName() {
+        return nickname != null ? nickname : username;
+    }
+
+    // Getter and Setter methods
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getAvatar() {
+        return avatar;
+    }
+
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummaryDTO{" +
+                "id=" + id +
+                ", username='" + username + '\'' +
+                ", avatar='" + avatar + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,157 @@
+package com.chatapp.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话实体类
+ * 对应数据库 conversations 表
+ * 
+ * 每个用户每个会话一行，由消息发送路径增量维护最后一条消息和未读数
+ * 
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public class Conversation {
+
+    /**
+     * 会话类型: 私聊
+     */
+    public static final int TYPE_PRIVATE = 1;
+
+    /**
+     * 会话类型: 群聊
+     */
+    public static final int TYPE_GROUP = 2;
+    
+    private Long id;
+    private Long userId;
+    private Long targetId;                 // 对话目标ID（用户ID或群组ID）
+    private Integer conversationType;      // 会话类型: 1-私聊, 2-群聊
+    private Long lastMessageId;
+    private LocalDateTime lastMessageTime;
+    private Integer unreadCount;           // 未读消息数
+    private Integer isTop;                 // 是否置顶: 0-否, 1-是
+    private Integer isMute;                // 是否静音: 0-否, 1-是
+    private LocalDateTime createTime;
+    private LocalDateTime updateTime;
+    private Integer deleted;
+
+    // 构造函数
+    public Conversation() {
+        this.unreadCount = 0;
+        this.isTop = 0;
+        this.isMute = 0;
+        this.deleted = 0;
+        this.createTime = LocalDateTime.now();
+        this.updateTime = LocalDateTime.now();
+    }
+
+    // Getter and Setter methods
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public Integer getConversationType() {
+        return conversationType;
+    }
+
+    public void setConversationType(Integer conversationType) {
+        this.conversationType = conversationType;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public LocalDateTime getLastMessageTime() {
+        return lastMessageTime;
+    }
+
+    public void setLastMessageTime(LocalDateTime lastMessageTime) {
+        this.lastMessageTime = lastMessageTime;
+    }
+
+    public Integer getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(Integer unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+
+    public Integer getIsTop() {
+        return isTop;
+    }
+
+    public void setIsTop(Integer isTop) {
+        this.isTop = isTop;
+    }
+
+    public Integer getIsMute() {
+        return isMute;
+    }
+
+    public void setIsMute(Integer isMute) {
+        this.isMute = isMute;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    public Integer getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Integer deleted) {
+        this.deleted = deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "Conversation{" +
+                "id=" + id +
+                ", userId=" + userId +
+                ", targetId=" + targetId +
+                ", conversationType=" + conversationType +
+                ", lastMessageId=" + lastMessageId +
+                ", unreadCount=" + unreadCount +
+                '}';
+    }
+}
@@ -7,7 +7,14 @@ public class ImageFile {
     private String contentType;
     private byte[] data;
     private Long size;
+    // 内容的SHA-256（十六进制），非空表示内容保存在本地内容寻址存储中，data为空
+    private String contentHash;
     private String originalName;
+    // 原图尺寸（无法解码时为空）
+    private Integer width;
+    private Integer height;
+    // 内联占位图（data URI），随图片消息下发，客户端在缩略图加载前显示
+    private String placeholder;
     private LocalDateTime createTime;
 
     public Long getId() { return id; }
@@ -22,9 +29,21 @@ public class ImageFile {
     public Long getSize() { return size; }
     public void setSize(Long size) { this.size = size; }
 
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
     public String getOriginalName() { return originalName; }
     public void setOriginalName(String originalName) { this.originalName = originalName; }
 
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public String getPlaceholder() { return placeholder; }
+    public void setPlaceholder(String placeholder) { this.placeholder = placeholder; }
+
     public LocalDateTime getCreateTime() { return createTime; }
     public void setCreateTime(LocalDateTime createTime) { this.createTime = createTime; }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.chatapp.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图片缩略图实体类
+ * 对应数据库 image_thumbnails 表，内容保存在本地内容寻址存储中
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public class ImageThumbnail {
+    private Long id;
+    private Long imageId;
+    private Integer maxEdge;       // 规格：长边上限（像素）
+    private String contentType;
+    private Integer width;
+    private Integer height;
+    private Long size;
+    private String contentHash;
+    private LocalDateTime createTime;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getImageId() { return imageId; }
+    public void setImageId(Long imageId) { this.imageId = imageId; }
+
+    public Integer getMaxEdge() { return maxEdge; }
+    public void setMaxEdge(Integer maxEdge) { this.maxEdge = maxEdge; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public Integer getWidth() { return width; }
+    public void setWidth(Integer width) { this.width = width; }
+
+    public Integer getHeight() { return height; }
+    public void setHeight(Integer height) { this.height = height; }
+
+    public Long getSize() { return size; }
+    public void setSize(Long size) { this.size = size; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public LocalDateTime getCreateTime() { return createTime; }
+    public void setCreateTime(LocalDateTime createTime) { this.createTime = createTime; }
+}
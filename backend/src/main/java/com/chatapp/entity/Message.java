@@ -1,6 +1,9 @@
 package com.chatapp.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * 消息实体类
@@ -15,12 +18,13 @@ public class Message {
     private Long fromUserId;      // 发送者ID
     private Long toUserId;         // 接收者ID（私聊消息）
     private Long groupId;          // 群组ID（群聊消息）
+    private String conversationKey; // 私聊会话键（较小用户ID_较大用户ID），群聊为空
     private Integer messageType;   // 消息类型: 1-文本, 2-图片, 3-文件, 4-语音, 5-视频, 6-系统消息
     private String content;        // 消息内容
     private String fileUrl;        // 文件URL（文件消息）
     private String fileName;       // 文件名（文件消息）
     private Long fileSize;         // 文件大小（文件消息）
-    private Integer status;        // 消息状态: 0-未读, 1-已读, 2-已撤回
+    private Integer status;        // 消息状态: 0-未读, 1-已读, 2-已撤回（已读由已读水位推导，不再逐条更新）
     private Long replyToId;        // 回复的消息ID
     private LocalDateTime sendTime; // 发送时间
     private LocalDateTime readTime; // 阅读时间
@@ -28,6 +32,10 @@ public class Message {
     private LocalDateTime updateTime;
     private Integer deleted;
 
+    // 图片消息的预览信息（原图尺寸、内联占位图、缩略图规格），仅在发送时随消息下发，不入库
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> imagePreview;
+
     // 构造函数
     public Message() {
         this.messageType = 1;     // 默认文本消息
@@ -134,6 +142,21 @@ public class Message {
         this.status = status;
     }
 
+    public String getConversationKey() {
+        return conversationKey;
+    }
+
+    public void setConversationKey(String conversationKey) {
+        this.conversationKey = conversationKey;
+    }
+
+    /**
+     * 生成两个用户之间私聊的规范会话键，与参数顺序无关
+     */
+    public static String privateConversationKey(Long userId1, Long userId2) {
+        return Math.min(userId1, userId2) + "_" + Math.max(userId1, userId2);
+    }
+
     public Long getReplyToId() {
         return replyToId;
     }
@@ -194,4 +217,12 @@ public class Message {
                 ", status=" + status +
                 '}';
     }
-}
\ No newline at end of file
+
+    public Map<String, Object> getImagePreview() {
+        return imagePreview;
+    }
+
+    public void setImagePreview(Map<String, Object> imagePreview) {
+        this.imagePreview = imagePreview;
+    }
+}
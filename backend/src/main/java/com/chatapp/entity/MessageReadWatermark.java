@@ -0,0 +1,86 @@
+package com.chatapp.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已读水位实体类
+ * 对应数据库 message_read_watermarks 表
+ *
+ * 记录用户在每个会话中已读到的最大消息ID，id 不大于水位的消息视为已读。
+ * conversationType 与会话表一致：私聊时 targetId 为对方用户ID，群聊时为群组ID
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public class MessageReadWatermark {
+
+    private Long userId;
+    private Integer conversationType;
+    private Long targetId;
+    private Long lastReadMessageId;
+    private LocalDateTime updateTime;
+
+    // 构造函数
+    public MessageReadWatermark() {
+        this.updateTime = LocalDateTime.now();
+    }
+
+    public MessageReadWatermark(Long userId, Integer conversationType, Long targetId, Long lastReadMessageId) {
+        this();
+        this.userId = userId;
+        this.conversationType = conversationType;
+        this.targetId = targetId;
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    // Getter and Setter methods
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Integer getConversationType() {
+        return conversationType;
+    }
+
+    public void setConversationType(Integer conversationType) {
+        this.conversationType = conversationType;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public Long getLastReadMessageId() {
+        return lastReadMessageId;
+    }
+
+    public void setLastReadMessageId(Long lastReadMessageId) {
+        this.lastReadMessageId = lastReadMessageId;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageReadWatermark{" +
+                "userId=" + userId +
+                ", conversationType=" + conversationType +
+                ", targetId=" + targetId +
+                ", lastReadMessageId=" + lastReadMessageId +
+                '}';
+    }
+}
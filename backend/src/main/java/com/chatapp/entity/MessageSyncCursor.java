@@ -0,0 +1,95 @@
+package com.chatapp.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息同步游标实体类
+ * 对应数据库 message_sync_cursors 表
+ * 
+ * 记录用户在每个会话中已投递的最大消息ID，上线同步时按 id > lastMessageId 范围读取消息
+ * 
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public class MessageSyncCursor {
+
+    /**
+     * 会话类型: 私聊（targetId固定为0，表示该用户的全部私聊收件箱）
+     */
+    public static final int TYPE_PRIVATE = 1;
+
+    /**
+     * 会话类型: 群聊（targetId为群组ID）
+     */
+    public static final int TYPE_GROUP = 2;
+
+    private Long userId;
+    private Integer conversationType;
+    private Long targetId;
+    private Long lastMessageId;
+    private LocalDateTime updateTime;
+
+    // 构造函数
+    public MessageSyncCursor() {
+        this.updateTime = LocalDateTime.now();
+    }
+
+    public MessageSyncCursor(Long userId, Integer conversationType, Long targetId, Long lastMessageId) {
+        this();
+        this.userId = userId;
+        this.conversationType = conversationType;
+        this.targetId = targetId;
+        this.lastMessageId = lastMessageId;
+    }
+
+    // Getter and Setter methods
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Integer getConversationType() {
+        return conversationType;
+    }
+
+    public void setConversationType(Integer conversationType) {
+        this.conversationType = conversationType;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageSyncCursor{" +
+                "userId=" + userId +
+                ", conversationType=" + conversationType +
+                ", targetId=" + targetId +
+                ", lastMessageId=" + lastMessageId +
+                '}';
+    }
+}
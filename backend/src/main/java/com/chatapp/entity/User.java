@@ -118,6 +118,7 @@ public class User {
         this.avatarContentType = avatarContentType;
     }
 
+
     public Integer getStatus() {
         return status;
     }
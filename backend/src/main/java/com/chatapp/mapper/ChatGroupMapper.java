@@ -66,8 +66,8 @@ public interface ChatGroupMapper {
     ChatGroup selectGroupAvatarById(@Param("id") Long id);
 
     /**
-     * 更新群组头像
+     * 更新群组头像（同时更新带版本号的头像URL）
      */
-    int updateGroupAvatar(@Param("id") Long id, @Param("avatarData") byte[] avatarData, 
-                         @Param("contentType") String contentType);
+    int updateGroupAvatar(@Param("id") Long id, @Param("avatarUrl") String avatarUrl,
+                         @Param("avatarData") byte[] avatarData, @Param("contentType") String contentType);
 }
\ No newline at end of file
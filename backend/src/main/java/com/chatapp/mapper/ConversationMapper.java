@@ -0,0 +1,58 @@
+package com.chatapp.mapper;
+
+import com.chatapp.dto.ConversationDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 会话数据访问接口
+ * 
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Mapper
+public interface ConversationMapper {
+
+    /**
+     * 写入或更新用户的私聊会话（最后一条消息）
+     */
+    int upsertPrivateConversation(@Param("userId") Long userId,
+                                  @Param("targetId") Long targetId,
+                                  @Param("messageId") Long messageId,
+                                  @Param("messageTime") LocalDateTime messageTime);
+
+    /**
+     * 更新群组的最后一条消息（每条群消息只写一行，成员的群聊会话在查询时关联）
+     */
+    int updateGroupLastMessage(@Param("groupId") Long groupId,
+                               @Param("messageId") Long messageId,
+                               @Param("messageTime") LocalDateTime messageTime);
+
+    /**
+     * 为入群的用户创建群聊会话，已删除的会话恢复并以入群时间作为创建时间
+     */
+    int upsertGroupConversations(@Param("groupId") Long groupId,
+                                 @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 软删除离开群组的用户的群聊会话
+     */
+    int deleteGroupConversations(@Param("groupId") Long groupId,
+                                 @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 查询用户会话的最后一条消息ID（群聊取群组的最后一条消息），会话不存在时返回null
+     */
+    Long findLastMessageId(@Param("userId") Long userId,
+                           @Param("targetId") Long targetId,
+                           @Param("conversationType") Integer conversationType);
+
+    /**
+     * 查询用户的会话列表（含最后一条消息，未读数按已读水位计算），置顶优先，按最后消息时间倒序
+     */
+    List<ConversationDTO> findConversationList(@Param("userId") Long userId);
+}
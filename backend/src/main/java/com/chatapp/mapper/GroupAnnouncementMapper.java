@@ -4,6 +4,7 @@ import com.chatapp.entity.GroupAnnouncement;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -35,6 +36,11 @@ public interface GroupAnnouncementMapper {
      */
     GroupAnnouncement selectLatestAnnouncementByGroupId(@Param("groupId") Long groupId);
 
+    /**
+     * 批量查询多个群组各自的最新公告（发布时间相同时可能返回同一群的多条）
+     */
+    List<GroupAnnouncement> selectLatestAnnouncementsByGroupIds(@Param("groupIds") Collection<Long> groupIds);
+
     /**
      * 查询群组的置顶公告
      */
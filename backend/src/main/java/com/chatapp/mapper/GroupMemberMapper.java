@@ -63,6 +63,11 @@ public interface GroupMemberMapper {
      */
     int updateMember(GroupMember member);
 
+    /**
+     * 重新入群时把入群时间和入群消息位置重置为当前
+     */
+    int resetJoinPosition(@Param("id") Long id);
+
     /**
      * 更新群成员角色
      */
@@ -3,10 +3,44 @@ package com.chatapp.mapper;
 import com.chatapp.entity.ImageFile;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.io.InputStream;
+import java.util.List;
 
 @Mapper
 public interface ImageFileMapper {
     int insert(ImageFile imageFile);
+
+    /**
+     * 查询图片元数据（不读取二进制数据）
+     */
     ImageFile findById(@Param("id") Long id);
+
+    /**
+     * 按原始文件名查询最新一张图片的元数据（不读取二进制数据）
+     */
     ImageFile findByOriginalName(@Param("name") String name);
-}
\ No newline at end of file
+
+    /**
+     * 查询最早上传的同内容图片的元数据（内容保存在本地存储的图片）
+     */
+    ImageFile findFirstByContentHash(@Param("contentHash") String contentHash);
+
+    /**
+     * 用一次查询读取图片二进制数据中从offset开始的最多length个字节（length为null时读到末尾），
+     * handler 在结果集打开期间读取内容流，返回后流即失效
+     */
+    void streamContent(@Param("id") Long id, @Param("offset") long offset, @Param("length") Long length,
+                       ResultHandler<InputStream> handler);
+
+    /**
+     * 按ID顺序查询afterId之后内容仍在数据库中的图片元数据
+     */
+    List<ImageFile> selectDatabaseStoredAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 记录图片内容已迁移到本地存储，并清空数据库中的二进制数据
+     */
+    int moveToContentStore(@Param("id") Long id, @Param("contentHash") String contentHash, @Param("size") long size);
+}
@@ -0,0 +1,26 @@
+package com.chatapp.mapper;
+
+import com.chatapp.entity.ImageThumbnail;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface ImageThumbnailMapper {
+
+    /**
+     * 插入缩略图记录（同一图片同一规格已存在时忽略）
+     */
+    int insertIgnore(ImageThumbnail thumbnail);
+
+    /**
+     * 把同内容的其他图片已生成的缩略图复制给该图片（缩略图内容按哈希共用，只复制记录）
+     */
+    int copyFromSameContent(@Param("imageId") Long imageId, @Param("contentHash") String contentHash);
+
+    /**
+     * 查询图片已生成的全部缩略图，按规格升序
+     */
+    List<ImageThumbnail> selectByImageId(@Param("imageId") Long imageId);
+}
@@ -4,7 +4,9 @@ import com.chatapp.entity.Message;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 消息数据访问接口
@@ -38,8 +40,7 @@ public interface MessageMapper {
     /**
      * 查询私聊消息历史记录
      */
-    List<Message> findPrivateMessages(@Param("userId1") Long userId1, 
-                                     @Param("userId2") Long userId2,
+    List<Message> findPrivateMessages(@Param("conversationKey") String conversationKey,
                                      @Param("limit") Integer limit,
                                      @Param("offset") Integer offset);
 
@@ -51,26 +52,77 @@ public interface MessageMapper {
                                   @Param("offset") Integer offset);
 
     /**
-     * 查询用户未读消息数量
+     * 游标分页查询私聊消息历史（ID小于beforeId，按ID降序；beforeId为空时从最新消息开始）
      */
-    int countUnreadMessages(Long userId);
+    List<Message> findPrivateMessagesBefore(@Param("conversationKey") String conversationKey,
+                                           @Param("beforeId") Long beforeId,
+                                           @Param("limit") Integer limit);
 
     /**
-     * 查询与特定用户的未读消息数量
+     * 游标分页查询群聊消息历史（ID小于beforeId，按ID降序；beforeId为空时从最新消息开始）
      */
-    int countUnreadMessagesFromUser(@Param("userId") Long userId, 
-                                   @Param("fromUserId") Long fromUserId);
+    List<Message> findGroupMessagesBefore(@Param("groupId") Long groupId,
+                                         @Param("beforeId") Long beforeId,
+                                         @Param("limit") Integer limit);
 
     /**
-     * 标记消息为已读
+     * 按ID批量查询消息
      */
-    int markAsRead(Long messageId);
+    List<Message> findByIds(@Param("ids") List<Long> ids);
 
     /**
-     * 标记与特定用户的所有消息为已读
+     * 查询用户私聊收件箱中ID在 (afterId, upToId] 范围内的消息（按ID升序，用于上线同步）
      */
-    int markAllAsRead(@Param("userId") Long userId, 
-                     @Param("fromUserId") Long fromUserId);
+    List<Message> findPrivateInboxAfter(@Param("userId") Long userId,
+                                       @Param("afterId") Long afterId,
+                                       @Param("upToId") Long upToId,
+                                       @Param("limit") Integer limit);
+
+    /**
+     * 查询群聊中ID在 (afterId, upToId] 范围内且非本人发送的消息（按ID升序，用于上线同步）
+     * 
+     * @param since 可选，仅返回该时间之后发送的消息（无游标时以入群时间为起点）
+     */
+    List<Message> findGroupMessagesAfter(@Param("groupId") Long groupId,
+                                        @Param("userId") Long userId,
+                                        @Param("afterId") Long afterId,
+                                        @Param("upToId") Long upToId,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("limit") Integer limit);
+
+    /**
+     * 查询当前最大消息ID（离线同步开始时作为实时投递与同步的分界）
+     */
+    Long findMaxId();
+
+    /**
+     * 查询用户私聊收件箱中ID在 (afterId, upToId] 范围内的消息ID（按ID升序，用于校验实时投递是否连续）
+     */
+    List<Long> findPrivateInboxIdsBetween(@Param("userId") Long userId,
+                                          @Param("afterId") Long afterId,
+                                          @Param("upToId") Long upToId);
+
+    /**
+     * 查询群聊中ID在 (afterId, upToId] 范围内且非本人发送的消息ID（按ID升序，用于校验实时投递是否连续）
+     */
+    List<Long> findGroupMessageIdsBetween(@Param("groupId") Long groupId,
+                                          @Param("userId") Long userId,
+                                          @Param("afterId") Long afterId,
+                                          @Param("upToId") Long upToId);
+
+    /**
+     * 按发送方分组统计用户的私聊未读消息数量（按已读水位计算，用于未读计数缓存未命中时重建）
+     * 
+     * @return 每行包含 from_user_id 和 unread_count
+     */
+    List<Map<String, Object>> countUnreadMessagesGroupBySender(Long userId);
+
+    /**
+     * 统计私聊会话中发给用户、id大于已读水位的未读消息数量
+     */
+    int countUnreadAfter(@Param("conversationKey") String conversationKey,
+                         @Param("userId") Long userId,
+                         @Param("afterId") Long afterId);
 
     /**
      * 撤回消息
@@ -84,15 +136,14 @@ public interface MessageMapper {
                                  @Param("limit") Integer limit);
 
     /**
-     * 查询用户与特定联系人的最后一条消息
+     * 查询私聊会话（conversationKey）或群聊（isGroup时contactId为群组ID）的最后一条消息
      */
-    Message findLastMessage(@Param("userId") Long userId, 
+    Message findLastMessage(@Param("conversationKey") String conversationKey,
                           @Param("contactId") Long contactId,
                           @Param("isGroup") Boolean isGroup);
 
     /**
-     * 删除与特定用户的所有聊天记录（软删除）
+     * 删除私聊会话的所有聊天记录（软删除）
      */
-    int deleteAllMessagesWithUser(@Param("userId") Long userId, 
-                                 @Param("friendId") Long friendId);
+    int deleteAllMessagesWithUser(@Param("conversationKey") String conversationKey);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.chatapp.mapper;
+
+import com.chatapp.entity.MessageReadWatermark;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 已读水位数据访问接口
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Mapper
+public interface MessageReadWatermarkMapper {
+
+    /**
+     * 查询用户在会话中的已读水位，没有记录时返回null
+     */
+    Long findLastReadMessageId(@Param("userId") Long userId,
+                               @Param("conversationType") Integer conversationType,
+                               @Param("targetId") Long targetId);
+
+    /**
+     * 批量写入水位（已存在则只向前推进，不会回退）
+     */
+    int upsertWatermarks(@Param("watermarks") List<MessageReadWatermark> watermarks);
+}
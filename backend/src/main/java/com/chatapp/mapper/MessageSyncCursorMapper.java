@@ -0,0 +1,27 @@
+package com.chatapp.mapper;
+
+import com.chatapp.entity.MessageSyncCursor;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 消息同步游标数据访问接口
+ * 
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Mapper
+public interface MessageSyncCursorMapper {
+
+    /**
+     * 查询用户的全部同步游标
+     */
+    List<MessageSyncCursor> findByUserId(@Param("userId") Long userId);
+
+    /**
+     * 批量写入游标（已存在则只向前推进，不会回退）
+     */
+    int upsertCursors(@Param("cursors") List<MessageSyncCursor> cursors);
+}
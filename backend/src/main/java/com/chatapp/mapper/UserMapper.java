@@ -1,9 +1,11 @@
 package com.chatapp.mapper;
 
+import com.chatapp.dto.UserSummaryDTO;
 import com.chatapp.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -37,4 +39,24 @@ public interface UserMapper {
     int deleteById(Long id);
     
     List<User> findAll();
+
+    /**
+     * 根据ID列表批量查询用户（调用方负责控制IN列表长度）
+     */
+    List<User> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询用户摘要（不读取头像数据）
+     */
+    Optional<UserSummaryDTO> findSummaryById(Long id);
+
+    /**
+     * 根据用户名查询用户摘要（不读取头像数据）
+     */
+    Optional<UserSummaryDTO> findSummaryByUsername(String username);
+
+    /**
+     * 查询用户头像数据（仅包含 avatar_data、avatar_content_type）
+     */
+    Optional<User> findAvatarById(Long id);
 }
\ No newline at end of file
@@ -47,6 +47,11 @@ public interface UserSessionMapper {
     int updateHeartbeat(@Param("sessionId") String sessionId, 
                        @Param("heartbeatTime") LocalDateTime heartbeatTime);
 
+    /**
+     * 批量更新心跳时间（多行合并为一条UPDATE）
+     */
+    int batchUpdateHeartbeat(@Param("heartbeats") List<UserSession> heartbeats);
+
     /**
      * 设置会话为离线状态
      */
@@ -57,6 +62,11 @@ public interface UserSessionMapper {
      */
     int setAllOfflineByUserId(Long userId);
 
+    /**
+     * 将所有在线会话记录置为离线（启动时清理上次进程遗留的记录）
+     */
+    int setAllOffline();
+
     /**
      * 删除会话记录
      */
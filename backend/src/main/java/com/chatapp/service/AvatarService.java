@@ -0,0 +1,63 @@
+package com.chatapp.service;
+
+import java.util.Map;
+
+/**
+ * 头像服务接口
+ *
+ * 头像URL带内容哈希版本号（?v=），内容变化时URL随之变化，
+ * 带当前版本号的请求可以按 immutable 长期缓存
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public interface AvatarService {
+
+    /**
+     * 头像内容
+     *
+     * @param version 内容哈希（SHA-256前16位十六进制）
+     */
+    record Avatar(byte[] data, String contentType, String version) {
+    }
+
+    /**
+     * 获取用户头像，用户不存在或未上传头像时返回null
+     */
+    Avatar getUserAvatar(Long userId);
+
+    /**
+     * 获取群头像，未上传头像时返回默认群头像
+     */
+    Avatar getGroupAvatar(Long groupId);
+
+    /**
+     * 计算头像内容的版本号
+     */
+    String versionOf(byte[] data);
+
+    /**
+     * 生成带版本号的用户头像URL
+     */
+    String userAvatarUrl(Long userId, byte[] data);
+
+    /**
+     * 生成带版本号的群头像URL
+     */
+    String groupAvatarUrl(Long groupId, byte[] data);
+
+    /**
+     * 用户头像变更后使缓存失效
+     */
+    void invalidateUser(Long userId);
+
+    /**
+     * 群头像变更后使缓存失效
+     */
+    void invalidateGroup(Long groupId);
+
+    /**
+     * 获取头像缓存统计
+     */
+    Map<String, Object> getCacheStats();
+}
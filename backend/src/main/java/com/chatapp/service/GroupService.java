@@ -7,6 +7,7 @@ import com.chatapp.entity.GroupMember;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 群组服务接口
@@ -49,9 +50,9 @@ public interface GroupService {
     List<GroupDTO> searchGroups(String keyword, Integer limit);
 
     /**
-     * 上传群头像
+     * 上传群头像，返回带内容版本号的头像URL，失败时返回null
      */
-    boolean uploadGroupAvatar(Long groupId, Long operatorId, byte[] avatarData, String contentType);
+    String uploadGroupAvatar(Long groupId, Long operatorId, byte[] avatarData, String contentType);
 
     /**
      * 获取群头像
@@ -192,4 +193,9 @@ public interface GroupService {
      * 获取群成员ID列表
      */
     List<Long> getGroupMemberIds(Long groupId);
-}
\ No newline at end of file
+
+    /**
+     * 获取群组缓存统计（群成员名册、用户群组列表）
+     */
+    Map<String, Object> getCacheStats();
+}
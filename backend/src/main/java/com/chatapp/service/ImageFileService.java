@@ -1,9 +1,43 @@
 package com.chatapp.service;
 
 import com.chatapp.entity.ImageFile;
+import com.chatapp.entity.ImageThumbnail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Map;
 
 public interface ImageFileService {
     ImageFile save(String contentType, byte[] data, long size, String originalName);
+
+    /**
+     * 获取图片元数据（不包含二进制数据）
+     */
     ImageFile get(Long id);
+
+    /**
+     * 按原始文件名获取图片元数据（不包含二进制数据）
+     */
     ImageFile findByOriginalName(String name);
-}
\ No newline at end of file
+
+    /**
+     * 将图片从start开始的length个字节分段写出到out，不在内存中组装完整图片
+     */
+    void writeContent(ImageFile image, long start, long length, OutputStream out) throws IOException;
+
+    /**
+     * 获取图片内容对应的本地文件（用于零拷贝发送），内容不在本地文件中时返回null
+     */
+    Path getLocalPath(ImageFile image);
+
+    /**
+     * 获取长边不小于requestedEdge的最小规格缩略图；请求尺寸不小于原图或缩略图尚未生成时返回null（使用原图）
+     */
+    ImageThumbnail getThumbnail(ImageFile image, int requestedEdge);
+
+    /**
+     * 获取随图片消息下发的预览信息：原图尺寸、内联占位图、可用的缩略图规格；图片不存在时返回null
+     */
+    Map<String, Object> getImagePreview(Long imageId);
+}
@@ -0,0 +1,44 @@
+package com.chatapp.service;
+
+import com.chatapp.entity.ImageFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * 图片内容存储
+ *
+ * 新上传的图片写入 image.storage.type 指定的存储；读取时按图片记录判断内容所在的存储，
+ * 因此切换存储类型后历史图片仍可访问
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public interface ImageStorage {
+
+    /**
+     * 存储类型标识（与 image.storage.type 配置对应）
+     */
+    String getType();
+
+    /**
+     * 保存图片内容，并在image上记录内容位置（数据列或内容哈希）
+     */
+    void store(ImageFile image, byte[] data) throws IOException;
+
+    /**
+     * 判断图片内容是否保存在本存储中
+     */
+    boolean holds(ImageFile image);
+
+    /**
+     * 将图片从start开始的length个字节写出到out
+     */
+    void writeContent(ImageFile image, long start, long length, OutputStream out) throws IOException;
+
+    /**
+     * 获取图片内容对应的本地文件，用于零拷贝发送；内容不在本地文件中时返回null
+     */
+    Path localPath(ImageFile image);
+}
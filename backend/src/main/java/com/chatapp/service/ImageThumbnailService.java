@@ -0,0 +1,47 @@
+package com.chatapp.service;
+
+import com.chatapp.entity.ImageFile;
+import com.chatapp.entity.ImageThumbnail;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 图片缩略图服务接口
+ *
+ * 上传时同步解码出原图尺寸和极小的内联占位图，固定规格的缩略图由后台线程池生成，
+ * 聊天列表渲染缩略图，原图只在查看大图时下载
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public interface ImageThumbnailService {
+
+    /**
+     * 原图内容读取方
+     */
+    @FunctionalInterface
+    interface ContentLoader {
+        byte[] load() throws IOException;
+    }
+
+    /**
+     * 读取原图尺寸并生成内联占位图，写入image的width、height、placeholder（无法解码时保持为空）
+     */
+    void describe(ImageFile image, byte[] data);
+
+    /**
+     * 提交后台缩略图生成任务（同一图片已在生成中时忽略）
+     */
+    void enqueue(ImageFile image, ContentLoader loader);
+
+    /**
+     * 获取图片已生成的缩略图，按规格升序
+     */
+    List<ImageThumbnail> getThumbnails(Long imageId);
+
+    /**
+     * 缩略图规格（长边像素），升序
+     */
+    List<Integer> getSizes();
+}
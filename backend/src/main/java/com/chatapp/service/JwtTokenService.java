@@ -1,20 +1,29 @@
 package com.chatapp.service;
 
 import com.chatapp.entity.User;
-import com.chatapp.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.Base64;
-import java.util.Optional;
-import java.util.UUID;
 
 /**
- * JWT Token Service (Simplified Implementation)
+ * 令牌服务
+ *
+ * 令牌格式为 base64url(userId:签发时间:过期时间:用户名).base64url(HMAC-SHA256签名)，
+ * 用户ID、用户名和过期时间都在令牌内，验证只需一次签名计算，不访问数据库。
  * 
+ * 签名密钥通过 jwt.secret 配置；未配置时每次启动生成随机密钥（重启后已签发的令牌失效），
+ * 配置为曾经公开的默认密钥时拒绝启动
+ *
  * @author ChatApp
  * @since 1.0.0
  */
@@ -23,141 +32,156 @@ public class JwtTokenService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenService.class);
 
-    @Value("${jwt.secret:defaultSecretKeyForJWTTokenGeneration}")
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    // 早期版本内置的默认密钥，已随代码公开
+    private static final String LEGACY_DEFAULT_SECRET = "defaultSecretKeyForJWTTokenGeneration";
+    private static final int RANDOM_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Value("${jwt.secret:}")
     private String jwtSecret;
 
-    @Value("${jwt.expiration:3600}")
+    // 有效期（秒）
+    @Value("${jwt.expiration:86400}")
     private long jwtExpiration;
 
-    @Autowired
-    private UserMapper userMapper;
+    private SecretKeySpec signingKey;
+
+    // Mac实例非线程安全，每个线程复用一个
+    private final ThreadLocal<Mac> macHolder = ThreadLocal.withInitial(this::newMac);
 
     /**
-     * Generate JWT token (simplified version)
+     * 令牌中携带的用户信息
      */
-    public String generateToken(User user) {
-        // Create simple token format: base64(username:UUID:timestamp)
-        String tokenData = user.getUsername() + ":" + UUID.randomUUID() + ":" + System.currentTimeMillis();
-        return Base64.getEncoder().encodeToString(tokenData.getBytes());
+    public record TokenClaims(Long userId, String username, long issuedAt, long expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (LEGACY_DEFAULT_SECRET.equals(jwtSecret)) {
+            throw new IllegalStateException("jwt.secret 不能使用公开的默认密钥，请通过环境变量 JWT_SECRET 配置");
+        }
+        if (jwtSecret == null || jwtSecret.isBlank()) {
+            byte[] randomKey = new byte[RANDOM_SECRET_BYTES];
+            new SecureRandom().nextBytes(randomKey);
+            signingKey = new SecretKeySpec(randomKey, HMAC_ALGORITHM);
+            logger.warn("未配置 jwt.secret，使用本次启动随机生成的签名密钥，重启后已签发的令牌全部失效");
+        } else {
+            signingKey = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        }
+        logger.info("令牌服务初始化完成: expiration={}s", jwtExpiration);
     }
 
     /**
-     * Get username from token
+     * 生成令牌
      */
-    public String getUsernameFromToken(String token) {
-        try {
-            String decoded = new String(Base64.getDecoder().decode(token));
-            return decoded.split(":")[0];
-        } catch (Exception e) {
-            throw new RuntimeException("Invalid token");
-        }
+    public String generateToken(User user) {
+        return generateToken(user.getId(), user.getUsername());
+    }
+
+    private String generateToken(Long userId, String username) {
+        long now = System.currentTimeMillis();
+        String payload = userId + ":" + now + ":" + (now + jwtExpiration * 1000) + ":" + username;
+        String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encodedPayload + "." + ENCODER.encodeToString(sign(encodedPayload));
     }
 
     /**
-     * Get user ID from token
+     * 解析并验证令牌，签名不匹配、格式错误或已过期时返回null
      */
-    public Long getUserIdFromToken(String token) {
+    public TokenClaims parseToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return null;
+        }
+
         try {
-            logger.info("🔍 开始从token获取用户ID...");
-            String username = getUsernameFromToken(token);
-            logger.info("从token解析出的用户名: {}", username);
-            
-            Optional<User> userOpt = userMapper.findByUsername(username);
-            logger.info("数据库查询结果: {}", userOpt.isPresent() ? "找到用户" : "用户不存在");
-            
-            if (userOpt.isPresent()) {
-                Long userId = userOpt.get().getId();
-                logger.info("✅ 成功获取用户ID: {}", userId);
-                return userId;
-            } else {
-                logger.warn("❌ 用户不存在: {}", username);
+            String encodedPayload = token.substring(0, dot);
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(encodedPayload))) {
+                logger.debug("令牌签名不匹配");
+                return null;
+            }
+
+            String payload = new String(DECODER.decode(encodedPayload), StandardCharsets.UTF_8);
+            String[] parts = payload.split(":", 4);
+            if (parts.length != 4 || parts[3].isEmpty()) {
                 return null;
             }
-        } catch (Exception e) {
-            logger.error("❌ 从token获取用户ID时发生异常", e);
+
+            TokenClaims claims = new TokenClaims(Long.parseLong(parts[0]), parts[3],
+                    Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            if (claims.expiresAt() <= System.currentTimeMillis()) {
+                logger.debug("令牌已过期: userId={}", claims.userId());
+                return null;
+            }
+            return claims;
+        } catch (IllegalArgumentException e) {
+            // Base64解码失败或数字格式错误
             return null;
         }
     }
 
     /**
-     * Validate token
+     * 从令牌获取用户名
      */
-    public boolean validateToken(String token) {
-        try {
-            logger.info("🔍 开始验证token...");
-            String decoded = new String(Base64.getDecoder().decode(token));
-            logger.info("解码后的token: {}", decoded);
-            
-            String[] parts = decoded.split(":");
-            logger.info("Token分割结果: {} 部分", parts.length);
-            
-            // 检查格式
-            if (parts.length != 3) {
-                logger.warn("❌ Token格式错误: 期望3部分，实际{}部分", parts.length);
-                return false;
-            }
-            
-            String username = parts[0];
-            String uuid = parts[1];
-            String timestampStr = parts[2];
-            
-            logger.info("Token内容: 用户名={}, UUID={}, 时间戳={}", username, uuid, timestampStr);
-            
-            // 检查各部分是否为空
-            if (username == null || username.isEmpty() || 
-                uuid == null || uuid.isEmpty() || 
-                timestampStr == null || timestampStr.isEmpty()) {
-                logger.warn("❌ Token部分为空");
-                return false;
-            }
-            
-            // 检查时间戳格式
-            try {
-                long timestamp = Long.parseLong(timestampStr);
-                
-                // 检查是否过期（简化处理，假设24小时有效期）
-                long currentTime = System.currentTimeMillis();
-                long maxAge = 24 * 60 * 60 * 1000; // 24小时
-                long age = currentTime - timestamp;
-                
-                logger.info("Token时间检查: 创建时间={}, 当前时间={}, 年龄={}小时", 
-                    new java.util.Date(timestamp), 
-                    new java.util.Date(currentTime), 
-                    age / (1000.0 * 60 * 60));
-                
-                if (age > maxAge) {
-                    logger.warn("❌ Token已过期: 年龄{}小时 > 最大{}小时", 
-                        age / (1000.0 * 60 * 60), maxAge / (1000.0 * 60 * 60));
-                    return false;
-                }
-                
-                logger.info("✅ Token验证成功");
-                return true;
-            } catch (NumberFormatException e) {
-                logger.warn("❌ 时间戳格式错误: {}", e.getMessage());
-                return false;
-            }
-        } catch (Exception e) {
-            logger.error("❌ Token验证过程中发生异常", e);
-            return false;
+    public String getUsernameFromToken(String token) {
+        TokenClaims claims = parseToken(token);
+        if (claims == null) {
+            throw new RuntimeException("Invalid token");
         }
+        return claims.username();
+    }
+
+    /**
+     * 从令牌获取用户ID，令牌无效时返回null
+     */
+    public Long getUserIdFromToken(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims != null ? claims.userId() : null;
+    }
+
+    /**
+     * 验证令牌
+     */
+    public boolean validateToken(String token) {
+        return parseToken(token) != null;
     }
 
     /**
-     * Refresh token
+     * 刷新令牌（原令牌需有效）
      */
     public String refreshToken(String token) {
-        try {
-            String decoded = new String(Base64.getDecoder().decode(token));
-            String[] parts = decoded.split(":");
-            if (parts.length == 3) {
-                String username = parts[0];
-                String newTokenData = username + ":" + UUID.randomUUID() + ":" + System.currentTimeMillis();
-                return Base64.getEncoder().encodeToString(newTokenData.getBytes());
-            }
-            throw new RuntimeException("Invalid token");
-        } catch (Exception e) {
+        TokenClaims claims = parseToken(token);
+        if (claims == null) {
             throw new RuntimeException("Token refresh failed");
         }
+        return generateToken(claims.userId(), claims.username());
+    }
+
+    /**
+     * 获取令牌有效期（秒）
+     */
+    public long getExpirationSeconds() {
+        return jwtExpiration;
+    }
+
+    private byte[] sign(String encodedPayload) {
+        return macHolder.get().doFinal(encodedPayload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化令牌签名失败", e);
+        }
     }
-}
\ No newline at end of file
+}
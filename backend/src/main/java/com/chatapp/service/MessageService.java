@@ -1,5 +1,6 @@
 package com.chatapp.service;
 
+import com.chatapp.dto.ConversationDTO;
 import com.chatapp.entity.Message;
 import java.util.List;
 
@@ -31,6 +32,21 @@ public interface MessageService {
      */
     List<Message> getGroupMessageHistory(Long groupId, Integer limit, Integer offset);
 
+    /**
+     * 获取私聊消息历史（游标分页：返回ID小于beforeMessageId的消息，按ID降序）
+     */
+    List<Message> getPrivateMessageHistoryBefore(Long userId1, Long userId2, Long beforeMessageId, Integer limit);
+
+    /**
+     * 获取群聊消息历史（游标分页：返回ID小于beforeMessageId的消息，按ID降序）
+     */
+    List<Message> getGroupMessageHistoryBefore(Long groupId, Long beforeMessageId, Integer limit);
+
+    /**
+     * 获取用户的会话列表（含最后一条消息和未读数）
+     */
+    List<ConversationDTO> getConversationList(Long userId);
+
     /**
      * 获取未读消息数量
      */
@@ -42,15 +58,21 @@ public interface MessageService {
     int getUnreadMessageCountFromUser(Long userId, Long fromUserId);
 
     /**
-     * 标记消息为已读
+     * 标记消息为已读：将用户在消息所在会话（私聊或群聊）的已读水位推进到该消息，
+     * 该消息及之前的消息均视为已读。用户不是消息的接收方或群成员时返回false
      */
-    boolean markMessageAsRead(Long messageId);
+    boolean markMessageAsRead(Long userId, Long messageId);
 
     /**
-     * 标记与特定用户的所有消息为已读
+     * 标记与特定用户的所有消息为已读（已读水位推进到会话的最后一条消息）
      */
     boolean markAllMessagesAsRead(Long userId, Long fromUserId);
 
+    /**
+     * 标记群聊的所有消息为已读（已读水位推进到群的最后一条消息），不在群内时返回false
+     */
+    boolean markGroupMessagesAsRead(Long userId, Long groupId);
+
     /**
      * 撤回消息
      */
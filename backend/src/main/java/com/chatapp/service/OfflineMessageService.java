@@ -6,23 +6,31 @@ import java.util.List;
 /**
  * 离线消息服务接口
  * 
+ * 离线消息按会话游标同步：每个用户在每个会话中只记录已投递的最大消息ID，
+ * 上线时按 id > 游标 范围读取，不再为每个接收者写推送记录
+ * 
  * @author ChatApp
  * @since 1.0.0
  */
 public interface OfflineMessageService {
 
     /**
-     * 推送消息给用户（在线则直接推送，离线则记录推送记录）
+     * 推送私聊消息给用户（在线则直接推送，离线则等待上线时按游标同步）
      */
     boolean pushMessageToUser(Long userId, Message message);
 
     /**
-     * 获取用户的离线消息
+     * 记录消息已实时投递给用户（只记录在内存中，用户下线时连续的部分才并入游标）
+     */
+    void recordDelivered(Long userId, Message message);
+
+    /**
+     * 获取用户的离线消息（各会话游标之后的消息）
      */
     List<Message> getOfflineMessages(Long userId);
 
     /**
-     * 标记离线消息为已推送
+     * 标记离线消息为已推送（只接受最近一次获取离线消息时返回的消息，每个会话的游标推进到连续确认的前缀）
      */
     boolean markOfflineMessagesAsPushed(Long userId, List<Long> messageIds);
 
@@ -32,12 +40,12 @@ public interface OfflineMessageService {
     void cleanupPushedRecords();
 
     /**
-     * 重试失败的消息推送
+     * 用户上线时处理离线消息
      */
-    void retryFailedPushes();
+    void handleUserOnline(Long userId);
 
     /**
-     * 用户上线时处理离线消息
+     * 用户下线时持久化内存中的投递游标
      */
-    void handleUserOnline(Long userId);
-}
\ No newline at end of file
+    void handleUserOffline(Long userId);
+}
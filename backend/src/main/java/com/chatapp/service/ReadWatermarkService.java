@@ -0,0 +1,44 @@
+package com.chatapp.service;
+
+import java.util.Map;
+
+/**
+ * 已读水位服务接口
+ *
+ * 每个用户在每个会话中保存一个"已读到的最大消息ID"，替代逐条更新消息状态。
+ * 已读回执先在内存中合并（同一会话只保留最大值），由定时任务批量写入数据库；
+ * 读取水位时合并尚未写入的值，因此写入延迟不影响查询结果
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public interface ReadWatermarkService {
+
+    /**
+     * 将用户在会话中的已读水位推进到messageId（只前进不后退）
+     *
+     * @param conversationType 会话类型，取值同 Conversation.TYPE_PRIVATE / TYPE_GROUP
+     * @param targetId 私聊为对方用户ID，群聊为群组ID
+     */
+    void advance(Long userId, int conversationType, Long targetId, Long messageId);
+
+    /**
+     * 获取用户在会话中的已读水位（包含尚未写入数据库的值），没有记录时返回0
+     */
+    long getLastReadMessageId(Long userId, int conversationType, Long targetId);
+
+    /**
+     * 立即写入指定用户尚未写入的水位（按数据库中的水位统计前调用）
+     */
+    void flushUser(Long userId);
+
+    /**
+     * 批量写入内存中累积的水位（由定时任务调用）
+     */
+    void flush();
+
+    /**
+     * 获取水位合并写入统计
+     */
+    Map<String, Object> getStats();
+}
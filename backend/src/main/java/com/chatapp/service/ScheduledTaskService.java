@@ -21,19 +21,6 @@ public class ScheduledTaskService {
     @Autowired
     private OfflineMessageService offlineMessageService;
 
-    /**
-     * 每5分钟重试失败的消息推送
-     */
-    @Scheduled(fixedRate = 300000) // 5分钟
-    public void retryFailedMessagePushes() {
-        try {
-            logger.debug("开始重试失败的消息推送");
-            offlineMessageService.retryFailedPushes();
-        } catch (Exception e) {
-            logger.error("重试失败的消息推送异常", e);
-        }
-    }
-
     /**
      * 每天凌晨2点清理已推送的离线消息记录
      */
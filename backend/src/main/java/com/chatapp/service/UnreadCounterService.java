@@ -0,0 +1,44 @@
+package com.chatapp.service;
+
+/**
+ * 未读消息计数服务接口
+ *
+ * 按用户维护私聊未读总数及每个发送方的未读数，常驻内存，
+ * 缓存未命中时按已读水位用一次分组统计重建；计数变化时以 unread_update 事件推送给用户的在线会话
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public interface UnreadCounterService {
+
+    /**
+     * 获取用户的私聊未读消息总数
+     */
+    int getTotalUnread(Long userId);
+
+    /**
+     * 获取用户来自指定发送方的未读消息数
+     */
+    int getUnreadFrom(Long userId, Long fromUserId);
+
+    /**
+     * 用户收到一条新的私聊消息：在写入消息的事务中调用，提交后计入未读，回滚时不计入；
+     * 不在事务中调用时视为消息已提交
+     */
+    void onMessageReceived(Long userId, Long fromUserId);
+
+    /**
+     * 按已读水位重新统计用户与指定发送方会话的未读数（已读水位推进、未读消息被撤回等）
+     */
+    void refreshConversation(Long userId, Long fromUserId);
+
+    /**
+     * 用户与指定发送方的会话未读数清零（全部已读、删除聊天记录等）
+     */
+    void onConversationCleared(Long userId, Long fromUserId);
+
+    /**
+     * 移除用户的计数缓存（用户下线后调用，下次访问时重建）
+     */
+    void evict(Long userId);
+}
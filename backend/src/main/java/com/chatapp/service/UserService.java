@@ -1,8 +1,11 @@
 package com.chatapp.service;
 
+import com.chatapp.dto.UserSummaryDTO;
 import com.chatapp.entity.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -78,4 +81,29 @@ public interface UserService {
     String uploadAvatar(String username, MultipartFile file);
 
     List<User> findAllUsers();
+
+    /**
+     * 根据ID列表批量查找用户，返回 用户ID -> 用户（不存在的ID不包含在结果中）
+     */
+    Map<Long, User> findByIds(Collection<Long> ids);
+
+    /**
+     * 根据ID查找用户摘要（不读取头像数据）
+     */
+    Optional<UserSummaryDTO> findSummaryById(Long id);
+
+    /**
+     * 根据用户名查找用户摘要（不读取头像数据）
+     */
+    Optional<UserSummaryDTO> findSummaryByUsername(String username);
+
+    /**
+     * 获取用户摘要缓存统计
+     */
+    Map<String, Object> getPrincipalCacheStats();
+
+    /**
+     * 查找用户头像数据
+     */
+    Optional<User> findAvatarById(Long userId);
 }
\ No newline at end of file
@@ -3,8 +3,11 @@ package com.chatapp.service;
 import com.chatapp.entity.UserSession;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * WebSocket会话管理服务接口
@@ -35,10 +38,20 @@ public interface WebSocketSessionService {
     WebSocketSession getSessionById(String sessionId);
 
     /**
-     * 更新用户心跳
+     * 更新用户心跳（仅记录在内存中，由flushHeartbeats批量写入数据库）
      */
     void updateHeartbeat(String sessionId);
 
+    /**
+     * 将内存中累积的心跳批量写入数据库
+     */
+    void flushHeartbeats();
+
+    /**
+     * 获取心跳写入统计（接收次数、写入行数、合并比例）
+     */
+    Map<String, Object> getHeartbeatStats();
+
     /**
      * 检查用户是否在线
      */
@@ -64,11 +77,30 @@ public interface WebSocketSessionService {
      */
     void sendToUser(Long userId, Object message);
 
+    /**
+     * 广播消息给指定用户的所有会话，每个会话成功写出后回调onDelivered
+     */
+    void sendToUser(Long userId, Object message, Runnable onDelivered);
+
     /**
      * 广播消息给多个用户
      */
     void sendToUsers(List<Long> userIds, Object message);
 
+    /**
+     * 群组广播：消息每种编码（JSON/CBOR）只序列化一次，由所有在线会话共享
+     * 
+     * @return 没有任何在线会话的用户ID列表（调用方据此走离线推送）
+     */
+    List<Long> broadcastToUsers(Collection<Long> userIds, Object message);
+
+    /**
+     * 群组广播，每个会话成功写出后以该会话的用户ID回调onDelivered
+     * 
+     * @return 没有任何在线会话的用户ID列表
+     */
+    List<Long> broadcastToUsers(Collection<Long> userIds, Object message, Consumer<Long> onDelivered);
+
     /**
      * 广播消息给所有在线用户
      */
@@ -78,4 +110,14 @@ public interface WebSocketSessionService {
      * 发送消息给指定会话
      */
     void sendToSession(String sessionId, Object message);
+
+    /**
+     * 获取各会话出站队列的统计信息（队列深度、丢弃数、写入耗时），按队列深度降序
+     */
+    List<Map<String, Object>> getOutboundQueueStats();
+
+    /**
+     * 获取 permessage-deflate 压缩统计（协商情况、抽样压缩率和耗时）
+     */
+    Map<String, Object> getCompressionStats();
 }
\ No newline at end of file
@@ -60,7 +60,7 @@ public class AuthServiceImpl implements AuthService {
         String token = jwtTokenService.generateToken(user);
 
         // 创建响应
-        return new LoginResponse(token, 3600L, user);
+        return new LoginResponse(token, jwtTokenService.getExpirationSeconds(), user);
     }
 
     @Override
@@ -119,8 +119,11 @@ public class AuthServiceImpl implements AuthService {
 
     @Override
     public User getUserFromToken(String token) {
-        String username = jwtTokenService.getUsernameFromToken(token);
-        return userService.findByUsername(username)
+        Long userId = jwtTokenService.getUserIdFromToken(token);
+        if (userId == null) {
+            throw new RuntimeException("Invalid token");
+        }
+        return userService.findById(userId)
                 .orElseThrow(() -> new RuntimeException("用户不存在"));
     }
 
@@ -132,13 +135,14 @@ public class AuthServiceImpl implements AuthService {
                 throw new RuntimeException("无效的令牌或令牌已过期");
             }
 
-            // 获取用户信息
-            String username = jwtTokenService.getUsernameFromToken(oldToken);
-            User user = userService.findByUsername(username)
-                    .orElseThrow(() -> new RuntimeException("用户不存在: " + username));
+            // 确认用户仍然存在（走用户摘要缓存）
+            Long userId = jwtTokenService.getUserIdFromToken(oldToken);
+            if (userService.findSummaryById(userId).isEmpty()) {
+                throw new RuntimeException("用户不存在: " + userId);
+            }
             
             // 生成新token
-            return generateToken(user);
+            return jwtTokenService.refreshToken(oldToken);
         } catch (Exception e) {
             // 记录详细错误信息
             System.err.println("RefreshToken失败: " + e.getMessage());
@@ -0,0 +1,199 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.ChatGroup;
+import com.chatapp.entity.User;
+import com.chatapp.mapper.ChatGroupMapper;
+import com.chatapp.mapper.UserMapper;
+import com.chatapp.service.AvatarService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 头像服务实现类
+ *
+ * 编码后的头像字节按 "user:ID" / "group:ID" 缓存在按字节数限额的LRU中，上传头像时失效；
+ * 默认群头像在启动时绘制一次，之后直接复用
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Service
+public class AvatarServiceImpl implements AvatarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarServiceImpl.class);
+
+    private static final String DEFAULT_CONTENT_TYPE = "image/jpeg";
+    private static final int VERSION_LENGTH = 16;
+    private static final int DEFAULT_AVATAR_EDGE = 100;
+
+    // 缓存中表示"用户没有头像"的空值，避免重复查询数据库
+    private static final Avatar MISSING = new Avatar(new byte[0], DEFAULT_CONTENT_TYPE, "");
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ChatGroupMapper groupMapper;
+
+    @Value("${avatar.cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${avatar.cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private LruLoadingCache<String, Avatar> avatarCache;
+
+    private Avatar defaultGroupAvatar;
+
+    @PostConstruct
+    public void init() {
+        avatarCache = new LruLoadingCache<>(maxEntries, maxBytes, this::load, avatar -> avatar.data().length);
+        defaultGroupAvatar = renderDefaultGroupAvatar();
+        logger.info("头像缓存初始化完成: maxEntries={}, maxBytes={}, defaultGroupAvatar={} bytes",
+                maxEntries, maxBytes, defaultGroupAvatar.data().length);
+    }
+
+    @Override
+    public Avatar getUserAvatar(Long userId) {
+        Avatar avatar = avatarCache.get("user:" + userId);
+        return avatar == MISSING ? null : avatar;
+    }
+
+    @Override
+    public Avatar getGroupAvatar(Long groupId) {
+        Avatar avatar = avatarCache.get("group:" + groupId);
+        return avatar == MISSING ? defaultGroupAvatar : avatar;
+    }
+
+    @Override
+    public String versionOf(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest).substring(0, VERSION_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    @Override
+    public String userAvatarUrl(Long userId, byte[] data) {
+        return "/api/user/avatar/" + userId + "?v=" + versionOf(data);
+    }
+
+    @Override
+    public String groupAvatarUrl(Long groupId, byte[] data) {
+        return "/api/group/" + groupId + "/avatar?v=" + versionOf(data);
+    }
+
+    @Override
+    public void invalidateUser(Long userId) {
+        invalidateNowAndAfterCompletion("user:" + userId);
+    }
+
+    @Override
+    public void invalidateGroup(Long groupId) {
+        invalidateNowAndAfterCompletion("group:" + groupId);
+    }
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(avatarCache.snapshot());
+        stats.put("defaultGroupAvatarBytes", defaultGroupAvatar.data().length);
+        return stats;
+    }
+
+    /**
+     * 从数据库加载头像；没有头像时缓存空值
+     */
+    private Avatar load(String key) {
+        int colon = key.indexOf(':');
+        Long id = Long.valueOf(key.substring(colon + 1));
+        byte[] data;
+        String contentType;
+        if (key.startsWith("user:")) {
+            User user = userMapper.findAvatarById(id).orElse(null);
+            data = user != null ? user.getAvatarData() : null;
+            contentType = user != null ? user.getAvatarContentType() : null;
+        } else {
+            ChatGroup group = groupMapper.selectGroupAvatarById(id);
+            data = group != null ? group.getGroupAvatarData() : null;
+            contentType = group != null ? group.getGroupAvatarContentType() : null;
+        }
+
+        if (data == null || data.length == 0) {
+            return MISSING;
+        }
+        return new Avatar(data, contentType != null ? contentType : DEFAULT_CONTENT_TYPE, versionOf(data));
+    }
+
+    /**
+     * 立即失效一次，事务结束（提交或回滚）后再失效一次，防止事务期间加载的旧头像留在缓存中
+     */
+    private void invalidateNowAndAfterCompletion(String key) {
+        avatarCache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    avatarCache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * 绘制默认群头像（蓝色圆形背景 + 白色"群"字）
+     */
+    private Avatar renderDefaultGroupAvatar() {
+        try {
+            int width = DEFAULT_AVATAR_EDGE;
+            int height = DEFAULT_AVATAR_EDGE;
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = image.createGraphics();
+            try {
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                // Element Plus 主题蓝色
+                g2d.setColor(new Color(64, 158, 255));
+                g2d.fillOval(0, 0, width, height);
+
+                g2d.setColor(Color.WHITE);
+                g2d.setFont(new Font("Microsoft YaHei", Font.BOLD, 40));
+                FontMetrics metrics = g2d.getFontMetrics();
+                int x = (width - metrics.stringWidth("群")) / 2;
+                int y = ((height - metrics.getHeight()) / 2) + metrics.getAscent();
+                g2d.drawString("群", x, y);
+            } finally {
+                g2d.dispose();
+            }
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ImageIO.write(image, "JPEG", baos);
+            byte[] data = baos.toByteArray();
+            return new Avatar(data, DEFAULT_CONTENT_TYPE, versionOf(data));
+        } catch (Exception e) {
+            logger.warn("生成默认群头像失败: {}", e.toString());
+            return new Avatar(new byte[0], DEFAULT_CONTENT_TYPE, versionOf(new byte[0]));
+        }
+    }
+}
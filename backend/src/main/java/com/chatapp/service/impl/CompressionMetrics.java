@@ -0,0 +1,139 @@
+package com.chatapp.service.impl;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * permessage-deflate 压缩统计
+ *
+ * 压缩由容器在写出时完成，压缩后大小不对应用暴露。这里对协商了压缩的会话每 sampleEvery 帧
+ * 抽样一帧，用相同算法（raw deflate，默认级别）单独压缩一次，估算压缩率和CPU耗时。
+ * 未抽中的帧只计数，不取负载（文本帧取字节数需要重新做一次UTF-8编码）；
+ * 抽中的帧按大小分为小帧和大帧两档统计，用于判断小帧压缩是否值得。
+ * 抽样按每帧独立压缩估算，启用上下文接管时实际压缩率会更好
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+final class CompressionMetrics {
+
+    private final int sampleEvery;
+    private final int smallMessageBytes;
+
+    private final AtomicLong frames = new AtomicLong();
+    private final Bucket small = new Bucket();
+    private final Bucket large = new Bucket();
+    private final AtomicLong negotiatedSessions = new AtomicLong();
+    private final AtomicLong plainSessions = new AtomicLong();
+
+    // Deflater非线程安全，每个写线程复用一个
+    private final ThreadLocal<Deflater> deflaters =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    /**
+     * 单档抽样统计
+     */
+    private static final class Bucket {
+        private final AtomicLong sampled = new AtomicLong();
+        private final AtomicLong sampledBytesIn = new AtomicLong();
+        private final AtomicLong sampledBytesOut = new AtomicLong();
+        private final AtomicLong sampledNanos = new AtomicLong();
+
+        Map<String, Object> snapshot() {
+            long in = sampledBytesIn.get();
+            long out = sampledBytesOut.get();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("sampled", sampled.get());
+            stats.put("sampledBytes", in);
+            // 压缩后大小 / 原大小，越小越好
+            stats.put("compressionRatio", in > 0 ? (double) out / in : 0.0);
+            stats.put("nanosPerKb", in > 0 ? sampledNanos.get() * 1024 / in : 0);
+            return stats;
+        }
+    }
+
+    CompressionMetrics(int sampleEvery, int smallMessageBytes) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.smallMessageBytes = smallMessageBytes;
+    }
+
+    /**
+     * 记录新会话是否协商了压缩
+     */
+    void onSessionOpened(boolean negotiated) {
+        (negotiated ? negotiatedSessions : plainSessions).incrementAndGet();
+    }
+
+    /**
+     * 记录协商了压缩的会话即将写出的一帧（在写线程上调用）
+     */
+    void record(WebSocketMessage<?> message) {
+        if (frames.incrementAndGet() % sampleEvery != 0) {
+            return;
+        }
+
+        byte[] payload = payloadBytes(message);
+        if (payload == null || payload.length == 0) {
+            return;
+        }
+        Bucket bucket = payload.length < smallMessageBytes ? small : large;
+        long start = System.nanoTime();
+        long compressed = deflatedSize(payload);
+        long elapsed = System.nanoTime() - start;
+
+        bucket.sampled.incrementAndGet();
+        bucket.sampledBytesIn.addAndGet(payload.length);
+        bucket.sampledBytesOut.addAndGet(compressed);
+        bucket.sampledNanos.addAndGet(elapsed);
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("negotiatedSessions", negotiatedSessions.get());
+        stats.put("plainSessions", plainSessions.get());
+        stats.put("frames", frames.get());
+        stats.put("sampleEvery", sampleEvery);
+        stats.put("smallMessageBytes", smallMessageBytes);
+        stats.put("small", small.snapshot());
+        stats.put("large", large.snapshot());
+        return stats;
+    }
+
+    private byte[] payloadBytes(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            return text.asBytes();
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer buffer = binary.getPayload().duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+        return null;
+    }
+
+    /**
+     * 与 permessage-deflate 一致：每条消息以 SYNC_FLUSH 结束，去掉末尾4字节的空块标记
+     */
+    private long deflatedSize(byte[] payload) {
+        Deflater deflater = deflaters.get();
+        byte[] buffer = scratch.get();
+        deflater.reset();
+        deflater.setInput(payload);
+        long total = 0;
+        int written;
+        do {
+            written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            total += written;
+        } while (written == buffer.length);
+        return Math.max(0, total - 4);
+    }
+}
@@ -0,0 +1,114 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.ImageFile;
+import com.chatapp.mapper.ImageFileMapper;
+import com.chatapp.service.ImageStorage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * 数据库图片存储：内容保存在 images.data 列中
+ *
+ * 只用于读取迁移前上传的历史图片（image.storage.type 默认为 local），
+ * 历史图片可用 image.storage.migrate-on-startup 迁移到本地存储后回收数据列。
+ * 每次下载只执行一次查询，按缓冲区大小从结果集的内容流写出；
+ * MySQL 驱动会把单行的列值整体读入内存，单个请求仍占用与请求范围相当的堆内存，这也是该存储只作兼容保留的原因
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Component
+public class DatabaseImageStorage implements ImageStorage {
+
+    public static final String TYPE = "database";
+
+    @Autowired
+    private ImageFileMapper imageFileMapper;
+
+    // 从内容流复制到响应时使用的缓冲区大小
+    @Value("${image.stream.chunk-size:262144}")
+    private int chunkSize;
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void store(ImageFile image, byte[] data) {
+        image.setData(data);
+        image.setContentHash(null);
+    }
+
+    @Override
+    public boolean holds(ImageFile image) {
+        return image.getContentHash() == null;
+    }
+
+    @Override
+    public void writeContent(ImageFile image, long start, long length, OutputStream out) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+        long written = stream(image, start, length, out);
+        if (written < length) {
+            // 实际数据比记录的大小短，已写出的响应长度与Content-Length不一致，只能中断连接
+            throw new EOFException("图片数据不完整: id=" + image.getId() + ", offset=" + (start + written));
+        }
+        out.flush();
+    }
+
+    /**
+     * 将图片的全部内容写出到out（不依赖记录的大小），返回实际字节数
+     */
+    public long copyTo(ImageFile image, OutputStream out) throws IOException {
+        return stream(image, 0, null, out);
+    }
+
+    /**
+     * 用一次查询把从start开始的最多length个字节（length为null时到末尾）写出到out，返回实际字节数
+     */
+    private long stream(ImageFile image, long start, Long length, OutputStream out) throws IOException {
+        long[] written = new long[1];
+        // MyBatis 会把回调中抛出的异常包装成持久层异常，写出失败的原因单独记录后原样抛出
+        IOException[] writeFailure = new IOException[1];
+        try {
+            imageFileMapper.streamContent(image.getId(), start, length, context -> {
+                try (InputStream in = context.getResultObject()) {
+                    if (in == null) {
+                        return;
+                    }
+                    byte[] buffer = new byte[(int) Math.max(1, Math.min(chunkSize,
+                            length != null ? length : Integer.MAX_VALUE))];
+                    int read;
+                    while ((read = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, read);
+                        written[0] += read;
+                    }
+                } catch (IOException e) {
+                    writeFailure[0] = e;
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (writeFailure[0] != null) {
+                throw writeFailure[0];
+            }
+            throw e;
+        }
+        return written[0];
+    }
+
+    @Override
+    public Path localPath(ImageFile image) {
+        return null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.chatapp.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * WebSocket出站帧编码
+ *
+ * /ws/chat 支持两种子协议：chat.json（默认，文本帧，格式与原先一致）和 chat.cbor（二进制帧）。
+ * CBOR编码省略值为null的字段，LocalDateTime 编码为epoch毫秒，字段结构与JSON相同。
+ * 未协商子协议的客户端按JSON处理
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+public final class FrameCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameCodec.class);
+
+    public static final String JSON_PROTOCOL = "chat.json";
+    public static final String CBOR_PROTOCOL = "chat.cbor";
+
+    private static final ObjectMapper JSON_MAPPER = createJsonMapper();
+    private static final ObjectMapper CBOR_MAPPER = createCborMapper();
+
+    private FrameCodec() {
+    }
+
+    /**
+     * 创建JSON编码用的ObjectMapper，支持Java 8日期时间类型
+     */
+    private static ObjectMapper createJsonMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        return mapper;
+    }
+
+    /**
+     * 创建CBOR编码用的ObjectMapper：省略null字段（包括Map中的null值），时间写为epoch毫秒
+     */
+    private static ObjectMapper createCborMapper() {
+        ObjectMapper mapper = new ObjectMapper(new CBORFactory());
+        mapper.registerModule(new JavaTimeModule());
+        SimpleModule epochMillis = new SimpleModule("epoch-millis");
+        epochMillis.addSerializer(LocalDateTime.class, new JsonSerializer<LocalDateTime>() {
+            @Override
+            public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider serializers)
+                    throws IOException {
+                gen.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            }
+        });
+        mapper.registerModule(epochMillis);
+        mapper.setDefaultPropertyInclusion(
+                JsonInclude.Value.construct(JsonInclude.Include.NON_NULL, JsonInclude.Include.NON_NULL));
+        return mapper;
+    }
+
+    /**
+     * 会话是否协商了二进制子协议
+     */
+    static boolean isBinary(WebSocketSession session) {
+        return CBOR_PROTOCOL.equals(session.getAcceptedProtocol());
+    }
+
+    /**
+     * 一条待发送的出站消息，每种编码最多序列化一次，供广播时多个会话共享
+     *
+     * 只在发送方线程内使用，不需要同步
+     */
+    static final class Encoded {
+
+        private final Object message;
+
+        private TextMessage text;
+        private byte[] binary;
+        private boolean textFailed;
+        private boolean binaryFailed;
+
+        Encoded(Object message) {
+            this.message = message;
+        }
+
+        /**
+         * 按会话协商的子协议取得编码后的帧，编码失败返回null
+         */
+        WebSocketMessage<?> forSession(WebSocketSession session) {
+            return isBinary(session) ? binary() : text();
+        }
+
+        private TextMessage text() {
+            if (text == null && !textFailed) {
+                try {
+                    text = new TextMessage(JSON_MAPPER.writeValueAsString(message));
+                } catch (Exception e) {
+                    textFailed = true;
+                    logger.error("转换消息为JSON失败", e);
+                }
+            }
+            return text;
+        }
+
+        private BinaryMessage binary() {
+            if (binary == null && !binaryFailed) {
+                try {
+                    binary = CBOR_MAPPER.writeValueAsBytes(message);
+                } catch (Exception e) {
+                    binaryFailed = true;
+                    logger.error("转换消息为CBOR失败", e);
+                }
+            }
+            // BinaryMessage的ByteBuffer在发送时会被读取，每个会话使用独立的包装
+            return binary != null ? new BinaryMessage(binary) : null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.chatapp.service.impl;
 
+import com.chatapp.dto.UserSummaryDTO;
 import com.chatapp.entity.Friendship;
 import com.chatapp.entity.User;
 import com.chatapp.entity.GroupMember;
@@ -43,10 +44,10 @@ public class FriendshipServiceImpl implements FriendshipService {
     @Transactional
     public Friendship sendFriendRequest(Long userId, Long friendId, String message) {
         // 检查用户是否存在
-        if (!userMapper.findById(userId).isPresent()) {
+        if (!userMapper.findSummaryById(userId).isPresent()) {
             throw new RuntimeException("发送者用户不存在");
         }
-        if (!userMapper.findById(friendId).isPresent()) {
+        if (!userMapper.findSummaryById(friendId).isPresent()) {
             throw new RuntimeException("接收者用户不存在");
         }
 
@@ -94,11 +95,9 @@ public class FriendshipServiceImpl implements FriendshipService {
         Friendship friendship = new Friendship(userId, friendId, message);
         
         // 设置默认备注为好友的昵称
-        Optional<User> friendOpt = userMapper.findById(friendId);
-        if (friendOpt.isPresent()) {
-            User friend = friendOpt.get();
-            friendship.setNickname(friend.getNickname() != null ? friend.getNickname() : friend.getUsername());
-        }
+        userMapper.findSummaryById(friendId)
+                .map(UserSummaryDTO::getDisplayName)
+                .ifPresent(friendship::setNickname);
         
         friendshipMapper.insert(friendship);
         return friendship;
@@ -151,11 +150,9 @@ public class FriendshipServiceImpl implements FriendshipService {
                 reverseFriendship.setCreateTime(LocalDateTime.now());
                 
                 // 设置备注为申请好友的昵称
-                Optional<User> requesterOpt = userMapper.findById(friendship.getUserId());
-                if (requesterOpt.isPresent()) {
-                    User requester = requesterOpt.get();
-                    reverseFriendship.setNickname(requester.getNickname() != null ? requester.getNickname() : requester.getUsername());
-                }
+                userMapper.findSummaryById(friendship.getUserId())
+                        .map(UserSummaryDTO::getDisplayName)
+                        .ifPresent(reverseFriendship::setNickname);
 
                 // 插入反向好友关系记录
                 friendshipMapper.insert(reverseFriendship);
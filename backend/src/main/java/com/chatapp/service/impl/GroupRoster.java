@@ -0,0 +1,103 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.ChatGroup;
+import com.chatapp.entity.GroupMember;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 群成员名册快照（不可变）
+ *
+ * 有效成员按用户ID升序存放在基本类型数组中，成员判断为一次二分查找，
+ * 角色和禁言到期时间与用户ID按下标对齐
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+final class GroupRoster {
+
+    /**
+     * 群组不存在或已解散时的空名册
+     */
+    static final GroupRoster EMPTY = new GroupRoster(new long[0], new byte[0], new long[0], false);
+
+    private static final int ROLE_MEMBER = 1;
+
+    private final long[] userIds;
+    private final byte[] roles;
+    // 禁言到期时间（epoch毫秒），0表示未禁言
+    private final long[] muteUntil;
+    private final boolean muteAll;
+
+    private GroupRoster(long[] userIds, byte[] roles, long[] muteUntil, boolean muteAll) {
+        this.userIds = userIds;
+        this.roles = roles;
+        this.muteUntil = muteUntil;
+        this.muteAll = muteAll;
+    }
+
+    /**
+     * 由群组和有效成员记录构建名册
+     */
+    static GroupRoster of(ChatGroup group, List<GroupMember> activeMembers) {
+        List<GroupMember> members = new ArrayList<>(activeMembers);
+        members.sort(Comparator.comparing(GroupMember::getUserId));
+
+        int size = members.size();
+        long[] userIds = new long[size];
+        byte[] roles = new byte[size];
+        long[] muteUntil = new long[size];
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < size; i++) {
+            GroupMember member = members.get(i);
+            userIds[i] = member.getUserId();
+            roles[i] = member.getMemberRole() != null ? member.getMemberRole().byteValue() : ROLE_MEMBER;
+            LocalDateTime until = member.getMuteUntil();
+            muteUntil[i] = until != null ? until.atZone(zone).toInstant().toEpochMilli() : 0L;
+        }
+        return new GroupRoster(userIds, roles, muteUntil, group.getMuteAll() != null && group.getMuteAll() == 1);
+    }
+
+    boolean contains(long userId) {
+        return Arrays.binarySearch(userIds, userId) >= 0;
+    }
+
+    /**
+     * 获取成员角色，非成员返回null
+     */
+    Integer roleOf(long userId) {
+        int index = Arrays.binarySearch(userIds, userId);
+        return index >= 0 ? (int) roles[index] : null;
+    }
+
+    /**
+     * 判断成员当前是否被禁言（个人禁言未到期，或全员禁言且为普通成员）
+     */
+    boolean isMuted(long userId, long nowMillis) {
+        int index = Arrays.binarySearch(userIds, userId);
+        if (index < 0) {
+            return false;
+        }
+        if (muteUntil[index] > nowMillis) {
+            return true;
+        }
+        return muteAll && roles[index] == ROLE_MEMBER;
+    }
+
+    List<Long> memberIds() {
+        List<Long> ids = new ArrayList<>(userIds.length);
+        for (long userId : userIds) {
+            ids.add(userId);
+        }
+        return ids;
+    }
+
+    int size() {
+        return userIds.length;
+    }
+}
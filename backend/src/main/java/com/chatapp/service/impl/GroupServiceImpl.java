@@ -1,30 +1,46 @@
 package com.chatapp.service.impl;
 
 import com.chatapp.dto.GroupDTO;
+import com.chatapp.dto.UserSummaryDTO;
 import com.chatapp.entity.ChatGroup;
 import com.chatapp.entity.GroupAnnouncement;
 import com.chatapp.entity.GroupMember;
 import com.chatapp.entity.User;
 import com.chatapp.mapper.ChatGroupMapper;
+import com.chatapp.mapper.ConversationMapper;
 import com.chatapp.mapper.GroupAnnouncementMapper;
 import com.chatapp.mapper.GroupMemberMapper;
 import com.chatapp.mapper.UserMapper;
+import com.chatapp.service.AvatarService;
 import com.chatapp.service.GroupService;
+import com.chatapp.service.UserService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * 群组服务实现类
  * 
+ * 群聊发送路径上的成员、角色和禁言判断由内存中的群成员名册提供；
+ * 用户的群组列表按用户缓存。成员、角色、禁言、群信息和公告变更时
+ * 使对应的名册和受影响成员的群组列表失效，下次访问时重新加载
+ * 
  * @author ChatApp
  * @since 1.0.0
  */
@@ -42,9 +58,38 @@ public class GroupServiceImpl implements GroupService {
     @Autowired
     private GroupAnnouncementMapper announcementMapper;
 
+    @Autowired
+    private ConversationMapper conversationMapper;
+
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AvatarService avatarService;
+
+    @Value("${group.roster-cache.max-groups:2000}")
+    private int rosterCacheMaxGroups;
+
+    @Value("${group.user-groups-cache.max-users:5000}")
+    private int userGroupsCacheMaxUsers;
+
+    // 群成员名册 - groupId -> 名册
+    private LruLoadingCache<Long, GroupRoster> rosterCache;
+
+    // 用户的群组列表 - userId -> 群组列表（不可修改）
+    private LruLoadingCache<Long, List<GroupDTO>> userGroupsCache;
+
+    @PostConstruct
+    public void initCaches() {
+        rosterCache = new LruLoadingCache<>(rosterCacheMaxGroups, this::loadRoster, GroupRoster::size);
+        userGroupsCache = new LruLoadingCache<>(userGroupsCacheMaxUsers, this::loadUserGroups, List::size);
+        logger.info("群组缓存初始化完成: rosterMaxGroups={}, userGroupsMaxUsers={}",
+                rosterCacheMaxGroups, userGroupsCacheMaxUsers);
+    }
+
     // ==================== 群组管理 ====================
 
     @Override
@@ -88,6 +133,14 @@ public class GroupServiceImpl implements GroupService {
                 }
             }
 
+            List<Long> joinedUserIds = new ArrayList<>();
+            joinedUserIds.add(ownerId);
+            if (memberIds != null) {
+                joinedUserIds.addAll(memberIds);
+            }
+            conversationMapper.upsertGroupConversations(group.getId(), joinedUserIds);
+            invalidateUserGroups(joinedUserIds);
+
             // 返回群组信息
             return getGroupById(group.getId(), ownerId);
         } catch (Exception e) {
@@ -104,33 +157,18 @@ public class GroupServiceImpl implements GroupService {
                 return null;
             }
 
-            GroupDTO groupDTO = new GroupDTO(group);
-            
             // 获取群主信息
-            User owner = userMapper.findById(group.getOwnerId()).orElse(null);
-            if (owner != null) {
-                groupDTO.setOwnerName(owner.getNickname() != null ? owner.getNickname() : owner.getUsername());
-            }
+            String ownerName = userService.findSummaryById(group.getOwnerId())
+                    .map(UserSummaryDTO::getDisplayName)
+                    .orElse(null);
 
             // 获取当前用户在群内的信息
-            if (userId != null) {
-                GroupMember myMember = memberMapper.selectMemberByGroupAndUser(groupId, userId);
-                if (myMember != null) {
-                    groupDTO.setMyRole(myMember.getMemberRole());
-                    groupDTO.setMyNickname(myMember.getMemberNickname());
-                    groupDTO.setMyRemark(myMember.getRemark());
-                    groupDTO.setMyJoinTime(myMember.getJoinTime());
-                    groupDTO.setMyMuteUntil(myMember.getMuteUntil());
-                }
-            }
+            GroupMember myMember = userId != null ? memberMapper.selectMemberByGroupAndUser(groupId, userId) : null;
 
             // 获取最新公告
             GroupAnnouncement latestAnnouncement = announcementMapper.selectLatestAnnouncementByGroupId(groupId);
-            if (latestAnnouncement != null) {
-                groupDTO.setLatestAnnouncement(latestAnnouncement.getContent());
-            }
 
-            return groupDTO;
+            return assembleGroupDTO(group, ownerName, myMember, latestAnnouncement);
         } catch (Exception e) {
             logger.error("获取群组信息失败", e);
             return null;
@@ -140,17 +178,7 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public List<GroupDTO> getUserGroups(Long userId) {
         try {
-            List<ChatGroup> groups = groupMapper.selectGroupsByUserId(userId);
-            List<GroupDTO> groupDTOs = new ArrayList<>();
-
-            for (ChatGroup group : groups) {
-                GroupDTO groupDTO = getGroupById(group.getId(), userId);
-                if (groupDTO != null) {
-                    groupDTOs.add(groupDTO);
-                }
-            }
-
-            return groupDTOs;
+            return userGroupsCache.get(userId);
         } catch (Exception e) {
             logger.error("获取用户群组列表失败", e);
             return new ArrayList<>();
@@ -175,7 +203,11 @@ public class GroupServiceImpl implements GroupService {
             group.setGroupDescription(groupDescription);
             group.setUpdateTime(LocalDateTime.now());
 
-            return groupMapper.updateGroup(group) > 0;
+            boolean updated = groupMapper.updateGroup(group) > 0;
+            if (updated) {
+                invalidateGroupLists(groupId, null);
+            }
+            return updated;
         } catch (Exception e) {
             logger.error("更新群组信息失败", e);
             return false;
@@ -199,7 +231,11 @@ public class GroupServiceImpl implements GroupService {
             if (!members.isEmpty()) {
                 List<Long> memberIds = members.stream().map(GroupMember::getId).collect(Collectors.toList());
                 memberMapper.removeMembers(groupId, memberIds);
+                conversationMapper.deleteGroupConversations(groupId,
+                        members.stream().map(GroupMember::getUserId).collect(Collectors.toList()));
             }
+            invalidateGroupLists(groupId, members.stream().map(GroupMember::getUserId).collect(Collectors.toList()));
+            invalidateRoster(groupId);
 
             return result > 0;
         } catch (Exception e) {
@@ -218,10 +254,8 @@ public class GroupServiceImpl implements GroupService {
                 GroupDTO groupDTO = new GroupDTO(group);
                 
                 // 获取群主信息
-                User owner = userMapper.findById(group.getOwnerId()).orElse(null);
-                if (owner != null) {
-                    groupDTO.setOwnerName(owner.getNickname() != null ? owner.getNickname() : owner.getUsername());
-                }
+                userService.findSummaryById(group.getOwnerId())
+                        .ifPresent(owner -> groupDTO.setOwnerName(owner.getDisplayName()));
                 
                 groupDTOs.add(groupDTO);
             }
@@ -235,17 +269,24 @@ public class GroupServiceImpl implements GroupService {
 
     @Override
     @Transactional
-    public boolean uploadGroupAvatar(Long groupId, Long operatorId, byte[] avatarData, String contentType) {
+    public String uploadGroupAvatar(Long groupId, Long operatorId, byte[] avatarData, String contentType) {
         try {
             // 检查权限（群主或管理员）
             if (!isAdminOrOwner(groupId, operatorId)) {
                 throw new RuntimeException("无权限修改群头像");
             }
 
-            return groupMapper.updateGroupAvatar(groupId, avatarData, contentType) > 0;
+            // group_avatar 保存带内容版本号的访问URL，群组列表等返回的头像地址随内容变化
+            String avatarUrl = avatarService.groupAvatarUrl(groupId, avatarData);
+            if (groupMapper.updateGroupAvatar(groupId, avatarUrl, avatarData, contentType) == 0) {
+                return null;
+            }
+            avatarService.invalidateGroup(groupId);
+            invalidateGroupLists(groupId, List.of());
+            return avatarUrl;
         } catch (Exception e) {
             logger.error("上传群头像失败", e);
-            return false;
+            return null;
         }
     }
 
@@ -277,6 +318,7 @@ public class GroupServiceImpl implements GroupService {
             }
 
             List<GroupMember> newMembers = new ArrayList<>();
+            List<Long> joinedUserIds = new ArrayList<>();
             int addedCount = 0;
 
             for (Long userId : userIds) {
@@ -297,6 +339,8 @@ public class GroupServiceImpl implements GroupService {
                         existingMember.setJoinTime(LocalDateTime.now());
                         existingMember.setUpdateTime(LocalDateTime.now());
                         memberMapper.updateMember(existingMember);
+                        memberMapper.resetJoinPosition(existingMember.getId());
+                        joinedUserIds.add(userId);
                         addedCount++;
                     } else if (existingMember == null) {
                         // 创建新的成员记录
@@ -304,6 +348,7 @@ public class GroupServiceImpl implements GroupService {
                         member.setInviteUserId(inviterId);
                         member.setStatus(1);
                         newMembers.add(member);
+                        joinedUserIds.add(userId);
                         addedCount++;
                     }
                 }
@@ -315,6 +360,11 @@ public class GroupServiceImpl implements GroupService {
                 int newMemberCount = group.getMemberCount() + addedCount;
                 groupMapper.updateMemberCount(groupId, newMemberCount);
             }
+            if (addedCount > 0) {
+                conversationMapper.upsertGroupConversations(groupId, joinedUserIds);
+                invalidateGroupLists(groupId, userIds);
+                invalidateRoster(groupId);
+            }
 
             return addedCount > 0;
         } catch (Exception e) {
@@ -333,6 +383,7 @@ public class GroupServiceImpl implements GroupService {
             }
 
             List<Long> validMemberIds = new ArrayList<>();
+            List<Long> removedUserIds = new ArrayList<>();
             for (Long memberId : memberIds) {
                 GroupMember member = memberMapper.selectMemberById(memberId);
                 if (member != null && member.getGroupId().equals(groupId)) {
@@ -344,15 +395,19 @@ public class GroupServiceImpl implements GroupService {
                         continue;
                     }
                     validMemberIds.add(memberId);
+                    removedUserIds.add(member.getUserId());
                 }
             }
 
             if (!validMemberIds.isEmpty()) {
                 memberMapper.removeMembers(groupId, validMemberIds);
+                conversationMapper.deleteGroupConversations(groupId, removedUserIds);
                 
                 // 更新群组成员数量
                 int currentCount = memberMapper.countActiveMembers(groupId);
                 groupMapper.updateMemberCount(groupId, currentCount);
+                invalidateGroupLists(groupId, removedUserIds);
+                invalidateRoster(groupId);
             }
 
             return !validMemberIds.isEmpty();
@@ -377,10 +432,13 @@ public class GroupServiceImpl implements GroupService {
             }
 
             memberMapper.removeMember(member.getId());
+            conversationMapper.deleteGroupConversations(groupId, List.of(userId));
             
             // 更新群组成员数量
             int currentCount = memberMapper.countActiveMembers(groupId);
             groupMapper.updateMemberCount(groupId, currentCount);
+            invalidateGroupLists(groupId, List.of(userId));
+            invalidateRoster(groupId);
 
             return true;
         } catch (Exception e) {
@@ -398,19 +456,26 @@ public class GroupServiceImpl implements GroupService {
             }
 
             List<GroupMember> members = memberMapper.selectActiveMembersByGroupId(groupId);
-            List<GroupDTO.GroupMemberDTO> memberDTOs = new ArrayList<>();
 
+            // 成员和邀请人一次批量查询
+            List<Long> userIds = new ArrayList<>(members.size() * 2);
             for (GroupMember member : members) {
-                User user = userMapper.findById(member.getUserId()).orElse(null);
-                GroupDTO.GroupMemberDTO memberDTO = new GroupDTO.GroupMemberDTO(member, user);
+                userIds.add(member.getUserId());
+                if (member.getInviteUserId() != null) {
+                    userIds.add(member.getInviteUserId());
+                }
+            }
+            Map<Long, User> users = userService.findByIds(userIds);
+
+            List<GroupDTO.GroupMemberDTO> memberDTOs = new ArrayList<>(members.size());
+            for (GroupMember member : members) {
+                GroupDTO.GroupMemberDTO memberDTO = new GroupDTO.GroupMemberDTO(member, users.get(member.getUserId()));
                 
                 // 设置邀请人信息
-                if (member.getInviteUserId() != null) {
-                    User inviteUser = userMapper.findById(member.getInviteUserId()).orElse(null);
-                    if (inviteUser != null) {
-                        memberDTO.setInviteUserName(inviteUser.getNickname() != null ? 
-                            inviteUser.getNickname() : inviteUser.getUsername());
-                    }
+                User inviteUser = member.getInviteUserId() != null ? users.get(member.getInviteUserId()) : null;
+                if (inviteUser != null) {
+                    memberDTO.setInviteUserName(inviteUser.getNickname() != null ? 
+                        inviteUser.getNickname() : inviteUser.getUsername());
                 }
                 
                 memberDTOs.add(memberDTO);
@@ -442,7 +507,12 @@ public class GroupServiceImpl implements GroupService {
                 throw new RuntimeException("不能修改群主角色");
             }
 
-            return memberMapper.updateMemberRole(memberId, newRole) > 0;
+            boolean updated = memberMapper.updateMemberRole(memberId, newRole) > 0;
+            if (updated) {
+                invalidateRoster(groupId);
+                invalidateUserGroups(List.of(member.getUserId()));
+            }
+            return updated;
         } catch (Exception e) {
             logger.error("更新成员角色失败", e);
             return false;
@@ -458,7 +528,11 @@ public class GroupServiceImpl implements GroupService {
                 throw new RuntimeException("用户不是群成员");
             }
 
-            return memberMapper.updateMemberNickname(member.getId(), nickname) > 0;
+            boolean updated = memberMapper.updateMemberNickname(member.getId(), nickname) > 0;
+            if (updated) {
+                invalidateUserGroups(List.of(userId));
+            }
+            return updated;
         } catch (Exception e) {
             logger.error("更新群内昵称失败", e);
             return false;
@@ -469,7 +543,11 @@ public class GroupServiceImpl implements GroupService {
     @Transactional
     public boolean updateGroupRemark(Long groupId, Long userId, String remark) {
         try {
-            return memberMapper.updateGroupRemark(groupId, userId, remark) > 0;
+            boolean updated = memberMapper.updateGroupRemark(groupId, userId, remark) > 0;
+            if (updated) {
+                invalidateUserGroups(List.of(userId));
+            }
+            return updated;
         } catch (Exception e) {
             logger.error("更新群备注失败", e);
             return false;
@@ -488,6 +566,7 @@ public class GroupServiceImpl implements GroupService {
             }
 
             List<Long> validMemberIds = new ArrayList<>();
+            List<Long> mutedUserIds = new ArrayList<>();
             for (Long memberId : memberIds) {
                 GroupMember member = memberMapper.selectMemberById(memberId);
                 if (member != null && member.getGroupId().equals(groupId)) {
@@ -499,11 +578,14 @@ public class GroupServiceImpl implements GroupService {
                         continue;
                     }
                     validMemberIds.add(memberId);
+                    mutedUserIds.add(member.getUserId());
                 }
             }
 
             if (!validMemberIds.isEmpty()) {
                 memberMapper.muteMembers(validMemberIds, muteUntil);
+                invalidateRoster(groupId);
+                invalidateUserGroups(mutedUserIds);
             }
 
             return !validMemberIds.isEmpty();
@@ -523,15 +605,19 @@ public class GroupServiceImpl implements GroupService {
             }
 
             List<Long> validMemberIds = new ArrayList<>();
+            List<Long> unmutedUserIds = new ArrayList<>();
             for (Long memberId : memberIds) {
                 GroupMember member = memberMapper.selectMemberById(memberId);
                 if (member != null && member.getGroupId().equals(groupId)) {
                     validMemberIds.add(memberId);
+                    unmutedUserIds.add(member.getUserId());
                 }
             }
 
             if (!validMemberIds.isEmpty()) {
                 memberMapper.unmuteMembers(validMemberIds);
+                invalidateRoster(groupId);
+                invalidateUserGroups(unmutedUserIds);
             }
 
             return !validMemberIds.isEmpty();
@@ -558,7 +644,12 @@ public class GroupServiceImpl implements GroupService {
             group.setMuteAll(mute ? 1 : 0);
             group.setUpdateTime(LocalDateTime.now());
 
-            return groupMapper.updateGroup(group) > 0;
+            boolean updated = groupMapper.updateGroup(group) > 0;
+            if (updated) {
+                invalidateGroupLists(groupId, null);
+                invalidateRoster(groupId);
+            }
+            return updated;
         } catch (Exception e) {
             logger.error("设置全员禁言失败", e);
             return false;
@@ -574,12 +665,12 @@ public class GroupServiceImpl implements GroupService {
             }
 
             List<GroupMember> mutedMembers = memberMapper.selectMutedMembers(groupId);
-            List<GroupDTO.GroupMemberDTO> memberDTOs = new ArrayList<>();
+            Map<Long, User> users = userService.findByIds(
+                    mutedMembers.stream().map(GroupMember::getUserId).collect(Collectors.toList()));
 
+            List<GroupDTO.GroupMemberDTO> memberDTOs = new ArrayList<>(mutedMembers.size());
             for (GroupMember member : mutedMembers) {
-                User user = userMapper.findById(member.getUserId()).orElse(null);
-                GroupDTO.GroupMemberDTO memberDTO = new GroupDTO.GroupMemberDTO(member, user);
-                memberDTOs.add(memberDTO);
+                memberDTOs.add(new GroupDTO.GroupMemberDTO(member, users.get(member.getUserId())));
             }
 
             return memberDTOs;
@@ -602,6 +693,9 @@ public class GroupServiceImpl implements GroupService {
 
             GroupAnnouncement announcement = new GroupAnnouncement(groupId, publisherId, title, content);
             int result = announcementMapper.insertAnnouncement(announcement);
+            if (result > 0) {
+                invalidateGroupLists(groupId, null);
+            }
             
             return result > 0 ? announcement : null;
         } catch (Exception e) {
@@ -649,7 +743,11 @@ public class GroupServiceImpl implements GroupService {
             announcement.setContent(content);
             announcement.setUpdateTime(LocalDateTime.now());
 
-            return announcementMapper.updateAnnouncement(announcement) > 0;
+            boolean updated = announcementMapper.updateAnnouncement(announcement) > 0;
+            if (updated) {
+                invalidateGroupLists(announcement.getGroupId(), null);
+            }
+            return updated;
         } catch (Exception e) {
             logger.error("更新群公告失败", e);
             return false;
@@ -693,7 +791,11 @@ public class GroupServiceImpl implements GroupService {
                 throw new RuntimeException("无权限撤回此公告");
             }
 
-            return announcementMapper.recallAnnouncement(announcementId) > 0;
+            boolean recalled = announcementMapper.recallAnnouncement(announcementId) > 0;
+            if (recalled) {
+                invalidateGroupLists(announcement.getGroupId(), null);
+            }
+            return recalled;
         } catch (Exception e) {
             logger.error("撤回群公告失败", e);
             return false;
@@ -705,7 +807,7 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public boolean isMember(Long groupId, Long userId) {
         try {
-            return memberMapper.isMember(groupId, userId);
+            return userId != null && rosterCache.get(groupId).contains(userId);
         } catch (Exception e) {
             logger.error("检查群成员身份失败", e);
             return false;
@@ -715,7 +817,8 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public boolean isAdminOrOwner(Long groupId, Long userId) {
         try {
-            return memberMapper.isAdminOrOwner(groupId, userId);
+            Integer role = userId != null ? rosterCache.get(groupId).roleOf(userId) : null;
+            return role != null && (role == 2 || role == 3);
         } catch (Exception e) {
             logger.error("检查管理员身份失败", e);
             return false;
@@ -736,19 +839,8 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public boolean isMuted(Long groupId, Long userId) {
         try {
-            GroupMember member = memberMapper.selectMemberByGroupAndUser(groupId, userId);
-            if (member == null) {
-                return false;
-            }
-
-            // 检查个人禁言
-            if (member.getMuteUntil() != null && member.getMuteUntil().isAfter(LocalDateTime.now())) {
-                return true;
-            }
-
-            // 检查全员禁言
-            ChatGroup group = groupMapper.selectGroupById(groupId);
-            return group != null && group.getMuteAll() == 1 && member.getMemberRole() == 1; // 普通成员受全员禁言影响
+            // 个人禁言未到期，或全员禁言下的普通成员
+            return userId != null && rosterCache.get(groupId).isMuted(userId, System.currentTimeMillis());
         } catch (Exception e) {
             logger.error("检查禁言状态失败", e);
             return false;
@@ -758,8 +850,7 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public Integer getUserRole(Long groupId, Long userId) {
         try {
-            GroupMember member = memberMapper.selectMemberByGroupAndUser(groupId, userId);
-            return member != null ? member.getMemberRole() : null;
+            return userId != null ? rosterCache.get(groupId).roleOf(userId) : null;
         } catch (Exception e) {
             logger.error("获取用户群内角色失败", e);
             return null;
@@ -769,8 +860,8 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public boolean isGroupMember(Long groupId, Long userId) {
         try {
-            GroupMember member = memberMapper.selectMemberByGroupAndUser(groupId, userId);
-            return member != null && member.getStatus() == 1; // 1表示正常状态
+            // 名册只包含正常状态的成员
+            return isMember(groupId, userId);
         } catch (Exception e) {
             logger.error("检查群成员状态失败", e);
             return false;
@@ -780,23 +871,7 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public boolean isMemberMuted(Long groupId, Long userId) {
         try {
-            GroupMember member = memberMapper.selectMemberByGroupAndUser(groupId, userId);
-            if (member == null) {
-                return false;
-            }
-            
-            // 检查是否被禁言
-            if (member.getIsMuted() == null || !member.getIsMuted()) {
-                return false;
-            }
-            
-            // 检查禁言是否过期
-            if (member.getMuteUntil() != null) {
-                return member.getMuteUntil().isAfter(LocalDateTime.now());
-            }
-            
-            // 永久禁言
-            return true;
+            return isMuted(groupId, userId);
         } catch (Exception e) {
             logger.error("检查成员禁言状态失败", e);
             return false;
@@ -806,10 +881,7 @@ public class GroupServiceImpl implements GroupService {
     @Override
     public List<Long> getGroupMemberIds(Long groupId) {
         try {
-            List<GroupMember> members = memberMapper.selectActiveMembersByGroupId(groupId);
-            return members.stream()
-                    .map(GroupMember::getUserId)
-                    .collect(Collectors.toList());
+            return rosterCache.get(groupId).memberIds();
         } catch (Exception e) {
             logger.error("获取群成员ID列表失败", e);
             return new ArrayList<>();
@@ -842,10 +914,130 @@ public class GroupServiceImpl implements GroupService {
             
             // 插入新公告
             int result = announcementMapper.insertAnnouncement(groupAnnouncement);
+            if (result > 0) {
+                invalidateGroupLists(groupId, null);
+            }
             return result > 0;
         } catch (Exception e) {
             logger.error("更新群公告失败: {}", e.getMessage(), e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("roster", rosterCache.snapshot());
+        stats.put("userGroups", userGroupsCache.snapshot());
+        return stats;
+    }
+
+    /**
+     * 组装群组信息
+     */
+    private GroupDTO assembleGroupDTO(ChatGroup group, String ownerName, GroupMember myMember,
+                                      GroupAnnouncement latestAnnouncement) {
+        GroupDTO groupDTO = new GroupDTO(group);
+        groupDTO.setOwnerName(ownerName);
+        if (myMember != null) {
+            groupDTO.setMyRole(myMember.getMemberRole());
+            groupDTO.setMyNickname(myMember.getMemberNickname());
+            groupDTO.setMyRemark(myMember.getRemark());
+            groupDTO.setMyJoinTime(myMember.getJoinTime());
+            groupDTO.setMyMuteUntil(myMember.getMuteUntil());
+        }
+        if (latestAnnouncement != null) {
+            groupDTO.setLatestAnnouncement(latestAnnouncement.getContent());
+        }
+        return groupDTO;
+    }
+
+    /**
+     * 从数据库加载用户的群组列表：群组、我的成员信息、群主、最新公告各一次查询，与群组数量无关
+     */
+    private List<GroupDTO> loadUserGroups(Long userId) {
+        List<ChatGroup> groups = groupMapper.selectGroupsByUserId(userId);
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> groupIds = groups.stream().map(ChatGroup::getId).collect(Collectors.toList());
+
+        Map<Long, GroupMember> myMembers = new HashMap<>();
+        for (GroupMember member : memberMapper.selectMembersByUserId(userId)) {
+            myMembers.putIfAbsent(member.getGroupId(), member);
+        }
+
+        Map<Long, User> owners = userService.findByIds(
+                groups.stream().map(ChatGroup::getOwnerId).collect(Collectors.toList()));
+
+        // 同一发布时间有多条公告时取ID最大的一条
+        Map<Long, GroupAnnouncement> latestAnnouncements = new HashMap<>();
+        for (GroupAnnouncement announcement : announcementMapper.selectLatestAnnouncementsByGroupIds(groupIds)) {
+            latestAnnouncements.merge(announcement.getGroupId(), announcement,
+                    (a, b) -> a.getId() >= b.getId() ? a : b);
+        }
+
+        List<GroupDTO> groupDTOs = new ArrayList<>(groups.size());
+        for (ChatGroup group : groups) {
+            User owner = owners.get(group.getOwnerId());
+            String ownerName = owner != null ? (owner.getNickname() != null ? owner.getNickname() : owner.getUsername()) : null;
+            groupDTOs.add(assembleGroupDTO(group, ownerName, myMembers.get(group.getId()),
+                    latestAnnouncements.get(group.getId())));
+        }
+        return Collections.unmodifiableList(groupDTOs);
+    }
+
+    /**
+     * 从数据库加载群成员名册（群组不存在时返回空名册）
+     */
+    private GroupRoster loadRoster(Long groupId) {
+        ChatGroup group = groupMapper.selectGroupById(groupId);
+        if (group == null) {
+            return GroupRoster.EMPTY;
+        }
+        return GroupRoster.of(group, memberMapper.selectActiveMembersByGroupId(groupId));
+    }
+
+    /**
+     * 使群成员名册失效
+     */
+    private void invalidateRoster(Long groupId) {
+        invalidateNowAndAfterCompletion(() -> rosterCache.invalidate(groupId));
+    }
+
+    /**
+     * 使指定用户的群组列表失效
+     */
+    private void invalidateUserGroups(Collection<Long> userIds) {
+        List<Long> keys = new ArrayList<>(userIds);
+        invalidateNowAndAfterCompletion(() -> userGroupsCache.invalidateAll(keys));
+    }
+
+    /**
+     * 使群内所有成员（以及extraUserIds，如刚被邀请或移除的用户）的群组列表失效，
+     * 需在名册失效之前调用，以便用当前名册确定受影响的成员
+     */
+    private void invalidateGroupLists(Long groupId, Collection<Long> extraUserIds) {
+        List<Long> userIds = new ArrayList<>(getGroupMemberIds(groupId));
+        if (extraUserIds != null) {
+            userIds.addAll(extraUserIds);
+        }
+        invalidateUserGroups(userIds);
+    }
+
+    /**
+     * 立即失效一次，事务结束（提交或回滚）后再失效一次，防止事务期间加载的数据留在缓存中
+     */
+    private void invalidateNowAndAfterCompletion(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
@@ -1,25 +1,85 @@
 package com.chatapp.service.impl;
 
 import com.chatapp.entity.ImageFile;
+import com.chatapp.entity.ImageThumbnail;
 import com.chatapp.mapper.ImageFileMapper;
 import com.chatapp.service.ImageFileService;
+import com.chatapp.service.ImageStorage;
+import com.chatapp.service.ImageThumbnailService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class ImageFileServiceImpl implements ImageFileService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ImageFileServiceImpl.class);
+
     @Autowired
     private ImageFileMapper imageFileMapper;
 
+    @Autowired
+    private List<ImageStorage> storages;
+
+    @Autowired
+    private ImageThumbnailService thumbnailService;
+
+    // 新上传图片使用的存储类型：local（本地内容寻址存储）或 database（images.data列）
+    @Value("${image.storage.type:local}")
+    private String storageType;
+
+    private ImageStorage uploadStorage;
+
+    @PostConstruct
+    public void initStorage() {
+        uploadStorage = storages.stream()
+                .filter(storage -> storage.getType().equals(storageType))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("未知的图片存储类型: " + storageType));
+        logger.info("图片存储类型: {}", storageType);
+    }
+
     @Override
     public ImageFile save(String contentType, byte[] data, long size, String originalName) {
         ImageFile img = new ImageFile();
         img.setContentType(contentType);
-        img.setData(data);
         img.setSize(size);
         img.setOriginalName(originalName);
+        try {
+            uploadStorage.store(img, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存图片内容失败", e);
+        }
+        ImageFile sameContent = img.getContentHash() != null
+                ? imageFileMapper.findFirstByContentHash(img.getContentHash()) : null;
+        if (sameContent != null && sameContent.getWidth() != null) {
+            // 重复上传的内容沿用已有的尺寸和占位图，缩略图任务会复制已有的缩略图记录
+            img.setWidth(sameContent.getWidth());
+            img.setHeight(sameContent.getHeight());
+            img.setPlaceholder(sameContent.getPlaceholder());
+        } else {
+            thumbnailService.describe(img, data);
+        }
         imageFileMapper.insert(img);
+        img.setData(null);
+
+        if (needsThumbnails(img)) {
+            // 任务执行时再从存储读取原图，排队期间不占用上传内容的内存
+            thumbnailService.enqueue(img, () -> readAll(img));
+        }
         return img;
     }
 
@@ -32,4 +92,90 @@ public class ImageFileServiceImpl implements ImageFileService {
     public ImageFile findByOriginalName(String name) {
         return imageFileMapper.findByOriginalName(name);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void writeContent(ImageFile image, long start, long length, OutputStream out) throws IOException {
+        storageOf(image).writeContent(image, start, length, out);
+    }
+
+    @Override
+    public Path getLocalPath(ImageFile image) {
+        return storageOf(image).localPath(image);
+    }
+
+    @Override
+    public ImageThumbnail getThumbnail(ImageFile image, int requestedEdge) {
+        Integer expectedEdge = null;
+        for (int size : availableThumbnailSizes(image)) {
+            if (size >= requestedEdge) {
+                expectedEdge = size;
+                break;
+            }
+        }
+        if (expectedEdge == null) {
+            // 请求的尺寸不小于原图，直接使用原图
+            return null;
+        }
+
+        for (ImageThumbnail thumbnail : thumbnailService.getThumbnails(image.getId())) {
+            if (thumbnail.getMaxEdge().equals(expectedEdge)) {
+                return thumbnail;
+            }
+        }
+
+        // 缩略图尚未生成或生成任务被丢弃，重新提交，本次返回原图
+        thumbnailService.enqueue(image, () -> readAll(image));
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> getImagePreview(Long imageId) {
+        ImageFile image = imageFileMapper.findById(imageId);
+        if (image == null) {
+            return null;
+        }
+        Map<String, Object> preview = new LinkedHashMap<>();
+        preview.put("imageId", image.getId());
+        preview.put("width", image.getWidth());
+        preview.put("height", image.getHeight());
+        preview.put("placeholder", image.getPlaceholder());
+        preview.put("thumbnailSizes", availableThumbnailSizes(image));
+        return preview;
+    }
+
+    /**
+     * 图片会生成的缩略图规格（小于原图长边的规格）；尺寸未知的历史图片和GIF（保留动画）没有缩略图
+     */
+    private List<Integer> availableThumbnailSizes(ImageFile image) {
+        List<Integer> result = new ArrayList<>();
+        if (image.getWidth() == null || image.getHeight() == null || "image/gif".equals(image.getContentType())) {
+            return result;
+        }
+        int sourceEdge = Math.max(image.getWidth(), image.getHeight());
+        for (int size : thumbnailService.getSizes()) {
+            if (size < sourceEdge) {
+                result.add(size);
+            }
+        }
+        return result;
+    }
+
+    private boolean needsThumbnails(ImageFile image) {
+        return !availableThumbnailSizes(image).isEmpty();
+    }
+
+    private byte[] readAll(ImageFile image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(image.getSize(), Integer.MAX_VALUE - 8));
+        writeContent(image, 0, image.getSize(), out);
+        return out.toByteArray();
+    }
+
+    private ImageStorage storageOf(ImageFile image) {
+        for (ImageStorage storage : storages) {
+            if (storage.holds(image)) {
+                return storage;
+            }
+        }
+        throw new IllegalStateException("找不到图片所在的存储: id=" + image.getId());
+    }
+}
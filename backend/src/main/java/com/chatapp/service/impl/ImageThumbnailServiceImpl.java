@@ -0,0 +1,307 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.ImageFile;
+import com.chatapp.entity.ImageThumbnail;
+import com.chatapp.mapper.ImageThumbnailMapper;
+import com.chatapp.service.ImageThumbnailService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片缩略图服务实现类
+ *
+ * 解码时按目标尺寸做源图抽样，不把大图完整解码到内存；
+ * 超过像素上限的图片（解压炸弹）不生成缩略图和占位图。
+ * 缩略图是派生数据，队列满时直接丢弃任务，缺失的缩略图在被请求时重新提交生成。
+ * 同内容的图片（content_hash 相同）先复制已有的缩略图记录，只为仍缺少的规格解码原图
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Service
+public class ImageThumbnailServiceImpl implements ImageThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageThumbnailServiceImpl.class);
+
+    private static final int PLACEHOLDER_EDGE = 16;
+    private static final float PLACEHOLDER_QUALITY = 0.5f;
+    private static final float THUMBNAIL_QUALITY = 0.82f;
+
+    // 与 images.placeholder 列长度一致
+    private static final int MAX_PLACEHOLDER_LENGTH = 2048;
+
+    // 超过该像素数的图片不解码
+    private static final long MAX_SOURCE_PIXELS = 100_000_000L;
+
+    @Autowired
+    private ImageThumbnailMapper thumbnailMapper;
+
+    @Autowired
+    private LocalFileImageStorage contentStore;
+
+    @Value("${image.thumbnail.sizes:240,480,1080}")
+    private List<Integer> configuredSizes;
+
+    @Value("${image.thumbnail.threads:0}")
+    private int workerThreads;
+
+    @Value("${image.thumbnail.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private List<Integer> sizes;
+
+    private ThreadPoolExecutor workerExecutor;
+
+    // 正在生成缩略图的图片ID
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 解码结果：抽样后的图像及原图尺寸
+     */
+    private record Decoded(BufferedImage image, int width, int height) {
+    }
+
+    @PostConstruct
+    public void initWorkerExecutor() {
+        List<Integer> sorted = new ArrayList<>(configuredSizes);
+        Collections.sort(sorted);
+        sizes = Collections.unmodifiableList(sorted);
+
+        int threads = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        workerExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-thumbnail-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        logger.info("缩略图线程池初始化完成: threads={}, sizes={}", threads, sizes);
+    }
+
+    @PreDestroy
+    public void shutdownWorkerExecutor() {
+        workerExecutor.shutdownNow();
+    }
+
+    @Override
+    public void describe(ImageFile image, byte[] data) {
+        try {
+            Decoded decoded = decode(data, PLACEHOLDER_EDGE);
+            if (decoded == null) {
+                return;
+            }
+            image.setWidth(decoded.width());
+            image.setHeight(decoded.height());
+
+            BufferedImage tiny = resize(decoded.image(), PLACEHOLDER_EDGE, false);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+            writeJpeg(tiny, PLACEHOLDER_QUALITY, out);
+            String placeholder = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(out.toByteArray());
+            if (placeholder.length() <= MAX_PLACEHOLDER_LENGTH) {
+                image.setPlaceholder(placeholder);
+            }
+        } catch (Exception e) {
+            logger.warn("生成图片占位图失败: originalName={}, error={}", image.getOriginalName(), e.toString());
+        }
+    }
+
+    @Override
+    public void enqueue(ImageFile image, ContentLoader loader) {
+        Long imageId = image.getId();
+        if (imageId == null || !inFlight.add(imageId)) {
+            return;
+        }
+        try {
+            workerExecutor.execute(() -> {
+                try {
+                    generate(image, loader);
+                } catch (Exception e) {
+                    logger.warn("生成缩略图失败: imageId={}, error={}", imageId, e.toString());
+                } finally {
+                    inFlight.remove(imageId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(imageId);
+            logger.warn("缩略图队列已满，跳过: imageId={}", imageId);
+        }
+    }
+
+    @Override
+    public List<ImageThumbnail> getThumbnails(Long imageId) {
+        return thumbnailMapper.selectByImageId(imageId);
+    }
+
+    @Override
+    public List<Integer> getSizes() {
+        return sizes;
+    }
+
+    /**
+     * 为图片生成所有小于原图的规格，已有的规格（包括从同内容图片复制的）不再生成
+     */
+    private void generate(ImageFile image, ContentLoader loader) throws IOException {
+        if (image.getContentHash() != null) {
+            thumbnailMapper.copyFromSameContent(image.getId(), image.getContentHash());
+        }
+        Set<Integer> existing = new HashSet<>();
+        for (ImageThumbnail thumbnail : thumbnailMapper.selectByImageId(image.getId())) {
+            existing.add(thumbnail.getMaxEdge());
+        }
+        if (image.getWidth() != null && image.getHeight() != null) {
+            int sourceEdge = Math.max(image.getWidth(), image.getHeight());
+            if (sizes.stream().filter(size -> size < sourceEdge).allMatch(existing::contains)) {
+                logger.debug("缩略图已存在，跳过生成: imageId={}", image.getId());
+                return;
+            }
+        }
+
+        int largest = sizes.get(sizes.size() - 1);
+        Decoded decoded = decode(loader.load(), largest);
+        if (decoded == null) {
+            return;
+        }
+
+        int sourceEdge = Math.max(decoded.width(), decoded.height());
+        boolean alpha = decoded.image().getColorModel().hasAlpha();
+        for (int maxEdge : sizes) {
+            if (maxEdge >= sourceEdge) {
+                // 原图已不大于该规格，客户端直接使用原图
+                break;
+            }
+            if (existing.contains(maxEdge)) {
+                continue;
+            }
+            BufferedImage scaled = resize(decoded.image(), maxEdge, alpha);
+            String contentType = alpha ? "image/png" : "image/jpeg";
+            LocalFileImageStorage.StoredContent stored = contentStore.storeContent(out -> {
+                if (alpha) {
+                    ImageIO.write(scaled, "png", out);
+                } else {
+                    writeJpeg(scaled, THUMBNAIL_QUALITY, out);
+                }
+            });
+
+            ImageThumbnail thumbnail = new ImageThumbnail();
+            thumbnail.setImageId(image.getId());
+            thumbnail.setMaxEdge(maxEdge);
+            thumbnail.setContentType(contentType);
+            thumbnail.setWidth(scaled.getWidth());
+            thumbnail.setHeight(scaled.getHeight());
+            thumbnail.setSize(stored.size());
+            thumbnail.setContentHash(stored.hash());
+            thumbnailMapper.insertIgnore(thumbnail);
+        }
+        logger.debug("缩略图生成完成: imageId={}, source={}x{}", image.getId(), decoded.width(), decoded.height());
+    }
+
+    /**
+     * 解码图片，按目标长边做源图抽样（保留约2倍目标尺寸以保证缩放质量）；无法识别的格式返回null
+     */
+    private Decoded decode(byte[] data, int targetEdge) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > MAX_SOURCE_PIXELS) {
+                    logger.warn("图片尺寸超出解码上限: {}x{}", width, height);
+                    return null;
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, Math.max(width, height) / (targetEdge * 2));
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return new Decoded(image, width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 等比缩放到长边不超过maxEdge
+     */
+    private BufferedImage resize(BufferedImage source, int maxEdge, boolean alpha) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            if (!alpha) {
+                // JPEG不支持透明，透明区域填充白色
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, targetWidth, targetHeight);
+            }
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private void writeJpeg(BufferedImage image, float quality, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOut = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(imageOut);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
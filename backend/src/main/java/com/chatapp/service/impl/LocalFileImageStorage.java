@@ -0,0 +1,192 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.ImageFile;
+import com.chatapp.service.ImageStorage;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 本地内容寻址图片存储
+ *
+ * 文件按内容的SHA-256命名，存放在 根目录/哈希前2位/哈希3-4位/哈希 下；
+ * 相同内容只保存一份，数据库中只保留元数据和内容哈希。
+ * 内容先写入临时文件并落盘，再原子移动到目标位置，读取方不会看到写了一半的文件
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Component
+public class LocalFileImageStorage implements ImageStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileImageStorage.class);
+
+    public static final String TYPE = "local";
+
+    private static final String TEMP_DIR = "tmp";
+
+    @Value("${image.storage.local.root:uploads/images}")
+    private String rootDir;
+
+    private Path root;
+    private Path tempDir;
+
+    /**
+     * 内容写入方
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 已保存内容的哈希和实际字节数
+     */
+    public record StoredContent(String hash, long size, boolean deduplicated) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(rootDir).toAbsolutePath().normalize();
+        tempDir = root.resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        logger.info("本地图片存储目录: {}", root);
+    }
+
+    @Override
+    public String getType() {
+        return TYPE;
+    }
+
+    @Override
+    public void store(ImageFile image, byte[] data) throws IOException {
+        StoredContent stored = storeContent(out -> out.write(data));
+        image.setContentHash(stored.hash());
+        image.setData(null);
+    }
+
+    @Override
+    public boolean holds(ImageFile image) {
+        return image.getContentHash() != null;
+    }
+
+    @Override
+    public void writeContent(ImageFile image, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(image.getContentHash()), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    throw new EOFException("图片文件不完整: hash=" + image.getContentHash() + ", offset=" + position);
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public Path localPath(ImageFile image) {
+        Path path = resolve(image.getContentHash());
+        return Files.isReadable(path) ? path : null;
+    }
+
+    /**
+     * 保存内容并返回其哈希；相同内容已存在时不重复写入
+     */
+    public StoredContent storeContent(ContentWriter writer) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        long size;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                CountingOutputStream counter = new CountingOutputStream(Channels.newOutputStream(channel));
+                DigestOutputStream out = new DigestOutputStream(counter, digest);
+                writer.writeTo(out);
+                out.flush();
+                channel.force(true);
+                size = counter.count;
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(hash);
+            if (Files.exists(target)) {
+                return new StoredContent(hash, size, true);
+            }
+
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // 并发上传了相同内容
+                return new StoredContent(hash, size, true);
+            }
+            return new StoredContent(hash, size, false);
+        } finally {
+            // 内容重复或写入失败时清理临时文件（已移动时不存在）
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(String hash) {
+        if (hash == null || hash.length() < 4 || !hash.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+            throw new IllegalArgumentException("无效的内容哈希: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 统计写入字节数的输出流
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.chatapp.service.impl;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 有界的按需加载缓存
+ *
+ * 按访问顺序淘汰，超出条目数或总权重上限后移除最久未访问的条目，下次访问时重新加载。
+ * 加载在锁外进行；加载期间发生过失效时，加载结果只返回给调用方而不放入缓存，
+ * 避免旧数据覆盖失效。
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class LruLoadingCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Function<K, V> loader;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries;
+
+    // 当前总权重（仅在持有entries锁时修改）
+    private long weight;
+
+    // 失效计数，用于识别加载期间发生的失效
+    private final AtomicLong generation = new AtomicLong();
+
+    // 统计信息
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * @param weigher 统计用的条目权重（如名册成员数），可为null
+     */
+    LruLoadingCache(int maxEntries, Function<K, V> loader, ToLongFunction<V> weigher) {
+        this(maxEntries, Long.MAX_VALUE, loader, weigher);
+    }
+
+    /**
+     * @param maxWeight 总权重上限（如缓存的字节数），需同时提供weigher
+     */
+    LruLoadingCache(int maxEntries, long maxWeight, Function<K, V> loader, ToLongFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.loader = loader;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruLoadingCache.this.maxEntries) {
+                    weight -= weigh(eldest.getValue());
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，未命中时加载（加载结果为null时不缓存）
+     */
+    V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value != null) {
+            hitCount.incrementAndGet();
+            return value;
+        }
+
+        missCount.incrementAndGet();
+        long loadGeneration = generation.get();
+        value = loader.apply(key);
+        if (value != null && weigh(value) <= maxWeight) {
+            synchronized (entries) {
+                if (generation.get() == loadGeneration) {
+                    V previous = entries.put(key, value);
+                    weight += weigh(value) - (previous != null ? weigh(previous) : 0);
+                    trimToWeight();
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 使条目失效，下次访问时重新加载
+     */
+    void invalidate(K key) {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            remove(key);
+        }
+        invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * 批量使条目失效
+     */
+    void invalidateAll(Collection<? extends K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        synchronized (entries) {
+            for (K key : keys) {
+                remove(key);
+            }
+        }
+        invalidationCount.addAndGet(keys.size());
+    }
+
+    /**
+     * 获取缓存统计快照
+     */
+    Map<String, Object> snapshot() {
+        long hits = hitCount.get();
+        long misses = missCount.get();
+        long totalWeight;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+            totalWeight = weight;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", size);
+        stats.put("maxEntries", maxEntries);
+        if (weigher != null) {
+            stats.put("weight", totalWeight);
+            if (maxWeight != Long.MAX_VALUE) {
+                stats.put("maxWeight", maxWeight);
+            }
+        }
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses > 0 ? (double) hits / (hits + misses) : 0.0);
+        stats.put("evictions", evictionCount.get());
+        stats.put("invalidations", invalidationCount.get());
+        return stats;
+    }
+
+    private void remove(K key) {
+        V removed = entries.remove(key);
+        if (removed != null) {
+            weight -= weigh(removed);
+        }
+    }
+
+    /**
+     * 总权重超限时按访问顺序淘汰最久未访问的条目
+     */
+    private void trimToWeight() {
+        Iterator<V> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= weigh(iterator.next());
+            iterator.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private long weigh(V value) {
+        return weigher != null ? weigher.applyAsLong(value) : 0;
+    }
+}
@@ -1,11 +1,20 @@
 package com.chatapp.service.impl;
 
+import com.chatapp.dto.ConversationDTO;
+import com.chatapp.entity.Conversation;
 import com.chatapp.entity.Message;
+import com.chatapp.mapper.ConversationMapper;
 import com.chatapp.mapper.MessageMapper;
+import com.chatapp.service.GroupService;
+import com.chatapp.service.ImageFileService;
 import com.chatapp.service.MessageService;
+import com.chatapp.service.ReadWatermarkService;
+import com.chatapp.service.UnreadCounterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,12 +31,28 @@ public class MessageServiceImpl implements MessageService {
     @Autowired
     private MessageMapper messageMapper;
 
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private ReadWatermarkService readWatermarkService;
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private ImageFileService imageFileService;
+
     @Override
     @Transactional
     public Message sendPrivateMessage(Long fromUserId, Long toUserId, String content, Integer messageType) {
         Message message = new Message();
         message.setFromUserId(fromUserId);
         message.setToUserId(toUserId);
+        message.setConversationKey(Message.privateConversationKey(fromUserId, toUserId));
         int type = messageType != null ? messageType : 1;
 
         // 当为图片消息时，content 必须为 images.id（数字）
@@ -39,6 +64,7 @@ public class MessageServiceImpl implements MessageService {
                 // 允许字符串数字，标准化为字符串
                 Long imageId = Long.valueOf(content.trim());
                 message.setContent(String.valueOf(imageId));
+                message.setImagePreview(imageFileService.getImagePreview(imageId));
             } catch (NumberFormatException e) {
                 // 一律拒绝文件名等非法值，避免错误数据入库
                 throw new IllegalArgumentException("图片消息 content 必须为数字ID，实际为: " + content);
@@ -51,6 +77,13 @@ public class MessageServiceImpl implements MessageService {
         message.setSendTime(LocalDateTime.now());
 
         messageMapper.insert(message);
+
+        // 增量维护双方会话的最后一条消息，未读数由接收方的已读水位推导
+        conversationMapper.upsertPrivateConversation(fromUserId, toUserId, message.getId(), message.getSendTime());
+        conversationMapper.upsertPrivateConversation(toUserId, fromUserId, message.getId(), message.getSendTime());
+
+        // 在事务内登记，提交后计入未读，重建计数时据此判断统计结果是否已包含这条消息
+        unreadCounterService.onMessageReceived(toUserId, fromUserId);
         return message;
     }
 
@@ -63,16 +96,26 @@ public class MessageServiceImpl implements MessageService {
         message.setContent(content);
         message.setMessageType(messageType != null ? messageType : 1);
         message.setSendTime(LocalDateTime.now());
+        if (message.getMessageType() == 2 && content != null) {
+            try {
+                message.setImagePreview(imageFileService.getImagePreview(Long.valueOf(content.trim())));
+            } catch (NumberFormatException e) {
+                // 群聊图片消息内容不是图片ID时不附带预览
+            }
+        }
         
         messageMapper.insert(message);
+
+        // 只更新群组的最后一条消息，成员的群聊会话在查询时关联
+        conversationMapper.updateGroupLastMessage(groupId, message.getId(), message.getSendTime());
         return message;
     }
 
     @Override
     public List<Message> getPrivateMessageHistory(Long userId1, Long userId2, Integer limit, Integer offset) {
-        return messageMapper.findPrivateMessages(userId1, userId2, 
+        return withReadState(messageMapper.findPrivateMessages(Message.privateConversationKey(userId1, userId2), 
                 limit != null ? limit : 50, 
-                offset != null ? offset : 0);
+                offset != null ? offset : 0), userId1, userId2);
     }
 
     @Override
@@ -82,32 +125,94 @@ public class MessageServiceImpl implements MessageService {
                 offset != null ? offset : 0);
     }
 
+    @Override
+    public List<Message> getPrivateMessageHistoryBefore(Long userId1, Long userId2, Long beforeMessageId, Integer limit) {
+        return withReadState(messageMapper.findPrivateMessagesBefore(Message.privateConversationKey(userId1, userId2),
+                beforeMessageId, limit != null ? limit : 50), userId1, userId2);
+    }
+
+    @Override
+    public List<Message> getGroupMessageHistoryBefore(Long groupId, Long beforeMessageId, Integer limit) {
+        return messageMapper.findGroupMessagesBefore(groupId, beforeMessageId,
+                limit != null ? limit : 50);
+    }
+
+    @Override
+    public List<ConversationDTO> getConversationList(Long userId) {
+        // 未读数按数据库中的水位计算，先写入该用户尚未写入的水位
+        readWatermarkService.flushUser(userId);
+        return conversationMapper.findConversationList(userId);
+    }
+
     @Override
     public int getUnreadMessageCount(Long userId) {
-        return messageMapper.countUnreadMessages(userId);
+        return unreadCounterService.getTotalUnread(userId);
     }
 
     @Override
     public int getUnreadMessageCountFromUser(Long userId, Long fromUserId) {
-        return messageMapper.countUnreadMessagesFromUser(userId, fromUserId);
+        return unreadCounterService.getUnreadFrom(userId, fromUserId);
     }
 
     @Override
-    @Transactional
-    public boolean markMessageAsRead(Long messageId) {
-        return messageMapper.markAsRead(messageId) > 0;
+    public boolean markMessageAsRead(Long userId, Long messageId) {
+        Message message = messageMapper.findById(messageId);
+        if (message == null) {
+            return false;
+        }
+
+        // 只推进内存中的水位，由定时任务合并写入，不逐条更新消息
+        if (isPrivate(message)) {
+            if (!message.getToUserId().equals(userId)) {
+                return false;
+            }
+            readWatermarkService.advance(userId, Conversation.TYPE_PRIVATE, message.getFromUserId(), messageId);
+            unreadCounterService.refreshConversation(userId, message.getFromUserId());
+            return true;
+        }
+        if (message.getGroupId() != null && groupService.isMember(message.getGroupId(), userId)) {
+            readWatermarkService.advance(userId, Conversation.TYPE_GROUP, message.getGroupId(), messageId);
+            return true;
+        }
+        return false;
     }
 
     @Override
-    @Transactional
     public boolean markAllMessagesAsRead(Long userId, Long fromUserId) {
-        return messageMapper.markAllAsRead(userId, fromUserId) > 0;
+        Long lastMessageId = conversationMapper.findLastMessageId(userId, fromUserId, Conversation.TYPE_PRIVATE);
+        if (lastMessageId == null) {
+            return false;
+        }
+        readWatermarkService.advance(userId, Conversation.TYPE_PRIVATE, fromUserId, lastMessageId);
+        unreadCounterService.refreshConversation(userId, fromUserId);
+        return true;
+    }
+
+    @Override
+    public boolean markGroupMessagesAsRead(Long userId, Long groupId) {
+        // 群会话行在退群/被移出时软删除，查不到即不在群内
+        Long lastMessageId = conversationMapper.findLastMessageId(userId, groupId, Conversation.TYPE_GROUP);
+        if (lastMessageId == null) {
+            return false;
+        }
+        readWatermarkService.advance(userId, Conversation.TYPE_GROUP, groupId, lastMessageId);
+        return true;
     }
 
     @Override
     @Transactional
     public boolean recallMessage(Long messageId) {
-        return messageMapper.recallMessage(messageId) > 0;
+        Message message = messageMapper.findById(messageId);
+        if (message == null) {
+            return false;
+        }
+
+        boolean recalled = messageMapper.recallMessage(messageId) > 0;
+        // 撤回的未读消息不再计入接收方未读数
+        if (recalled && isPrivate(message)) {
+            afterCommit(() -> unreadCounterService.refreshConversation(message.getToUserId(), message.getFromUserId()));
+        }
+        return recalled;
     }
 
     @Override
@@ -117,12 +222,61 @@ public class MessageServiceImpl implements MessageService {
 
     @Override
     public Message getLastMessage(Long userId, Long contactId, Boolean isGroup) {
-        return messageMapper.findLastMessage(userId, contactId, isGroup != null ? isGroup : false);
+        boolean group = isGroup != null ? isGroup : false;
+        return messageMapper.findLastMessage(group ? null : Message.privateConversationKey(userId, contactId),
+                contactId, group);
     }
 
     @Override
     @Transactional
     public boolean deleteAllMessagesWithUser(Long userId, Long friendId) {
-        return messageMapper.deleteAllMessagesWithUser(userId, friendId) > 0;
+        boolean deleted = messageMapper.deleteAllMessagesWithUser(Message.privateConversationKey(userId, friendId)) > 0;
+        if (deleted) {
+            afterCommit(() -> {
+                unreadCounterService.onConversationCleared(userId, friendId);
+                unreadCounterService.onConversationCleared(friendId, userId);
+            });
+        }
+        return deleted;
+    }
+
+    /**
+     * 按双方的已读水位填充私聊消息的已读状态（消息表中不再逐条更新status）
+     */
+    private List<Message> withReadState(List<Message> messages, Long userId1, Long userId2) {
+        if (messages.isEmpty()) {
+            return messages;
+        }
+        long readByUser1 = readWatermarkService.getLastReadMessageId(userId1, Conversation.TYPE_PRIVATE, userId2);
+        long readByUser2 = readWatermarkService.getLastReadMessageId(userId2, Conversation.TYPE_PRIVATE, userId1);
+        for (Message message : messages) {
+            if (Integer.valueOf(0).equals(message.getStatus())) {
+                long watermark = userId1.equals(message.getToUserId()) ? readByUser1 : readByUser2;
+                if (message.getId() <= watermark) {
+                    message.setStatus(1);
+                }
+            }
+        }
+        return messages;
+    }
+
+    private boolean isPrivate(Message message) {
+        return message.getGroupId() == null && message.getToUserId() != null;
+    }
+
+    /**
+     * 在当前事务提交后执行（内存计数只反映已提交的数据），无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
\ No newline at end of file
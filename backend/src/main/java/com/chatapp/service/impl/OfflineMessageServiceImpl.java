@@ -1,25 +1,63 @@
 package com.chatapp.service.impl;
 
+import com.chatapp.entity.GroupMember;
 import com.chatapp.entity.Message;
+import com.chatapp.entity.MessageSyncCursor;
+import com.chatapp.mapper.GroupMemberMapper;
 import com.chatapp.mapper.MessageMapper;
 import com.chatapp.mapper.MessagePushRecordMapper;
+import com.chatapp.mapper.MessageSyncCursorMapper;
 import com.chatapp.service.OfflineMessageService;
 import com.chatapp.service.WebSocketSessionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 离线消息服务实现类
  * 
+ * 每个用户在每个会话中只保存一个"已投递的最大消息ID"游标（message_sync_cursors），
+ * 消息ID由数据库自增生成，天然在会话内单调递增，可直接作为会话序号使用。
+ * 游标只能连续推进：只有游标之前的消息全部投递过，游标才会前移。
+ * 
+ * 实时投递的消息ID与游标分开记录在内存中。同步开始时取当前最大消息ID作为分界，
+ * 分界及之前的消息由同步负责，之后的消息由实时推送负责；某个会话的同步读完后，
+ * 用户下线时才把该会话分界之后连续实时投递的消息并入游标，中间有缺口时停在缺口之前。
+ * 
+ * 上线同步分页进行，只读取到分界为止（分界之后的新消息由实时推送送达，同步必然结束）。
+ * 每个会话单独缓冲已读取未发送的消息，页由各会话缓冲按消息ID归并而成，缓冲取空的会话才再次查询，
+ * 每条消息只从数据库读取一次。每页消息按批打包成 offline_batch 帧发送，
+ * 该页最后一帧写出后用一次批量写入推进游标，再读取下一页，同一时刻每个用户只有一页在途。
+ * 等待写出时不占用同步线程：写出确认到达后才把下一页提交给同步线程池。
+ * 同步中途断开时，已确认的页不会重发，下次上线从游标处继续。
+ * 
  * @author ChatApp
  * @since 1.0.0
  */
@@ -28,22 +66,132 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
 
     private static final Logger logger = LoggerFactory.getLogger(OfflineMessageServiceImpl.class);
 
+    /**
+     * 等待一页离线消息写出确认的最长时间（秒），超时后停止本次同步，下次上线继续
+     */
+    private static final long PAGE_ACK_TIMEOUT_SECONDS = 30;
+
+    /**
+     * 私聊收件箱游标键（私聊不区分对方，targetId固定为0）
+     */
+    private static final CursorKey PRIVATE_INBOX = new CursorKey(MessageSyncCursor.TYPE_PRIVATE, 0L);
+
+    /**
+     * 会话游标键
+     */
+    private record CursorKey(int conversationType, long targetId) {
+
+        static CursorKey of(Message message) {
+            return message.getGroupId() != null
+                    ? new CursorKey(MessageSyncCursor.TYPE_GROUP, message.getGroupId())
+                    : PRIVATE_INBOX;
+        }
+    }
+
+    /**
+     * 每个会话最多记录的实时投递消息ID数，超出后不再记录（游标停在缺口处，下次上线重发）
+     */
+    private static final int MAX_LIVE_IDS_PER_CONVERSATION = 10000;
+
+    /**
+     * 最多保留的 REST 离线消息页数（按用户），超出后淘汰最久未访问的用户，其确认需重新拉取
+     */
+    private static final int MAX_SERVED_PAGES = 10000;
+
+    /**
+     * 会话中实时投递成功的消息ID
+     */
+    private record LiveIds(NavigableSet<Long> ids, AtomicInteger size) {
+
+        LiveIds() {
+            this(new ConcurrentSkipListSet<>(), new AtomicInteger());
+        }
+
+        void add(Long messageId) {
+            if (size.get() < MAX_LIVE_IDS_PER_CONVERSATION && ids.add(messageId)) {
+                size.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 在线用户的投递状态
+     */
+    private static final class DeliveryState {
+        // 本次同步开始时的最大消息ID，0表示尚未开始同步
+        private long highWaterMark;
+        // 同步确认后的游标（会话 -> 最大消息ID）
+        private final Map<CursorKey, Long> syncedCursors = new ConcurrentHashMap<>();
+        // 同步已读完的会话，分界及之前的消息都已投递
+        private final Set<CursorKey> caughtUp = ConcurrentHashMap.newKeySet();
+        // 实时投递的消息ID，与游标分开记录
+        private final Map<CursorKey, LiveIds> liveIds = new ConcurrentHashMap<>();
+
+        synchronized void beginSync(long highWaterMark, Map<CursorKey, Long> cursors) {
+            caughtUp.clear();
+            syncedCursors.clear();
+            syncedCursors.putAll(cursors);
+            this.highWaterMark = highWaterMark;
+        }
+    }
+
+    // 在线用户的投递状态 - userId -> 状态，下线时把可连续推进的游标落库
+    private final Map<Long, DeliveryState> deliveryStates = new ConcurrentHashMap<>();
+
+    // 通过 REST 返回但尚未确认的离线消息 - userId -> (会话 -> 消息ID升序)，确认时只接受其中的连续前缀
+    private final Map<Long, Map<CursorKey, List<Long>>> servedPages = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Map<CursorKey, List<Long>>> eldest) {
+                    return size() > MAX_SERVED_PAGES;
+                }
+            });
+
+    // 正在同步离线消息的用户，避免多端同时上线时重复同步
+    private final Set<Long> syncingUsers = ConcurrentHashMap.newKeySet();
+
+    @Value("${websocket.offline-sync.threads:2}")
+    private int syncThreads;
+
+    @Value("${websocket.offline-sync.page-size:200}")
+    private int syncPageSize;
+
+    @Value("${websocket.offline-sync.messages-per-frame:20}")
+    private int messagesPerFrame;
+
+    private ExecutorService syncExecutor;
+
     @Autowired
     private MessageMapper messageMapper;
 
     @Autowired
     private MessagePushRecordMapper pushRecordMapper;
 
+    @Autowired
+    private MessageSyncCursorMapper cursorMapper;
+
+    @Autowired
+    private GroupMemberMapper memberMapper;
+
     @Autowired
     private WebSocketSessionService sessionService;
 
+    @PostConstruct
+    public void initSyncExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        syncExecutor = Executors.newFixedThreadPool(Math.max(1, syncThreads), runnable -> {
+            Thread thread = new Thread(runnable, "offline-sync-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     @Override
-    @Transactional
     public boolean pushMessageToUser(Long userId, Message message) {
         try {
             // 检查用户是否在线
             if (sessionService.isUserOnline(userId)) {
-                // 用户在线，直接通过WebSocket推送
+                // 用户在线，直接通过WebSocket推送，写出成功后记录实时投递
                 Map<String, Object> response = new HashMap<>();
                 response.put("type", "private");
                 response.put("fromUserId", message.getFromUserId());
@@ -51,28 +199,31 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
                 response.put("message", message);
                 response.put("timestamp", System.currentTimeMillis());
 
-                try {
-                    sessionService.sendToUser(userId, response);
-                    logger.debug("消息实时推送成功: messageId={}, userId={}", message.getId(), userId);
-                    return true;
-                } catch (Exception e) {
-                    logger.warn("消息实时推送失败，记录为离线消息: messageId={}, userId={}", message.getId(), userId, e);
-                }
+                sessionService.sendToUser(userId, response, () -> recordDelivered(userId, message));
+                logger.debug("消息实时推送成功: messageId={}, userId={}", message.getId(), userId);
+            } else {
+                // 用户离线，无需写入任何记录，上线时按游标同步
+                logger.debug("用户离线，消息等待上线同步: messageId={}, userId={}", message.getId(), userId);
             }
-
-            // 用户离线或推送失败，创建推送记录
-            createPushRecord(message.getId(), userId, 0); // 0-待推送
-            logger.debug("消息记录为离线消息: messageId={}, userId={}", message.getId(), userId);
             return true;
-
         } catch (Exception e) {
             logger.error("推送消息失败: messageId={}, userId={}", message.getId(), userId, e);
-            // 创建失败的推送记录
-            createPushRecord(message.getId(), userId, 2); // 2-推送失败
             return false;
         }
     }
 
+    @Override
+    public void recordDelivered(Long userId, Message message) {
+        if (userId == null || message == null || message.getId() == null) {
+            return;
+        }
+        DeliveryState state = deliveryStates.get(userId);
+        if (state == null) {
+            return;
+        }
+        state.liveIds.computeIfAbsent(CursorKey.of(message), k -> new LiveIds()).add(message.getId());
+    }
+
     @Override
     public List<Message> getOfflineMessages(Long userId) {
         try {
@@ -81,24 +232,16 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
                 return List.of();
             }
             
-            // 检查pushRecordMapper是否为null
-            if (pushRecordMapper == null) {
-                logger.error("pushRecordMapper未初始化，可能是MyBatis配置问题");
-                return List.of();
-            }
-            
-            // 获取用户的未推送消息
-            List<Message> offlineMessages;
-            try {
-                offlineMessages = pushRecordMapper.findUnpushedMessages(userId);
-            } catch (Exception dbException) {
-                logger.warn("数据库查询失败，可能是表不存在或配置问题: {}", dbException.getMessage());
-                // 如果数据库查询失败，返回空列表
-                return List.of();
+            List<Message> offlineMessages = new PageReader(userId, loadCursors(userId), messageMapper.findMaxId(),
+                    memberMapper.selectMembersByUserId(userId)).nextPage();
+            Map<CursorKey, List<Long>> served = new HashMap<>();
+            for (Message message : offlineMessages) {
+                served.computeIfAbsent(CursorKey.of(message), k -> new ArrayList<>()).add(message.getId());
             }
-            
-            if (offlineMessages == null) {
-                offlineMessages = List.of();
+            if (served.isEmpty()) {
+                servedPages.remove(userId);
+            } else {
+                servedPages.put(userId, served);
             }
             logger.debug("获取用户离线消息: userId={}, count={}", userId, offlineMessages.size());
             return offlineMessages;
@@ -110,17 +253,47 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
     }
 
     @Override
-    @Transactional
     public boolean markOfflineMessagesAsPushed(Long userId, List<Long> messageIds) {
         try {
             if (messageIds == null || messageIds.isEmpty()) {
                 return true;
             }
 
-            int updated = pushRecordMapper.markMessagesAsPushed(userId, messageIds);
-            logger.debug("标记离线消息为已推送: userId={}, messageIds={}, updated={}", 
-                        userId, messageIds, updated);
-            return updated > 0;
+            // 只接受本次返回给该用户的消息，并且每个会话只推进到连续确认的前缀
+            Map<CursorKey, List<Long>> served = servedPages.get(userId);
+            if (served == null) {
+                logger.warn("没有待确认的离线消息，忽略确认: userId={}, messageIds={}", userId, messageIds);
+                return false;
+            }
+            Set<Long> acked = new HashSet<>(messageIds);
+            Map<CursorKey, Long> cursors = new HashMap<>();
+            synchronized (served) {
+                Iterator<Map.Entry<CursorKey, List<Long>>> iterator = served.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<CursorKey, List<Long>> entry = iterator.next();
+                    List<Long> ids = entry.getValue();
+                    int count = 0;
+                    while (count < ids.size() && acked.contains(ids.get(count))) {
+                        count++;
+                    }
+                    if (count > 0) {
+                        cursors.put(entry.getKey(), ids.get(count - 1));
+                        ids.subList(0, count).clear();
+                    }
+                    if (ids.isEmpty()) {
+                        iterator.remove();
+                    }
+                }
+                if (served.isEmpty()) {
+                    servedPages.remove(userId, served);
+                }
+            }
+            if (!cursors.isEmpty()) {
+                cursorMapper.upsertCursors(toCursorEntities(userId, cursors));
+            }
+            logger.debug("标记离线消息为已推送: userId={}, messageIds={}, cursors={}", 
+                        userId, messageIds, cursors.size());
+            return !cursors.isEmpty();
         } catch (Exception e) {
             logger.error("标记离线消息为已推送失败: userId={}, messageIds={}", userId, messageIds, e);
             return false;
@@ -131,7 +304,7 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
     @Async
     public void cleanupPushedRecords() {
         try {
-            // 清理7天前的已推送记录
+            // 清理7天前的已推送记录（迁移到游标之前遗留的推送记录）
             LocalDateTime cutoffTime = LocalDateTime.now().minusDays(7);
             int deleted = pushRecordMapper.deletePushedRecordsBefore(cutoffTime);
             logger.info("清理已推送的离线消息记录: deleted={}", deleted);
@@ -141,93 +314,378 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
     }
 
     @Override
-    @Async
-    public void retryFailedPushes() {
+    public void handleUserOnline(Long userId) {
+        deliveryStates.computeIfAbsent(userId, k -> new DeliveryState());
+        if (!syncingUsers.add(userId)) {
+            logger.debug("用户离线消息正在同步中: userId={}", userId);
+            return;
+        }
         try {
-            // 获取失败的推送记录（重试次数小于3次）
-            List<Map<String, Object>> failedRecords = pushRecordMapper.findFailedPushRecords(3);
-            
-            for (Map<String, Object> record : failedRecords) {
-                Long messageId = (Long) record.get("message_id");
-                Long userId = (Long) record.get("user_id");
-                Integer retryCount = (Integer) record.get("retry_count");
-
-                // 获取消息详情
-                Message message = messageMapper.findById(messageId);
-                if (message != null) {
-                    // 重试推送
-                    boolean success = pushMessageToUser(userId, message);
-                    if (success) {
-                        // 推送成功，更新记录状态
-                        pushRecordMapper.updatePushStatus(messageId, userId, 1, null);
-                    } else {
-                        // 推送失败，增加重试次数
-                        pushRecordMapper.incrementRetryCount(messageId, userId, "重试推送失败");
-                    }
-                }
-            }
-
-            logger.info("重试失败推送完成: records={}", failedRecords.size());
+            // 同步结束（完成、中断或出错）时由 finishSync 移除标记
+            syncExecutor.execute(() -> syncOfflineMessages(userId));
         } catch (Exception e) {
-            logger.error("重试失败推送异常", e);
+            syncingUsers.remove(userId);
+            logger.error("提交离线消息同步任务失败: userId={}", userId, e);
         }
     }
 
     @Override
-    @Transactional
-    public void handleUserOnline(Long userId) {
+    public void handleUserOffline(Long userId) {
+        DeliveryState state = deliveryStates.remove(userId);
+        if (state == null) {
+            return;
+        }
         try {
-            // 获取用户的离线消息
-            List<Message> offlineMessages = getOfflineMessages(userId);
-            
-            if (!offlineMessages.isEmpty()) {
-                logger.info("用户上线，推送离线消息: userId={}, count={}", userId, offlineMessages.size());
-                
-                // 推送离线消息
-                for (Message message : offlineMessages) {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("type", "private");
-                    response.put("fromUserId", message.getFromUserId());
-                    response.put("toUserId", message.getToUserId());
-                    response.put("message", message);
-                    response.put("timestamp", System.currentTimeMillis());
-                    response.put("isOfflineMessage", true); // 标记为离线消息
-
-                    sessionService.sendToUser(userId, response);
-                }
-
-                // 标记消息为已推送
-                List<Long> messageIds = offlineMessages.stream()
-                    .map(Message::getId)
-                    .toList();
-                markOfflineMessagesAsPushed(userId, messageIds);
+            Map<CursorKey, Long> cursors = contiguousLiveCursors(userId, state);
+            if (cursors.isEmpty()) {
+                return;
             }
+            cursorMapper.upsertCursors(toCursorEntities(userId, cursors));
+            logger.debug("用户下线，保存投递游标: userId={}, cursors={}", userId, cursors.size());
         } catch (Exception e) {
-            logger.error("处理用户上线离线消息失败: userId={}", userId, e);
+            logger.error("保存投递游标失败: userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 应用关闭前保存所有在线用户的投递游标
+     */
+    @PreDestroy
+    public void persistDeliveredCursors() {
+        syncExecutor.shutdownNow();
+        for (Long userId : new ArrayList<>(deliveryStates.keySet())) {
+            handleUserOffline(userId);
+        }
+    }
+
+    /**
+     * 一次上线同步的进度，依次在同步线程池的不同线程上推进（页之间由写出确认衔接）
+     */
+    private static final class SyncRun {
+        private final Long userId;
+        private final DeliveryState state;
+        private final PageReader reader;
+        private int total;
+
+        SyncRun(Long userId, DeliveryState state, PageReader reader) {
+            this.userId = userId;
+            this.state = state;
+            this.reader = reader;
         }
     }
 
     /**
-     * 创建推送记录
+     * 开始分页同步离线消息：从游标读到同步开始时的分界为止
      */
-    private void createPushRecord(Long messageId, Long userId, Integer status) {
+    private void syncOfflineMessages(Long userId) {
+        DeliveryState state = deliveryStates.get(userId);
+        if (state == null) {
+            finishSync(userId, 0, null);
+            return;
+        }
         try {
-            Map<String, Object> record = new HashMap<>();
-            record.put("message_id", messageId);
-            record.put("user_id", userId);
-            record.put("push_status", status);
-            record.put("retry_count", 0);
-            record.put("create_time", LocalDateTime.now());
-            record.put("update_time", LocalDateTime.now());
+            // 分界之后的消息由实时推送负责；同步开始前已实时投递的消息可能与本次同步重复，客户端按消息ID去重
+            long highWaterMark = messageMapper.findMaxId();
+            state.beginSync(highWaterMark, loadCursors(userId));
+            PageReader reader = new PageReader(userId, state.syncedCursors, highWaterMark,
+                    memberMapper.selectMembersByUserId(userId));
+            sendNextPage(new SyncRun(userId, state, reader));
+        } catch (Exception e) {
+            logger.error("处理用户上线离线消息失败: userId={}", userId, e);
+            finishSync(userId, 0, null);
+        }
+    }
 
-            if (status == 1) { // 已推送
-                record.put("push_time", LocalDateTime.now());
+    /**
+     * 读取并发送下一页，写出确认到达后在同步线程池上继续，不阻塞等待
+     */
+    private void sendNextPage(SyncRun run) {
+        try {
+            if (!sessionService.isUserOnline(run.userId)) {
+                finishSync(run.userId, run.total, "用户已下线");
+                return;
             }
+            List<Message> page = run.reader.nextPage();
+            if (page.isEmpty()) {
+                run.state.caughtUp.addAll(run.reader.drained());
+                finishSync(run.userId, run.total, null);
+                return;
+            }
+
+            sendPage(run.userId, page, run.reader.hasMore())
+                    .orTimeout(PAGE_ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                    .whenCompleteAsync((ignored, error) -> {
+                        if (error != null) {
+                            finishSync(run.userId, run.total, "等待写出确认超时或会话已关闭");
+                            return;
+                        }
+                        onPageAcked(run, page);
+                    }, syncExecutor);
+        } catch (Exception e) {
+            logger.error("处理用户上线离线消息失败: userId={}, synced={}", run.userId, run.total, e);
+            finishSync(run.userId, run.total, null);
+        }
+    }
 
-            pushRecordMapper.insert(record);
+    /**
+     * 一页写出后整页一次批量推进游标，再继续下一页
+     */
+    private void onPageAcked(SyncRun run, List<Message> page) {
+        try {
+            advanceCursors(run.userId, page);
+            for (Message message : page) {
+                run.state.syncedCursors.merge(CursorKey.of(message), message.getId(), Math::max);
+            }
+            // 本页写出后，已读完的会话在分界及之前的消息都已投递
+            run.state.caughtUp.addAll(run.reader.drained());
+            run.total += page.size();
         } catch (Exception e) {
-            logger.error("创建推送记录失败: messageId={}, userId={}, status={}", 
-                        messageId, userId, status, e);
+            logger.error("推进离线消息游标失败: userId={}, synced={}", run.userId, run.total, e);
+            finishSync(run.userId, run.total, null);
+            return;
+        }
+        sendNextPage(run);
+    }
+
+    /**
+     * 结束同步并释放同步标记
+     *
+     * @param interruptedReason 中断原因，正常结束或出错（已记录错误日志）时为null
+     */
+    private void finishSync(Long userId, int total, String interruptedReason) {
+        syncingUsers.remove(userId);
+        if (interruptedReason != null) {
+            logger.info("离线消息同步中断，下次上线继续: userId={}, synced={}, reason={}", userId, total, interruptedReason);
+        } else if (total > 0) {
+            logger.info("用户上线，离线消息同步完成: userId={}, count={}", userId, total);
+        }
+    }
+
+    /**
+     * 将一页消息按批打包发送，返回在最后一帧写出到客户端时完成的确认
+     */
+    private CompletableFuture<Void> sendPage(Long userId, List<Message> page, boolean hasMore) {
+        CompletableFuture<Void> pageAck = new CompletableFuture<>();
+        int frameSize = Math.max(1, messagesPerFrame);
+
+        for (int from = 0; from < page.size(); from += frameSize) {
+            int to = Math.min(from + frameSize, page.size());
+            List<Map<String, Object>> events = new ArrayList<>(to - from);
+            for (Message message : page.subList(from, to)) {
+                events.add(buildOfflineEvent(message));
+            }
+
+            Map<String, Object> frame = new HashMap<>();
+            frame.put("type", "offline_batch");
+            frame.put("events", events);
+            frame.put("hasMore", hasMore || to < page.size());
+            frame.put("timestamp", System.currentTimeMillis());
+
+            boolean lastFrame = to == page.size();
+            sessionService.sendToUser(userId, frame, lastFrame ? () -> pageAck.complete(null) : null);
+        }
+        return pageAck;
+    }
+
+    /**
+     * 构建单条离线消息事件（与实时推送的消息格式一致）
+     */
+    private Map<String, Object> buildOfflineEvent(Message message) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", message.getGroupId() != null ? "group" : "private");
+        event.put("fromUserId", message.getFromUserId());
+        if (message.getGroupId() != null) {
+            event.put("groupId", message.getGroupId());
+        } else {
+            event.put("toUserId", message.getToUserId());
+        }
+        event.put("message", message);
+        event.put("timestamp", System.currentTimeMillis());
+        event.put("isOfflineMessage", true); // 标记为离线消息
+        return event;
+    }
+
+    /**
+     * 读取用户保存的游标（实时投递的消息ID不参与，避免跳过尚未同步的离线消息）
+     */
+    private Map<CursorKey, Long> loadCursors(Long userId) {
+        Map<CursorKey, Long> cursors = new HashMap<>();
+        for (MessageSyncCursor cursor : cursorMapper.findByUserId(userId)) {
+            cursors.put(new CursorKey(cursor.getConversationType(), cursor.getTargetId()), cursor.getLastMessageId());
+        }
+        return cursors;
+    }
+
+    /**
+     * 计算下线时可保存的游标：只处理同步已读完的会话，从分界（或更大的同步游标）开始，
+     * 沿会话中的消息ID逐条前进，遇到没有实时投递过的消息即停止
+     */
+    private Map<CursorKey, Long> contiguousLiveCursors(Long userId, DeliveryState state) {
+        Map<CursorKey, Long> cursors = new HashMap<>();
+        synchronized (state) {
+            if (state.highWaterMark == 0) {
+                return cursors;
+            }
+            for (CursorKey key : state.caughtUp) {
+                LiveIds live = state.liveIds.get(key);
+                if (live == null || live.ids().isEmpty()) {
+                    continue;
+                }
+                Long synced = state.syncedCursors.get(key);
+                long base = Math.max(state.highWaterMark, synced != null ? synced : 0L);
+                long maxLive = live.ids().last();
+                if (maxLive <= base) {
+                    continue;
+                }
+
+                List<Long> messageIds = key.conversationType() == MessageSyncCursor.TYPE_GROUP
+                        ? messageMapper.findGroupMessageIdsBetween(key.targetId(), userId, base, maxLive)
+                        : messageMapper.findPrivateInboxIdsBetween(userId, base, maxLive);
+                long cursor = base;
+                for (Long messageId : messageIds) {
+                    if (!live.ids().contains(messageId)) {
+                        break;
+                    }
+                    cursor = messageId;
+                }
+                if (synced == null || cursor > synced) {
+                    cursors.put(key, cursor);
+                }
+            }
+        }
+        return cursors;
+    }
+
+    /**
+     * 按会话游标分页读取离线消息（ID不超过upToId，页内按消息ID升序，最多syncPageSize条）
+     *
+     * 每个会话单独缓冲已读取未发送的消息，页由各会话缓冲的队首按消息ID归并而成；
+     * 会话缓冲取空时才从其最后读取的ID继续查询，已读完（结果不足 fetchSize 条）的会话不再查询，
+     * 因此每条消息只读取一次，每页只查询上一页取空了缓冲的会话。
+     * 每次查询的条数按会话数平分一页，避免首页为每个会话各读一整页。
+     * 每个会话发出的始终是其消息的前缀，按页内最大ID推进游标不会跳过消息。
+     */
+    private final class PageReader {
+        private final Long userId;
+        private final long upToId;
+        private final int fetchSize;
+        // 没有游标的群会话以入群时间为起点，避免拉取入群前的历史消息
+        private final Map<CursorKey, LocalDateTime> joinTimes = new HashMap<>();
+        // 会话 -> 已从数据库读取的最大消息ID
+        private final Map<CursorKey, Long> fetchedUpTo = new HashMap<>();
+        private final Map<CursorKey, ArrayDeque<Message>> buffers = new LinkedHashMap<>();
+        private final Set<CursorKey> exhausted = new HashSet<>();
+
+        PageReader(Long userId, Map<CursorKey, Long> cursors, long upToId, List<GroupMember> memberships) {
+            this.userId = userId;
+            this.upToId = upToId;
+            buffers.put(PRIVATE_INBOX, new ArrayDeque<>());
+            for (GroupMember member : memberships) {
+                CursorKey key = new CursorKey(MessageSyncCursor.TYPE_GROUP, member.getGroupId());
+                buffers.put(key, new ArrayDeque<>());
+                joinTimes.put(key, member.getJoinTime());
+            }
+            for (CursorKey key : buffers.keySet()) {
+                Long cursor = cursors.get(key);
+                if (cursor != null) {
+                    fetchedUpTo.put(key, cursor);
+                }
+            }
+            this.fetchSize = Math.min(syncPageSize,
+                    Math.max(Math.max(1, messagesPerFrame), syncPageSize / buffers.size()));
+        }
+
+        List<Message> nextPage() {
+            PriorityQueue<CursorKey> heads = new PriorityQueue<>(
+                    Comparator.comparing((CursorKey key) -> buffers.get(key).peekFirst().getId()));
+            for (Map.Entry<CursorKey, ArrayDeque<Message>> entry : buffers.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    refill(entry.getKey());
+                }
+                if (!entry.getValue().isEmpty()) {
+                    heads.add(entry.getKey());
+                }
+            }
+
+            List<Message> page = new ArrayList<>(Math.min(syncPageSize, fetchSize * heads.size()));
+            while (page.size() < syncPageSize && !heads.isEmpty()) {
+                CursorKey key = heads.poll();
+                ArrayDeque<Message> buffer = buffers.get(key);
+                page.add(buffer.pollFirst());
+                // 缓冲取空时立即续读，保证归并时该会话的后续消息参与比较
+                if (buffer.isEmpty()) {
+                    refill(key);
+                }
+                if (!buffer.isEmpty()) {
+                    heads.add(key);
+                }
+            }
+            return page;
+        }
+
+        /**
+         * 是否还有未发出的消息
+         */
+        boolean hasMore() {
+            for (Map.Entry<CursorKey, ArrayDeque<Message>> entry : buffers.entrySet()) {
+                if (!entry.getValue().isEmpty() || !exhausted.contains(entry.getKey())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 分界及之前的消息已全部发出的会话
+         */
+        Set<CursorKey> drained() {
+            Set<CursorKey> drained = new HashSet<>();
+            for (CursorKey key : exhausted) {
+                if (buffers.get(key).isEmpty()) {
+                    drained.add(key);
+                }
+            }
+            return drained;
+        }
+
+        private void refill(CursorKey key) {
+            if (exhausted.contains(key)) {
+                return;
+            }
+            Long after = fetchedUpTo.get(key);
+            List<Message> fetched = key.equals(PRIVATE_INBOX)
+                    ? messageMapper.findPrivateInboxAfter(userId, after != null ? after : 0L, upToId, fetchSize)
+                    : messageMapper.findGroupMessagesAfter(key.targetId(), userId, after != null ? after : 0L,
+                            upToId, after == null ? joinTimes.get(key) : null, fetchSize);
+            if (fetched.size() < fetchSize) {
+                exhausted.add(key);
+            }
+            if (!fetched.isEmpty()) {
+                buffers.get(key).addAll(fetched);
+                fetchedUpTo.put(key, fetched.get(fetched.size() - 1).getId());
+            }
+        }
+    }
+
+    /**
+     * 将消息所在会话的游标推进到这些消息中的最大ID
+     */
+    private int advanceCursors(Long userId, List<Message> messages) {
+        Map<CursorKey, Long> maxIds = new HashMap<>();
+        for (Message message : messages) {
+            maxIds.merge(CursorKey.of(message), message.getId(), Math::max);
         }
+        if (maxIds.isEmpty()) {
+            return 0;
+        }
+        cursorMapper.upsertCursors(toCursorEntities(userId, maxIds));
+        return maxIds.size();
+    }
+
+    private List<MessageSyncCursor> toCursorEntities(Long userId, Map<CursorKey, Long> cursors) {
+        List<MessageSyncCursor> entities = new ArrayList<>(cursors.size());
+        cursors.forEach((key, messageId) -> entities.add(
+                new MessageSyncCursor(userId, key.conversationType(), key.targetId(), messageId)));
+        return entities;
     }
-}
\ No newline at end of file
+}
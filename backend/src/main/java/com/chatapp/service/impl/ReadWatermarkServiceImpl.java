@@ -0,0 +1,139 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.MessageReadWatermark;
+import com.chatapp.mapper.MessageReadWatermarkMapper;
+import com.chatapp.service.ReadWatermarkService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 已读水位服务实现类
+ *
+ * 待写入的水位按会话保存在内存中，一个刷新周期内同一会话的多次回执合并为一行。
+ * 写入成功后才从内存移除（值在写入期间被推进则保留到下一轮），写入失败的水位下一轮重试；
+ * 数据库端用 GREATEST 保证乱序或重复写入不会使水位回退
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Service
+public class ReadWatermarkServiceImpl implements ReadWatermarkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWatermarkServiceImpl.class);
+
+    // 每条批量写入语句包含的水位行数
+    static final int FLUSH_BATCH_SIZE = 500;
+
+    private final MessageReadWatermarkMapper watermarkMapper;
+
+    // 尚未写入数据库的水位
+    private final Map<WatermarkKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong receiptsReceived = new AtomicLong();
+    private final AtomicLong rowsFlushed = new AtomicLong();
+    private final AtomicLong flushStatements = new AtomicLong();
+
+    private record WatermarkKey(long userId, int conversationType, long targetId) {
+    }
+
+    @Autowired
+    public ReadWatermarkServiceImpl(MessageReadWatermarkMapper watermarkMapper) {
+        this.watermarkMapper = watermarkMapper;
+    }
+
+    @Override
+    public void advance(Long userId, int conversationType, Long targetId, Long messageId) {
+        if (userId == null || targetId == null || messageId == null) {
+            return;
+        }
+        receiptsReceived.incrementAndGet();
+        pending.merge(new WatermarkKey(userId, conversationType, targetId), messageId, Math::max);
+    }
+
+    @Override
+    public long getLastReadMessageId(Long userId, int conversationType, Long targetId) {
+        Long unflushed = pending.get(new WatermarkKey(userId, conversationType, targetId));
+        Long stored = watermarkMapper.findLastReadMessageId(userId, conversationType, targetId);
+        long value = stored != null ? stored : 0L;
+        return unflushed != null ? Math.max(unflushed, value) : value;
+    }
+
+    @Override
+    public void flushUser(Long userId) {
+        if (userId != null) {
+            flush(key -> key.userId() == userId);
+        }
+    }
+
+    @Override
+    public void flush() {
+        flush(key -> true);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long received = receiptsReceived.get();
+        long flushed = rowsFlushed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("receiptsReceived", received);
+        stats.put("rowsFlushed", flushed);
+        stats.put("flushStatements", flushStatements.get());
+        stats.put("pending", pending.size());
+        // 每写入一行合并了多少条回执
+        stats.put("coalescingRatio", flushed > 0 ? (double) received / flushed : 0.0);
+        return stats;
+    }
+
+    private void flush(Predicate<WatermarkKey> filter) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<WatermarkKey, Long>> batch = new ArrayList<>();
+        for (Map.Entry<WatermarkKey, Long> entry : pending.entrySet()) {
+            if (filter.test(entry.getKey())) {
+                batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        int written = 0;
+        for (int from = 0; from < batch.size(); from += FLUSH_BATCH_SIZE) {
+            List<Map.Entry<WatermarkKey, Long>> chunk = batch.subList(from, Math.min(from + FLUSH_BATCH_SIZE, batch.size()));
+            List<MessageReadWatermark> rows = new ArrayList<>(chunk.size());
+            for (Map.Entry<WatermarkKey, Long> entry : chunk) {
+                WatermarkKey key = entry.getKey();
+                rows.add(new MessageReadWatermark(key.userId(), key.conversationType(), key.targetId(), entry.getValue()));
+            }
+            try {
+                watermarkMapper.upsertWatermarks(rows);
+                flushStatements.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("批量写入已读水位失败: rows={}", rows.size(), e);
+                continue;
+            }
+            // 写入后再移除，期间读取水位仍能看到内存中的值
+            for (Map.Entry<WatermarkKey, Long> entry : chunk) {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+            written += rows.size();
+        }
+        rowsFlushed.addAndGet(written);
+        logger.debug("已读水位批量写入完成: pending={}, written={}", batch.size(), written);
+    }
+}
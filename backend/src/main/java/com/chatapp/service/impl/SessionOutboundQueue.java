@@ -0,0 +1,452 @@
+package com.chatapp.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 单个WebSocket会话的出站消息队列
+ *
+ * 消息先进入有界队列，再由写线程池按会话串行写出，
+ * 发送方线程不会阻塞在慢客户端的网络写入上。写出受容器的阻塞写出超时限制
+ * （见 WebSocketSessionServiceImpl），停滞的客户端最多占用一个写线程到超时为止，随后被断开。
+ *
+ * 协商了批量模式的会话在首条消息入队后等待一个合并窗口再写出，窗口内的消息
+ * （最多 batchSize 条）合并为一个数组帧：JSON为 [事件,...]，CBOR为定长数组，
+ * 元素即原单条消息的编码，不重新序列化。只有一条消息时仍按单条格式写出
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class SessionOutboundQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutboundQueue.class);
+
+    /**
+     * 单次调度最多写出的消息数，避免一个繁忙会话长期占用写线程
+     */
+    private static final int MAX_WRITES_PER_DRAIN = 64;
+
+    /**
+     * 消息的溢出策略。队列已满时两种消息都先淘汰队列中最早的一条可丢弃消息，
+     * 队列中没有可丢弃消息时按各自策略处理；聊天消息不会被淘汰
+     */
+    enum OverflowPolicy {
+        /**
+         * 可丢弃（输入状态、在线状态、未读数等可由后续消息覆盖的消息）：无可淘汰消息时丢弃本条
+         */
+        DROP_OLDEST,
+        /**
+         * 不可丢弃（聊天消息）：无可淘汰消息时断开会话，客户端重连后走离线消息补齐
+         */
+        DISCONNECT
+    }
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final Executor writer;
+    private final Consumer<String> failureHandler;
+
+    // 批量模式：每帧最多合并的消息数（1表示不合并）、合并窗口和窗口定时器
+    private final int batchSize;
+    private final long flushWindowMillis;
+    private final ScheduledExecutorService flushTimer;
+
+    // 协商了 permessage-deflate 的会话记录压缩统计，否则为null
+    private final CompressionMetrics compressionMetrics;
+
+    private final Deque<Outbound> queue = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+    // 待执行的断开请求，由写线程在没有写出进行时关闭会话
+    private volatile CloseStatus pendingClose;
+
+    // 统计信息
+    private final AtomicLong enqueuedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong frameCount = new AtomicLong();
+    private final AtomicLong batchFrameCount = new AtomicLong();
+    private final AtomicLong totalWriteNanos = new AtomicLong();
+    private final AtomicLong maxWriteNanos = new AtomicLong();
+    private volatile long lastWriteNanos = 0;
+
+    SessionOutboundQueue(WebSocketSession session, int capacity, Executor writer, Consumer<String> failureHandler) {
+        this(session, capacity, writer, failureHandler, 1, 0, null, null);
+    }
+
+    /**
+     * @param batchSize 每帧最多合并的消息数，大于1时启用批量模式
+     * @param flushWindowMillis 批量模式下首条消息入队后等待的合并窗口
+     * @param flushTimer 批量模式下的窗口定时器，为null时不启用批量模式
+     * @param compressionMetrics 压缩统计，会话未协商压缩时为null
+     */
+    SessionOutboundQueue(WebSocketSession session, int capacity, Executor writer, Consumer<String> failureHandler,
+                         int batchSize, long flushWindowMillis, ScheduledExecutorService flushTimer,
+                         CompressionMetrics compressionMetrics) {
+        this.session = session;
+        this.capacity = capacity;
+        this.writer = writer;
+        this.failureHandler = failureHandler;
+        this.batchSize = flushTimer != null ? Math.max(1, batchSize) : 1;
+        this.flushWindowMillis = flushWindowMillis;
+        this.flushTimer = flushTimer;
+        this.compressionMetrics = compressionMetrics;
+    }
+
+    /**
+     * 待写出的消息及写出成功后的回调
+     */
+    record Outbound(WebSocketMessage<?> message, Runnable onSent, boolean droppable) {
+    }
+
+    /**
+     * 将消息放入队列，返回消息是否被接受
+     */
+    boolean offer(WebSocketMessage<?> message, OverflowPolicy policy) {
+        return offer(message, policy, null);
+    }
+
+    /**
+     * 将消息放入队列，onSent在消息成功写出到客户端后于写线程上回调
+     */
+    boolean offer(WebSocketMessage<?> message, OverflowPolicy policy, Runnable onSent) {
+        if (closed) {
+            return false;
+        }
+
+        boolean droppable = policy == OverflowPolicy.DROP_OLDEST;
+        boolean overflow = false;
+        synchronized (queue) {
+            if (queue.size() >= capacity && !evictOldestDroppable()) {
+                overflow = true;
+            } else {
+                queue.addLast(new Outbound(message, onSent, droppable));
+                enqueuedCount.incrementAndGet();
+            }
+        }
+
+        if (overflow) {
+            droppedCount.incrementAndGet();
+            if (droppable) {
+                return false;
+            }
+            logger.warn("会话出站队列已满，断开慢客户端: sessionId={}, capacity={}", session.getId(), capacity);
+            requestDisconnect(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * 淘汰队列中最早的一条可丢弃消息（调用方持有queue锁），没有可丢弃消息时返回false
+     */
+    private boolean evictOldestDroppable() {
+        Iterator<Outbound> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().droppable()) {
+                iterator.remove();
+                droppedCount.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 关闭队列并丢弃未发送的消息
+     */
+    void close() {
+        closed = true;
+        synchronized (queue) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * 获取队列统计快照
+     */
+    Map<String, Object> snapshot() {
+        long sent = sentCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessionId", session.getId());
+        stats.put("userId", session.getAttributes().get("userId"));
+        stats.put("queueDepth", getDepth());
+        stats.put("capacity", capacity);
+        stats.put("enqueued", enqueuedCount.get());
+        stats.put("sent", sent);
+        stats.put("dropped", droppedCount.get());
+        stats.put("failed", failedCount.get());
+        long frames = frameCount.get();
+        stats.put("batching", batchSize > 1);
+        stats.put("frames", frames);
+        stats.put("batchFrames", batchFrameCount.get());
+        stats.put("lastWriteMicros", lastWriteNanos / 1000);
+        stats.put("avgWriteMicros", frames > 0 ? totalWriteNanos.get() / frames / 1000 : 0);
+        stats.put("maxWriteMicros", maxWriteNanos.get() / 1000);
+        return stats;
+    }
+
+    int getDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                if (batchSize > 1 && getDepth() < batchSize) {
+                    // 等待合并窗口，窗口内入队的消息随本次一起写出
+                    flushTimer.schedule(this::submitDrain, flushWindowMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    writer.execute(this::drain);
+                }
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                logger.warn("写线程池拒绝任务，消息暂留队列: sessionId={}", session.getId());
+            }
+        }
+    }
+
+    private void submitDrain() {
+        try {
+            writer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            logger.warn("写线程池拒绝任务，消息暂留队列: sessionId={}", session.getId());
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < MAX_WRITES_PER_DRAIN && !closed; i++) {
+                if (batchSize > 1) {
+                    List<Outbound> batch = pollBatch();
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    writeBatch(batch);
+                    continue;
+                }
+
+                Outbound next;
+                synchronized (queue) {
+                    next = queue.pollFirst();
+                }
+                if (next == null) {
+                    break;
+                }
+                write(next);
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        if (pendingClose != null) {
+            scheduleDisconnect();
+            return;
+        }
+        // 写出期间可能有新消息入队，或达到单次写出上限
+        if (!closed && getDepth() > 0) {
+            scheduleDrain();
+        }
+    }
+
+    private void write(Outbound outbound) {
+        if (send(outbound.message(), 1)) {
+            runOnSent(outbound);
+        }
+    }
+
+    /**
+     * 取出一批消息（最多 batchSize 条）
+     */
+    private List<Outbound> pollBatch() {
+        synchronized (queue) {
+            int size = Math.min(batchSize, queue.size());
+            List<Outbound> batch = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                batch.add(queue.pollFirst());
+            }
+            return batch;
+        }
+    }
+
+    private void writeBatch(List<Outbound> batch) {
+        if (batch.size() == 1) {
+            write(batch.get(0));
+            return;
+        }
+        WebSocketMessage<?> merged = merge(batch);
+        if (merged == null) {
+            // 编码类型不一致（不应出现），逐条写出
+            for (Outbound outbound : batch) {
+                write(outbound);
+            }
+            return;
+        }
+        if (send(merged, batch.size())) {
+            batchFrameCount.incrementAndGet();
+            for (Outbound outbound : batch) {
+                runOnSent(outbound);
+            }
+        }
+    }
+
+    /**
+     * 把多条已编码的消息拼接为一个数组帧，文本与二进制混合时返回null
+     */
+    static WebSocketMessage<?> merge(List<Outbound> batch) {
+        if (batch.get(0).message() instanceof TextMessage) {
+            StringBuilder json = new StringBuilder(batch.size() * 256);
+            json.append('[');
+            for (int i = 0; i < batch.size(); i++) {
+                if (!(batch.get(i).message() instanceof TextMessage text)) {
+                    return null;
+                }
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(text.getPayload());
+            }
+            return new TextMessage(json.append(']'));
+        }
+
+        int count = batch.size();
+        int length = cborArrayHeaderLength(count);
+        for (Outbound outbound : batch) {
+            if (!(outbound.message() instanceof BinaryMessage binary)) {
+                return null;
+            }
+            length += binary.getPayloadLength();
+        }
+        ByteBuffer cbor = ByteBuffer.allocate(length);
+        putCborArrayHeader(cbor, count);
+        for (Outbound outbound : batch) {
+            cbor.put(((BinaryMessage) outbound.message()).getPayload().duplicate());
+        }
+        cbor.flip();
+        return new BinaryMessage(cbor);
+    }
+
+    /**
+     * CBOR定长数组头（主类型4）的字节数，batchSize不超过65535
+     */
+    static int cborArrayHeaderLength(int count) {
+        return count < 24 ? 1 : count < 256 ? 2 : 3;
+    }
+
+    static void putCborArrayHeader(ByteBuffer cbor, int count) {
+        if (count < 24) {
+            cbor.put((byte) (0x80 | count));
+        } else if (count < 256) {
+            cbor.put((byte) 0x98).put((byte) count);
+        } else {
+            cbor.put((byte) 0x99).putShort((short) count);
+        }
+    }
+
+    /**
+     * 写出一帧，失败时关闭队列并通知移除会话
+     *
+     * @param messages 帧中包含的消息数
+     */
+    private boolean send(WebSocketMessage<?> message, int messages) {
+        if (!session.isOpen()) {
+            close();
+            failureHandler.accept(session.getId());
+            return false;
+        }
+
+        if (compressionMetrics != null) {
+            // 写出会读取二进制帧的ByteBuffer，统计需在写出前进行
+            compressionMetrics.record(message);
+        }
+
+        long start = System.nanoTime();
+        try {
+            session.sendMessage(message);
+            long elapsed = System.nanoTime() - start;
+            sentCount.addAndGet(messages);
+            frameCount.incrementAndGet();
+            totalWriteNanos.addAndGet(elapsed);
+            maxWriteNanos.accumulateAndGet(elapsed, Math::max);
+            lastWriteNanos = elapsed;
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 包括超过阻塞写出超时的慢客户端：连接已不可用，关闭会话而不只是移除
+            failedCount.addAndGet(messages);
+            logger.error("发送WebSocket消息失败: sessionId={}", session.getId(), e);
+            requestDisconnect(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+    }
+
+    private void runOnSent(Outbound outbound) {
+        if (outbound.onSent() != null) {
+            try {
+                outbound.onSent().run();
+            } catch (Exception e) {
+                logger.error("消息写出回调执行失败: sessionId={}", session.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * 请求断开会话：关闭由写线程执行，不与正在进行的 sendMessage 并发
+     */
+    private void requestDisconnect(CloseStatus status) {
+        pendingClose = status;
+        close();
+        scheduleDisconnect();
+    }
+
+    /**
+     * 抢占写出标记后在写线程上关闭会话；写出进行中时由该次写出结束后再调度。
+     * 关闭后写出标记不再释放，会话不会再有写出或重复关闭
+     */
+    private void scheduleDisconnect() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::disconnect);
+            } catch (RejectedExecutionException e) {
+                // 写线程池已关闭，不会再有写出与之并发
+                disconnect();
+            }
+        }
+    }
+
+    private void disconnect() {
+        try {
+            session.close(pendingClose);
+        } catch (IOException e) {
+            logger.debug("关闭慢客户端会话失败: sessionId={}", session.getId(), e);
+        }
+        failureHandler.accept(session.getId());
+    }
+}
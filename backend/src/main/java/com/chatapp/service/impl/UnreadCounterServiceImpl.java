@@ -0,0 +1,302 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.Conversation;
+import com.chatapp.entity.Message;
+import com.chatapp.mapper.MessageMapper;
+import com.chatapp.service.ReadWatermarkService;
+import com.chatapp.service.UnreadCounterService;
+import com.chatapp.service.WebSocketSessionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 未读消息计数服务实现类
+ *
+ * 计数只为在线用户缓存，用户最后一个会话断开时移除；不在线的用户（如只通过 REST 查询）
+ * 每次按已读水位重新统计，不进入缓存，缓存大小因此以在线用户数为上限。
+ * 推送的 unread_update 事件同时携带变化量和变化后的绝对值，客户端直接覆盖本地计数，
+ * 因此事件丢失或乱序不会造成累计偏差。
+ * 重建在缓存映射之外统计，完成后才放入缓存：按用户分段的版本号记录新消息的登记和计入，
+ * 统计期间有新消息登记、计入或仍未提交时，无法判断统计结果是否包含这些消息，丢弃结果重新统计，
+ * 因此与重建并发的新消息既不会漏计也不会重复计入。
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+@Service
+public class UnreadCounterServiceImpl implements UnreadCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounterServiceImpl.class);
+
+    // 重建版本按用户ID分段，同段用户的新消息只会让重建多统计一次，不影响正确性
+    private static final int GUARD_STRIPES = 64;
+
+    // 统计期间一直有新消息时的最大统计次数，超过后本次结果不放入缓存
+    static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final MessageMapper messageMapper;
+
+    private final WebSocketSessionService sessionService;
+
+    private final ReadWatermarkService readWatermarkService;
+
+    // 用户未读计数 - userId -> 计数
+    private final Map<Long, UserUnread> countersByUser = new ConcurrentHashMap<>();
+
+    private final RebuildGuard[] rebuildGuards = new RebuildGuard[GUARD_STRIPES];
+
+    /**
+     * 计数变化后的快照
+     */
+    private record Snapshot(int delta, int conversationUnread, int totalUnread) {
+    }
+
+    /**
+     * 单个用户的未读计数（总数与按发送方的分项在同一把锁下更新，保证推送的两个值一致）
+     */
+    private static final class UserUnread {
+
+        private final Map<Long, Integer> bySender = new HashMap<>();
+        private int total;
+
+        synchronized Snapshot add(Long fromUserId, int delta) {
+            int before = bySender.getOrDefault(fromUserId, 0);
+            int after = Math.max(0, before + delta);
+            if (after == 0) {
+                bySender.remove(fromUserId);
+            } else {
+                bySender.put(fromUserId, after);
+            }
+            total += after - before;
+            return new Snapshot(after - before, after, total);
+        }
+
+        synchronized Snapshot set(Long fromUserId, int count) {
+            return add(fromUserId, count - bySender.getOrDefault(fromUserId, 0));
+        }
+
+        synchronized Snapshot clear(Long fromUserId) {
+            Integer removed = bySender.remove(fromUserId);
+            int delta = removed != null ? -removed : 0;
+            total += delta;
+            return new Snapshot(delta, 0, total);
+        }
+
+        synchronized Snapshot get(Long fromUserId) {
+            return new Snapshot(0, bySender.getOrDefault(fromUserId, 0), total);
+        }
+    }
+
+    /**
+     * 新消息与计数重建之间的版本控制：消息登记（事务内）和计入（提交后）都推进版本，
+     * 重建只在统计前后版本相同且没有未完成的消息时放入缓存
+     */
+    private static final class RebuildGuard {
+
+        private long version;
+        private int pending;
+
+        synchronized void begin() {
+            pending++;
+            version++;
+        }
+
+        synchronized void finish() {
+            pending--;
+            version++;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized boolean unchangedSince(long seen) {
+            return pending == 0 && version == seen;
+        }
+    }
+
+    @Autowired
+    public UnreadCounterServiceImpl(MessageMapper messageMapper, WebSocketSessionService sessionService,
+                                    ReadWatermarkService readWatermarkService) {
+        this.messageMapper = messageMapper;
+        this.sessionService = sessionService;
+        this.readWatermarkService = readWatermarkService;
+        for (int i = 0; i < GUARD_STRIPES; i++) {
+            rebuildGuards[i] = new RebuildGuard();
+        }
+    }
+
+    @Override
+    public int getTotalUnread(Long userId) {
+        return load(userId).get(null).totalUnread();
+    }
+
+    @Override
+    public int getUnreadFrom(Long userId, Long fromUserId) {
+        return load(userId).get(fromUserId).conversationUnread();
+    }
+
+    @Override
+    public void onMessageReceived(Long userId, Long fromUserId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            UserUnread counters = countersByUser.get(userId);
+            if (counters != null) {
+                push(userId, fromUserId, counters.add(fromUserId, 1));
+            } else {
+                loadAfterReceived(userId, fromUserId);
+            }
+            return;
+        }
+
+        RebuildGuard guard = guardOf(userId);
+        guard.begin();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                UserUnread counters = null;
+                try {
+                    // 在结束登记之前计入：已缓存的计数不会包含仍在登记中的消息
+                    counters = committed ? countersByUser.get(userId) : null;
+                    if (counters != null) {
+                        push(userId, fromUserId, counters.add(fromUserId, 1));
+                    }
+                } finally {
+                    guard.finish();
+                }
+                if (committed && counters == null) {
+                    loadAfterReceived(userId, fromUserId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 计数未加载时重建，统计结果已包含这条已提交的消息
+     */
+    private void loadAfterReceived(Long userId, Long fromUserId) {
+        if (!sessionService.isUserOnline(userId)) {
+            return;
+        }
+        Snapshot snapshot = load(userId).get(fromUserId);
+        push(userId, fromUserId, new Snapshot(1, snapshot.conversationUnread(), snapshot.totalUnread()));
+    }
+
+    @Override
+    public void refreshConversation(Long userId, Long fromUserId) {
+        UserUnread counters = countersByUser.get(userId);
+        if (counters == null) {
+            if (sessionService.isUserOnline(userId)) {
+                // 重建前会先写入该用户的水位，统计结果已反映这次变化
+                Snapshot snapshot = load(userId).get(fromUserId);
+                push(userId, fromUserId, snapshot);
+            }
+            return;
+        }
+        // 该会话已无未读时不必重新统计（如重复或过期的已读回执）
+        if (counters.get(fromUserId).conversationUnread() == 0) {
+            return;
+        }
+        long watermark = readWatermarkService.getLastReadMessageId(userId, Conversation.TYPE_PRIVATE, fromUserId);
+        int remaining = messageMapper.countUnreadAfter(Message.privateConversationKey(userId, fromUserId), userId, watermark);
+        Snapshot snapshot = counters.set(fromUserId, remaining);
+        if (snapshot.delta() != 0) {
+            push(userId, fromUserId, snapshot);
+        }
+    }
+
+    @Override
+    public void onConversationCleared(Long userId, Long fromUserId) {
+        UserUnread counters = countersByUser.get(userId);
+        if (counters != null) {
+            Snapshot snapshot = counters.clear(fromUserId);
+            if (snapshot.delta() != 0) {
+                push(userId, fromUserId, snapshot);
+            }
+        }
+    }
+
+    @Override
+    public void evict(Long userId) {
+        countersByUser.remove(userId);
+    }
+
+    /**
+     * 获取用户计数，未命中时按已读水位用一次分组统计重建，只有在线用户的计数放入缓存。
+     * 统计在缓存映射之外进行，统计期间有新消息时重新统计，多次仍有新消息时返回最后一次结果但不放入缓存
+     */
+    private UserUnread load(Long userId) {
+        UserUnread counters = countersByUser.get(userId);
+        if (counters != null) {
+            return counters;
+        }
+        if (!sessionService.isUserOnline(userId)) {
+            return rebuild(userId);
+        }
+
+        RebuildGuard guard = guardOf(userId);
+        UserUnread rebuilt = null;
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            long seen = guard.version();
+            rebuilt = rebuild(userId);
+            synchronized (guard) {
+                if (guard.unchangedSince(seen)) {
+                    UserUnread existing = countersByUser.putIfAbsent(userId, rebuilt);
+                    return existing != null ? existing : rebuilt;
+                }
+            }
+            counters = countersByUser.get(userId);
+            if (counters != null) {
+                return counters;
+            }
+        }
+        logger.debug("重建未读计数期间持续有新消息，本次结果不缓存: userId={}", userId);
+        return rebuilt;
+    }
+
+    private RebuildGuard guardOf(Long userId) {
+        return rebuildGuards[Math.floorMod(userId.hashCode(), GUARD_STRIPES)];
+    }
+
+    private UserUnread rebuild(Long userId) {
+        // 分组统计按数据库中的水位计算，先写入内存中尚未写入的水位
+        readWatermarkService.flushUser(userId);
+        UserUnread counters = new UserUnread();
+        List<Map<String, Object>> rows = messageMapper.countUnreadMessagesGroupBySender(userId);
+        for (Map<String, Object> row : rows) {
+            Long fromUserId = ((Number) row.get("from_user_id")).longValue();
+            int count = ((Number) row.get("unread_count")).intValue();
+            counters.add(fromUserId, count);
+        }
+        logger.debug("重建用户未读计数: userId={}, senders={}", userId, rows.size());
+        return counters;
+    }
+
+    /**
+     * 推送未读数变化事件到用户的所有在线会话
+     */
+    private void push(Long userId, Long fromUserId, Snapshot snapshot) {
+        if (!sessionService.isUserOnline(userId)) {
+            return;
+        }
+
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "unread_update");
+        event.put("fromUserId", fromUserId);
+        event.put("delta", snapshot.delta());
+        event.put("unreadCount", snapshot.conversationUnread());
+        event.put("totalUnread", snapshot.totalUnread());
+        event.put("timestamp", System.currentTimeMillis());
+
+        sessionService.sendToUser(userId, event);
+    }
+}
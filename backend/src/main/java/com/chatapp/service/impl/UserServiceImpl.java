@@ -1,24 +1,41 @@
 package com.chatapp.service.impl;
 
+import com.chatapp.dto.UserSummaryDTO;
 import com.chatapp.entity.User;
 import com.chatapp.mapper.UserMapper;
+import com.chatapp.service.AvatarService;
 import com.chatapp.service.UserService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import java.util.Optional;
 
 /**
  * 用户服务实现类
+ *
+ * 用户摘要（ID、用户名、昵称、头像URL、状态）缓存在有界的内存缓存中，
+ * 按用户名解析当前用户等高频查询不访问数据库；用户信息变更时使对应条目失效
  * 
  * @author ChatApp
  * @since 1.0.0
@@ -26,11 +43,38 @@ import java.util.Optional;
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    /**
+     * 批量查询用户时每条SQL的IN列表最大长度
+     */
+    private static final int USER_ID_BATCH_SIZE = 500;
+
     private final UserMapper userMapper;
 
+    private final AvatarService avatarService;
+
+    @Value("${user.principal-cache.max-users:10000}")
+    private int principalCacheMaxUsers;
+
+    // 用户摘要 - userId -> 摘要（共享实例，调用方不应修改）
+    private LruLoadingCache<Long, UserSummaryDTO> summaryCache;
+
+    // 用户名 -> userId（用户名不可修改）
+    private LruLoadingCache<String, Long> usernameCache;
+
     @Autowired
-    public UserServiceImpl(UserMapper userMapper) {
+    public UserServiceImpl(UserMapper userMapper, AvatarService avatarService) {
         this.userMapper = userMapper;
+        this.avatarService = avatarService;
+    }
+
+    @PostConstruct
+    public void initPrincipalCache() {
+        summaryCache = new LruLoadingCache<>(principalCacheMaxUsers,
+                id -> userMapper.findSummaryById(id).orElse(null), null);
+        usernameCache = new LruLoadingCache<>(principalCacheMaxUsers,
+                username -> userMapper.findSummaryByUsername(username).map(UserSummaryDTO::getId).orElse(null), null);
     }
 
 
@@ -54,6 +98,56 @@ public class UserServiceImpl implements UserService {
         return userMapper.findById(id);
     }
 
+    @Override
+    public Map<Long, User> findByIds(Collection<Long> ids) {
+        Map<Long, User> users = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return users;
+        }
+
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        for (int from = 0; from < distinctIds.size(); from += USER_ID_BATCH_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + USER_ID_BATCH_SIZE, distinctIds.size()));
+            for (User user : userMapper.findByIds(chunk)) {
+                users.put(user.getId(), user);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public Optional<UserSummaryDTO> findSummaryById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(summaryCache.get(id));
+    }
+
+    @Override
+    public Optional<UserSummaryDTO> findSummaryByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        Long id = usernameCache.get(username);
+        return id != null ? findSummaryById(id) : Optional.empty();
+    }
+
+    @Override
+    public Map<String, Object> getPrincipalCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("summaries", summaryCache.snapshot());
+        stats.put("usernames", usernameCache.snapshot());
+        return stats;
+    }
+
+    @Override
+    public Optional<User> findAvatarById(Long userId) {
+        return userMapper.findAvatarById(userId);
+    }
+
     @Override
     @Transactional
     public User createUser(User user) {
@@ -67,6 +161,10 @@ public class UserServiceImpl implements UserService {
         // 设置更新时间
         user.setUpdateTime(LocalDateTime.now());
         userMapper.update(user);
+        invalidateSummary(user.getId(), null);
+        if (user.getAvatarData() != null) {
+            avatarService.invalidateUser(user.getId());
+        }
         return user;
     }
 
@@ -123,24 +221,23 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public boolean deleteUser(Long userId) {
-        return userMapper.deleteById(userId) > 0;
+        String username = findSummaryById(userId).map(UserSummaryDTO::getUsername).orElse(null);
+        boolean deleted = userMapper.deleteById(userId) > 0;
+        invalidateSummary(userId, username);
+        avatarService.invalidateUser(userId);
+        return deleted;
     }
 
     @Override
     @Transactional
     public String uploadAvatar(String username, MultipartFile file) {
         try {
-            System.out.println("=== UserService.uploadAvatar 开始 (数据库存储模式) ===");
-            System.out.println("用户名: " + username);
-            
             // 1. 查找用户
             User user = findByUsername(username)
                     .orElseThrow(() -> new RuntimeException("用户不存在"));
-            System.out.println("用户查找成功，ID: " + user.getId());
             
             // 2. 验证文件
             String originalFilename = file.getOriginalFilename();
-            System.out.println("原始文件名: " + originalFilename);
             
             if (originalFilename == null || originalFilename.trim().isEmpty()) {
                 throw new RuntimeException("文件名为空");
@@ -151,36 +248,55 @@ public class UserServiceImpl implements UserService {
             if (contentType == null || !contentType.startsWith("image/")) {
                 contentType = "image/jpeg"; // 默认类型
             }
-            System.out.println("文件类型: " + contentType);
-            System.out.println("文件大小: " + file.getSize() + " bytes");
             
             // 4. 读取文件二进制数据
             byte[] avatarData = file.getBytes();
-            System.out.println("读取二进制数据成功，大小: " + avatarData.length + " bytes");
             
-            // 5. 更新用户头像数据
+            // 5. 更新用户头像数据，avatar 保存带内容版本号的访问 URL
+            String avatarUrl = avatarService.userAvatarUrl(user.getId(), avatarData);
             user.setAvatarData(avatarData);
             user.setAvatarContentType(contentType);
-            user.setAvatar("avatar_" + user.getId()); // 作为标识符
+            user.setAvatar(avatarUrl);
             
             userMapper.update(user);
-            System.out.println("用户头像数据更新成功");
+            invalidateSummary(user.getId(), null);
+            avatarService.invalidateUser(user.getId());
+            logger.info("用户头像更新成功: userId={}, contentType={}, size={}, url={}",
+                    user.getId(), contentType, avatarData.length, avatarUrl);
             
             // 6. 返回头像访问 URL
-            String avatarUrl = "/api/user/avatar/" + user.getId();
-            System.out.println("生成的头像URL: " + avatarUrl);
-            
-            System.out.println("=== UserService.uploadAvatar 结束 ===");
             return avatarUrl;
             
         } catch (IOException e) {
-            System.err.println("IO异常: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("读取头像文件失败: username={}", username, e);
             throw new RuntimeException("头像上传失败: " + e.getMessage());
         } catch (Exception e) {
-            System.err.println("其他异常: " + e.getClass().getSimpleName() + " - " + e.getMessage());
-            e.printStackTrace();
+            logger.error("头像上传失败: username={}", username, e);
             throw new RuntimeException("头像上传失败: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 使用户摘要失效：立即失效一次，事务结束（提交或回滚）后再失效一次，
+     * 防止事务期间加载的旧摘要留在缓存中
+     */
+    private void invalidateSummary(Long userId, String username) {
+        Runnable invalidation = () -> {
+            if (userId != null) {
+                summaryCache.invalidate(userId);
+            }
+            if (username != null) {
+                usernameCache.invalidate(username);
+            }
+        };
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
@@ -3,24 +3,42 @@ package com.chatapp.service.impl;
 import com.chatapp.entity.UserSession;
 import com.chatapp.mapper.UserSessionMapper;
 import com.chatapp.service.WebSocketSessionService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.TextMessage;
+import jakarta.websocket.Session;
+import org.springframework.web.socket.WebSocketMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * WebSocket会话管理服务实现类
  * 
+ * 在线状态以内存中的会话注册表为准，isUserOnline/getOnlineUserIds不访问数据库；
+ * user_sessions表仅作为审计日志，由单线程异步写入（write-behind）。
+ * 单节点部署下会话不会跨进程存活，因此启动时先将上次进程遗留的在线记录置为离线，
+ * 注册表随客户端重连逐步重建（见 {@link #rebuildPresenceRegistry()}）。
+ * 
  * @author ChatApp
  * @since 1.0.0
  */
@@ -28,16 +46,22 @@ import java.util.stream.Collectors;
 public class WebSocketSessionServiceImpl implements WebSocketSessionService {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketSessionServiceImpl.class);
-    private static final ObjectMapper objectMapper = createObjectMapper();
 
     /**
-     * 创建并配置ObjectMapper，支持Java 8日期时间类型
+     * 可丢弃的消息类型，出站队列满时优先淘汰这类消息，聊天消息不会被淘汰
      */
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        return mapper;
-    }
+    private static final Set<String> DROPPABLE_MESSAGE_TYPES = Set.of(
+            "typing", "online_users", "heartbeat", "presence", "unread_update");
+
+    /**
+     * 心跳批量写入时每条UPDATE包含的最大行数
+     */
+    private static final int HEARTBEAT_FLUSH_BATCH_SIZE = 500;
+
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    // Tomcat读取的会话属性，值为Long（毫秒）
+    private static final String BLOCKING_SEND_TIMEOUT_PROPERTY = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
 
     // 内存中的会话管理 - sessionId -> WebSocketSession
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
@@ -45,9 +69,124 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
     // 用户ID到会话ID的映射 - userId -> Set<sessionId>
     private final Map<Long, Set<String>> userSessions = new ConcurrentHashMap<>();
 
+    // 会话ID到出站队列的映射 - sessionId -> SessionOutboundQueue
+    private final Map<String, SessionOutboundQueue> outboundQueues = new ConcurrentHashMap<>();
+
+    // 待写入的心跳 - sessionId -> 最后心跳时间，同一会话多次心跳只保留最新一次
+    private final Map<String, LocalDateTime> pendingHeartbeats = new ConcurrentHashMap<>();
+
+    // 心跳统计
+    private final AtomicLong heartbeatsReceived = new AtomicLong();
+    private final AtomicLong heartbeatRowsFlushed = new AtomicLong();
+    private final AtomicLong heartbeatFlushCount = new AtomicLong();
+
+    @Value("${websocket.outbound.queue-capacity:256}")
+    private int outboundQueueCapacity;
+
+    @Value("${websocket.outbound.writer-threads:0}")
+    private int writerThreads;
+
+    @Value("${websocket.outbound.send-timeout-ms:3000}")
+    private long sendTimeoutMillis;
+
+    @Value("${websocket.outbound.batching.enabled:true}")
+    private boolean batchingEnabled;
+
+    @Value("${websocket.outbound.batching.flush-window-ms:5}")
+    private long batchFlushWindowMillis;
+
+    @Value("${websocket.outbound.batching.max-batch-size:32}")
+    private int batchMaxSize;
+
+    @Value("${websocket.compression.metrics.sample-every:50}")
+    private int compressionSampleEvery;
+
+    @Value("${websocket.compression.metrics.small-message-bytes:256}")
+    private int compressionSmallMessageBytes;
+
+    private CompressionMetrics compressionMetrics;
+
+    private ExecutorService writerExecutor;
+
+    // 批量模式会话的合并窗口定时器，到期后把写出任务交给写线程池
+    private ScheduledExecutorService batchFlushTimer;
+
+    // user_sessions审计日志写入线程，单线程保证同一会话的插入与离线更新按序执行
+    private ExecutorService auditExecutor;
+
     @Autowired
     private UserSessionMapper userSessionMapper;
 
+    @PostConstruct
+    public void initWriterExecutor() {
+        int threads = writerThreads > 0 ? writerThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        writerExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ws-writer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("WebSocket出站写线程池已启动: threads={}, queueCapacity={}", threads, outboundQueueCapacity);
+
+        compressionMetrics = new CompressionMetrics(compressionSampleEvery, compressionSmallMessageBytes);
+
+        if (batchingEnabled) {
+            batchFlushTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ws-batch-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // CBOR数组头最多支持65535个元素
+            batchMaxSize = Math.min(Math.max(batchMaxSize, 1), 65535);
+            logger.info("WebSocket出站批量模式可用: flushWindowMs={}, maxBatchSize={}",
+                    batchFlushWindowMillis, batchMaxSize);
+        }
+
+        auditExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-session-audit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdownWriterExecutor() {
+        flushHeartbeats();
+        if (batchFlushTimer != null) {
+            batchFlushTimer.shutdownNow();
+        }
+        shutdownExecutor(writerExecutor);
+        shutdownExecutor(auditExecutor);
+    }
+
+    private void shutdownExecutor(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 启动时重建在线状态注册表
+     * 
+     * 上次进程持有的WebSocket连接已全部断开，数据库中status=1的记录均已失效，
+     * 统一置为离线；内存注册表从空开始，由客户端重连时的registerSession填充
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildPresenceRegistry() {
+        try {
+            int staleCount = userSessionMapper.setAllOffline();
+            logger.info("在线状态注册表已重置: 遗留在线会话{}个已置为离线", staleCount);
+        } catch (Exception e) {
+            logger.error("重置遗留会话记录失败", e);
+        }
+    }
+
     @Override
     public void registerSession(Long userId, WebSocketSession session) {
         String sessionId = session.getId();
@@ -55,13 +194,18 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
         try {
             // 存储到内存
             sessions.put(sessionId, session);
-            userSessions.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(sessionId);
+            outboundQueues.put(sessionId, createOutboundQueue(session));
+            userSessions.compute(userId, (key, sessionIds) -> {
+                Set<String> result = sessionIds != null ? sessionIds : ConcurrentHashMap.newKeySet();
+                result.add(sessionId);
+                return result;
+            });
             
-            // 存储到数据库
+            // 异步写入审计日志
             UserSession userSession = new UserSession(userId, sessionId);
             userSession.setIpAddress(getClientIpAddress(session));
             userSession.setClientInfo(getUserAgent(session));
-            userSessionMapper.insert(userSession);
+            writeAudit(() -> userSessionMapper.insert(userSession), "记录会话连接", sessionId);
             
             // 设置会话属性
             session.getAttributes().put("userId", userId);
@@ -78,20 +222,16 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
     public void removeSession(String sessionId) {
         try {
             WebSocketSession session = sessions.remove(sessionId);
+            SessionOutboundQueue outboundQueue = outboundQueues.remove(sessionId);
+            if (outboundQueue != null) {
+                outboundQueue.close();
+            }
             if (session != null) {
                 Long userId = (Long) session.getAttributes().get("userId");
-                if (userId != null) {
-                    Set<String> userSessionSet = userSessions.get(userId);
-                    if (userSessionSet != null) {
-                        userSessionSet.remove(sessionId);
-                        if (userSessionSet.isEmpty()) {
-                            userSessions.remove(userId);
-                        }
-                    }
-                }
+                unregisterUserSession(userId, sessionId);
                 
-                // 更新数据库状态
-                userSessionMapper.setOffline(sessionId);
+                // 异步更新审计日志
+                writeAudit(() -> userSessionMapper.setOffline(sessionId), "记录会话断开", sessionId);
                 
                 logger.info("移除WebSocket会话: sessionId={}, userId={}", sessionId, userId);
             }
@@ -121,36 +261,87 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
 
     @Override
     public void updateHeartbeat(String sessionId) {
-        try {
-            userSessionMapper.updateHeartbeat(sessionId, LocalDateTime.now());
-        } catch (Exception e) {
-            logger.error("更新心跳失败: sessionId={}", sessionId, e);
+        heartbeatsReceived.incrementAndGet();
+        pendingHeartbeats.put(sessionId, LocalDateTime.now());
+    }
+
+    @Override
+    public void flushHeartbeats() {
+        if (pendingHeartbeats.isEmpty()) {
+            return;
+        }
+        
+        // 取出当前累积的心跳，刷新期间新到达的心跳留到下一轮
+        List<UserSession> batch = new ArrayList<>(pendingHeartbeats.size());
+        for (Map.Entry<String, LocalDateTime> entry : pendingHeartbeats.entrySet()) {
+            if (pendingHeartbeats.remove(entry.getKey(), entry.getValue())) {
+                UserSession heartbeat = new UserSession();
+                heartbeat.setSessionId(entry.getKey());
+                heartbeat.setLastHeartbeat(entry.getValue());
+                batch.add(heartbeat);
+            }
         }
+        
+        int updated = 0;
+        int flushed = 0;
+        for (int from = 0; from < batch.size(); from += HEARTBEAT_FLUSH_BATCH_SIZE) {
+            List<UserSession> chunk = batch.subList(from, Math.min(from + HEARTBEAT_FLUSH_BATCH_SIZE, batch.size()));
+            try {
+                updated += userSessionMapper.batchUpdateHeartbeat(chunk);
+                heartbeatFlushCount.incrementAndGet();
+                // 只统计写入成功的批次
+                flushed += chunk.size();
+                heartbeatRowsFlushed.addAndGet(chunk.size());
+            } catch (Exception e) {
+                logger.error("批量更新心跳失败: sessions={}", chunk.size(), e);
+            }
+        }
+        logger.debug("心跳批量写入完成: sessions={}, flushed={}, updated={}", batch.size(), flushed, updated);
+    }
+
+    @Override
+    public Map<String, Object> getCompressionStats() {
+        return compressionMetrics.snapshot();
+    }
+
+    @Override
+    public Map<String, Object> getHeartbeatStats() {
+        long received = heartbeatsReceived.get();
+        long flushed = heartbeatRowsFlushed.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("received", received);
+        stats.put("rowsFlushed", flushed);
+        stats.put("flushStatements", heartbeatFlushCount.get());
+        stats.put("pending", pendingHeartbeats.size());
+        // 合并比例：平均每写入一行对应的心跳次数
+        stats.put("coalescingRatio", flushed > 0 ? (double) received / flushed : 0.0);
+        return stats;
     }
 
     @Override
     public boolean isUserOnline(Long userId) {
-        // 先检查内存中的会话
+        // 仅以内存注册表为准，不访问数据库
         Set<String> sessionIds = userSessions.get(userId);
-        if (sessionIds != null && !sessionIds.isEmpty()) {
-            boolean hasActiveSession = sessionIds.stream()
-                    .map(sessions::get)
-                    .anyMatch(session -> session != null && session.isOpen());
-            if (hasActiveSession) {
+        if (sessionIds == null) {
+            return false;
+        }
+        for (String sessionId : sessionIds) {
+            WebSocketSession session = sessions.get(sessionId);
+            if (session != null && session.isOpen()) {
                 return true;
             }
         }
-        
-        // 检查数据库中的会话状态
-        return userSessionMapper.isUserOnline(userId);
+        return false;
     }
 
     @Override
     public Set<Long> getOnlineUserIds() {
-        // 合并内存和数据库中的在线用户
-        Set<Long> onlineUsers = new HashSet<>(userSessions.keySet());
-        List<Long> dbOnlineUsers = userSessionMapper.getOnlineUserIds();
-        onlineUsers.addAll(dbOnlineUsers);
+        Set<Long> onlineUsers = new HashSet<>();
+        for (Long userId : userSessions.keySet()) {
+            if (isUserOnline(userId)) {
+                onlineUsers.add(userId);
+            }
+        }
         return onlineUsers;
     }
 
@@ -176,16 +367,13 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
                 if (!session.isOpen()) {
                     iterator.remove();
                     String sessionId = entry.getKey();
-                    Long userId = (Long) session.getAttributes().get("userId");
-                    if (userId != null) {
-                        Set<String> userSessionSet = userSessions.get(userId);
-                        if (userSessionSet != null) {
-                            userSessionSet.remove(sessionId);
-                            if (userSessionSet.isEmpty()) {
-                                userSessions.remove(userId);
-                            }
-                        }
+                    SessionOutboundQueue outboundQueue = outboundQueues.remove(sessionId);
+                    if (outboundQueue != null) {
+                        outboundQueue.close();
                     }
+                    Long userId = (Long) session.getAttributes().get("userId");
+                    unregisterUserSession(userId, sessionId);
+                    writeAudit(() -> userSessionMapper.setOffline(sessionId), "记录会话断开", sessionId);
                     memoryCleanedCount++;
                 }
             }
@@ -200,47 +388,91 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
 
     @Override
     public void sendToUser(Long userId, Object message) {
+        sendToUser(userId, message, null);
+    }
+
+    @Override
+    public void sendToUser(Long userId, Object message, Runnable onDelivered) {
         List<WebSocketSession> userSessions = getSessionsByUserId(userId);
         if (userSessions.isEmpty()) {
             logger.debug("用户 {} 不在线，无法发送消息", userId);
             return;
         }
         
-        String messageJson = convertToJson(message);
-        if (messageJson == null) {
-            return;
-        }
-        
+        FrameCodec.Encoded encoded = new FrameCodec.Encoded(message);
+        SessionOutboundQueue.OverflowPolicy policy = resolveOverflowPolicy(message);
         for (WebSocketSession session : userSessions) {
-            sendToSession(session, messageJson);
+            sendToSession(session, encoded, policy, onDelivered);
         }
     }
 
     @Override
     public void sendToUsers(List<Long> userIds, Object message) {
-        String messageJson = convertToJson(message);
-        if (messageJson == null) {
-            return;
-        }
-        
+        FrameCodec.Encoded encoded = new FrameCodec.Encoded(message);
+        SessionOutboundQueue.OverflowPolicy policy = resolveOverflowPolicy(message);
         for (Long userId : userIds) {
             List<WebSocketSession> userSessions = getSessionsByUserId(userId);
             for (WebSocketSession session : userSessions) {
-                sendToSession(session, messageJson);
+                sendToSession(session, encoded, policy, null);
             }
         }
     }
 
     @Override
-    public void broadcastToAll(Object message) {
-        String messageJson = convertToJson(message);
-        if (messageJson == null) {
-            return;
+    public List<Long> broadcastToUsers(Collection<Long> userIds, Object message) {
+        return broadcastToUsers(userIds, message, null);
+    }
+
+    @Override
+    public List<Long> broadcastToUsers(Collection<Long> userIds, Object message, Consumer<Long> onDelivered) {
+        List<Long> offlineUserIds = new ArrayList<>();
+        List<WebSocketSession> targets = new ArrayList<>(userIds.size());
+        
+        // 一次遍历解析所有成员的在线会话
+        for (Long userId : userIds) {
+            Set<String> sessionIds = userSessions.get(userId);
+            boolean online = false;
+            if (sessionIds != null) {
+                for (String sessionId : sessionIds) {
+                    WebSocketSession session = sessions.get(sessionId);
+                    if (session != null && session.isOpen()) {
+                        targets.add(session);
+                        online = true;
+                    }
+                }
+            }
+            if (!online) {
+                offlineUserIds.add(userId);
+            }
+        }
+        
+        if (targets.isEmpty()) {
+            return offlineUserIds;
         }
         
+        FrameCodec.Encoded encoded = new FrameCodec.Encoded(message);
+        SessionOutboundQueue.OverflowPolicy policy = resolveOverflowPolicy(message);
+        for (WebSocketSession session : targets) {
+            Runnable onSent = null;
+            if (onDelivered != null) {
+                Long targetUserId = (Long) session.getAttributes().get("userId");
+                onSent = () -> onDelivered.accept(targetUserId);
+            }
+            sendToSession(session, encoded, policy, onSent);
+        }
+        
+        logger.debug("群组广播完成: 目标用户{}个, 在线会话{}个, 离线用户{}个", 
+                    userIds.size(), targets.size(), offlineUserIds.size());
+        return offlineUserIds;
+    }
+
+    @Override
+    public void broadcastToAll(Object message) {
+        FrameCodec.Encoded encoded = new FrameCodec.Encoded(message);
+        SessionOutboundQueue.OverflowPolicy policy = resolveOverflowPolicy(message);
         for (WebSocketSession session : sessions.values()) {
             if (session.isOpen()) {
-                sendToSession(session, messageJson);
+                sendToSession(session, encoded, policy, null);
             }
         }
     }
@@ -249,21 +481,43 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
     public void sendToSession(String sessionId, Object message) {
         WebSocketSession session = sessions.get(sessionId);
         if (session != null && session.isOpen()) {
-            String messageJson = convertToJson(message);
-            if (messageJson != null) {
-                sendToSession(session, messageJson);
-            }
+            sendToSession(session, new FrameCodec.Encoded(message), resolveOverflowPolicy(message), null);
         }
     }
 
+    @Override
+    public List<Map<String, Object>> getOutboundQueueStats() {
+        return outboundQueues.values().stream()
+                .map(SessionOutboundQueue::snapshot)
+                .sorted(Comparator.comparing((Map<String, Object> stats) -> (Integer) stats.get("queueDepth")).reversed())
+                .collect(Collectors.toList());
+    }
+
     /**
-     * 发送消息到指定会话
+     * 发送消息到指定会话，按会话协商的子协议编码
+     * 
+     * 已注册的会话通过出站队列异步写出，未注册的会话（如注册失败）退回同步发送
      */
-    private void sendToSession(WebSocketSession session, String message) {
+    private void sendToSession(WebSocketSession session, FrameCodec.Encoded encoded,
+                               SessionOutboundQueue.OverflowPolicy policy, Runnable onSent) {
+        WebSocketMessage<?> message = encoded.forSession(session);
+        if (message == null) {
+            return;
+        }
+
+        SessionOutboundQueue outboundQueue = outboundQueues.get(session.getId());
+        if (outboundQueue != null) {
+            outboundQueue.offer(message, policy, onSent);
+            return;
+        }
+
         try {
             synchronized (session) {
                 if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
+                    session.sendMessage(message);
+                    if (onSent != null) {
+                        onSent.run();
+                    }
                 }
             }
         } catch (IOException e) {
@@ -274,14 +528,70 @@ public class WebSocketSessionServiceImpl implements WebSocketSessionService {
     }
 
     /**
-     * 将对象转换为JSON字符串
+     * 创建会话出站队列：握手时请求了批量模式（batch=1）的会话按合并窗口批量写出，
+     * 协商了 permessage-deflate 的会话记录压缩统计
+     */
+    private SessionOutboundQueue createOutboundQueue(WebSocketSession session) {
+        applySendTimeout(session);
+        boolean batching = batchFlushTimer != null && Boolean.TRUE.equals(session.getAttributes().get("batching"));
+        boolean compressed = session.getExtensions().stream()
+                .anyMatch(extension -> PERMESSAGE_DEFLATE.equals(extension.getName()));
+        compressionMetrics.onSessionOpened(compressed);
+        return new SessionOutboundQueue(session, outboundQueueCapacity, writerExecutor, this::removeSession,
+                batchMaxSize, batchFlushWindowMillis, batching ? batchFlushTimer : null,
+                compressed ? compressionMetrics : null);
+    }
+
+    /**
+     * 设置容器的阻塞写出超时（Tomcat默认20秒）。写线程数与CPU核数相同，
+     * 停滞的客户端在超时后写出失败并被断开，不会长期占满写线程池
      */
-    private String convertToJson(Object message) {
+    private void applySendTimeout(WebSocketSession session) {
+        if (WebSocketSessionDecorator.unwrap(session) instanceof NativeWebSocketSession nativeSession) {
+            Session standardSession = nativeSession.getNativeSession(Session.class);
+            if (standardSession != null) {
+                standardSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT_PROPERTY, sendTimeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * 根据消息类型决定出站队列溢出策略
+     */
+    private SessionOutboundQueue.OverflowPolicy resolveOverflowPolicy(Object message) {
+        if (message instanceof Map<?, ?> map && DROPPABLE_MESSAGE_TYPES.contains(map.get("type"))) {
+            return SessionOutboundQueue.OverflowPolicy.DROP_OLDEST;
+        }
+        return SessionOutboundQueue.OverflowPolicy.DISCONNECT;
+    }
+
+    /**
+     * 从用户会话映射中移除会话，用户最后一个会话移除时原子地删除该用户
+     */
+    private void unregisterUserSession(Long userId, String sessionId) {
+        if (userId == null) {
+            return;
+        }
+        userSessions.computeIfPresent(userId, (key, sessionIds) -> {
+            sessionIds.remove(sessionId);
+            return sessionIds.isEmpty() ? null : sessionIds;
+        });
+    }
+
+    /**
+     * 异步写入会话审计日志，失败只记录日志，不影响在线状态
+     */
+    private void writeAudit(Runnable action, String description, String sessionId) {
         try {
-            return objectMapper.writeValueAsString(message);
+            auditExecutor.execute(() -> {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    logger.error("{}失败: sessionId={}", description, sessionId, e);
+                }
+            });
         } catch (Exception e) {
-            logger.error("转换消息为JSON失败", e);
-            return null;
+            logger.warn("审计日志写入被拒绝: {}, sessionId={}", description, sessionId);
         }
     }
 
@@ -31,6 +31,7 @@ CREATE TABLE IF NOT EXISTS messages (
     from_user_id BIGINT NOT NULL COMMENT '发送者ID',
     to_user_id BIGINT COMMENT '接收者ID（私聊消息）',
     group_id BIGINT COMMENT '群组ID（群聊消息）',
+    conversation_key VARCHAR(41) NULL COMMENT '私聊会话键（较小用户ID_较大用户ID），群聊为空',
     message_type INT DEFAULT 1 COMMENT '消息类型: 1-文本, 2-图片, 3-文件, 4-语音, 5-视频, 6-系统消息',
     content TEXT NOT NULL COMMENT '消息内容',
     file_url VARCHAR(500) COMMENT '文件URL（文件消息）',
@@ -51,7 +52,10 @@ CREATE TABLE IF NOT EXISTS messages (
     INDEX idx_status (STATUS),
     INDEX idx_send_time (send_time),
     INDEX idx_reply_to_id (reply_to_id),
-    INDEX idx_deleted (deleted)
+    INDEX idx_deleted (deleted),
+    INDEX idx_to_user_id_id (to_user_id, id),
+    INDEX idx_group_id_id (group_id, id),
+    INDEX idx_conversation_key_id (conversation_key, id)
 ) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息表';
 
 
@@ -84,7 +88,7 @@ CREATE TABLE IF NOT EXISTS conversations (
     conversation_type INT DEFAULT 1 COMMENT '会话类型: 1-私聊, 2-群聊',
     last_message_id BIGINT COMMENT '最后一条消息ID',
     last_message_time TIMESTAMP NULL COMMENT '最后消息时间',
-    unread_count INT DEFAULT 0 COMMENT '未读消息数',
+    unread_count INT DEFAULT 0 COMMENT '未读消息数（已废弃，未读数由 message_read_watermarks 推导）',
     is_top INT DEFAULT 0 COMMENT '是否置顶: 0-否, 1-是',
     is_mute INT DEFAULT 0 COMMENT '是否静音: 0-否, 1-是',
     create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
@@ -98,7 +102,8 @@ CREATE TABLE IF NOT EXISTS conversations (
     INDEX idx_last_message_time (last_message_time),
     INDEX idx_last_message_id (last_message_id),
     INDEX idx_is_top (is_top),
-    INDEX idx_deleted (deleted)
+    INDEX idx_deleted (deleted),
+    INDEX idx_user_list (user_id, deleted, last_message_time)
 ) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='会话表';
 ALTER TABLE users MODIFY COLUMN email VARCHAR(100) NULL;
 
@@ -145,6 +150,28 @@ CREATE TABLE IF NOT EXISTS message_push_records (
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息推送记录表';
 
+-- 创建消息同步游标表（每个用户每个会话一行，替代逐条推送记录）
+CREATE TABLE IF NOT EXISTS message_sync_cursors (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    conversation_type INT NOT NULL COMMENT '会话类型: 1-私聊收件箱, 2-群聊',
+    target_id BIGINT NOT NULL COMMENT '会话目标ID（私聊为0，群聊为群组ID）',
+    last_message_id BIGINT NOT NULL DEFAULT 0 COMMENT '已投递的最大消息ID',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+    PRIMARY KEY (user_id, conversation_type, target_id)
+) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息同步游标表';
+
+-- 创建已读水位表（每个用户每个会话一行，替代逐条更新消息已读状态）
+CREATE TABLE IF NOT EXISTS message_read_watermarks (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    conversation_type INT NOT NULL COMMENT '会话类型: 1-私聊, 2-群聊',
+    target_id BIGINT NOT NULL COMMENT '会话目标ID（私聊为对方用户ID，群聊为群组ID）',
+    last_read_message_id BIGINT NOT NULL DEFAULT 0 COMMENT '已读的最大消息ID',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+    PRIMARY KEY (user_id, conversation_type, target_id)
+) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='已读水位表';
+
 -- 创建群组表
 CREATE TABLE IF NOT EXISTS chat_groups (
     id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '群组ID',
@@ -171,6 +198,9 @@ CREATE TABLE IF NOT EXISTS chat_groups (
 ALTER TABLE chat_groups 
 ADD COLUMN group_avatar_data LONGBLOB COMMENT '群头像二进制' AFTER group_avatar,
 ADD COLUMN group_avatar_content_type VARCHAR(100) COMMENT '群头像类型' AFTER group_avatar_data;
+ALTER TABLE chat_groups
+ADD COLUMN last_message_id BIGINT NULL COMMENT '群内最后一条消息ID',
+ADD COLUMN last_message_time TIMESTAMP NULL COMMENT '群内最后消息时间';
 
 CREATE INDEX idx_group_members_mute_until ON group_members(group_id, user_id, mute_until);
 -- 创建群成员表
@@ -181,6 +211,7 @@ CREATE TABLE IF NOT EXISTS group_members (
     member_role INT DEFAULT 1 COMMENT '成员角色: 1-普通成员, 2-管理员, 3-群主',
     member_nickname VARCHAR(100) COMMENT '群内昵称',
     join_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '加入时间',
+    join_message_id BIGINT NULL COMMENT '入群时群内最后一条消息ID（之后的消息计入未读）',
     invite_user_id BIGINT COMMENT '邀请人ID',
     mute_until TIMESTAMP NULL COMMENT '禁言到期时间',
     status INT DEFAULT 1 COMMENT '成员状态: 0-已退出, 1-正常, 2-被踢出',
@@ -240,10 +271,28 @@ CREATE INDEX idx_group_members_group_status ON group_members(group_id, STATUS);
 CREATE TABLE IF NOT EXISTS images (
                                       id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '图片ID',
                                       content_type VARCHAR(100) NOT NULL COMMENT 'MIME类型',
-                                      data LONGBLOB NOT NULL COMMENT '二进制数据',
+                                      data LONGBLOB NULL COMMENT '二进制数据（内容保存在本地存储时为空）',
                                       size BIGINT NOT NULL COMMENT '大小(字节)',
-                                      create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+                                      content_hash CHAR(64) NULL COMMENT '内容SHA-256，非空表示内容保存在本地内容寻址存储',
+                                      width INT NULL COMMENT '原图宽度',
+                                      height INT NULL COMMENT '原图高度',
+                                      placeholder VARCHAR(2048) NULL COMMENT '内联占位图(data URI)',
+                                      create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+                                      INDEX idx_images_content_hash (content_hash)
 ) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='二进制图片表';
+
+CREATE TABLE IF NOT EXISTS image_thumbnails (
+                                      id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '缩略图ID',
+                                      image_id BIGINT NOT NULL COMMENT '原图ID',
+                                      max_edge INT NOT NULL COMMENT '规格：长边上限(像素)',
+                                      content_type VARCHAR(100) NOT NULL COMMENT 'MIME类型',
+                                      width INT NOT NULL COMMENT '宽度',
+                                      height INT NOT NULL COMMENT '高度',
+                                      size BIGINT NOT NULL COMMENT '大小(字节)',
+                                      content_hash CHAR(64) NOT NULL COMMENT '内容SHA-256（本地内容寻址存储）',
+                                      create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+                                      UNIQUE KEY uk_image_thumbnails_image_edge (image_id, max_edge)
+) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图片缩略图表';
 -- 1) 扩展 images 表，增加 original_name
 ALTER TABLE images
     ADD COLUMN original_name VARCHAR(255) NULL COMMENT '原始文件名' AFTER content_type;
@@ -0,0 +1,191 @@
+package com.chatapp.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.Context;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.socket.server.support.WebSocketHttpRequestHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * CompressionPolicyUpgradeStrategy 握手测试：在内嵌Tomcat上完成真实的升级握手，
+ * 检查响应中的 Sec-WebSocket-Extensions
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class CompressionPolicyUpgradeStrategyTest {
+
+    private Tomcat tomcat;
+
+    @AfterEach
+    void stop() throws Exception {
+        if (tomcat != null) {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    @Test
+    void compressionDisabledDoesNotNegotiateDeflate() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(false, true, false));
+
+        Map<String, String> response = handshake(port, "permessage-deflate");
+
+        assertEquals("101", response.get(":status"));
+        assertNull(response.get("sec-websocket-extensions"));
+    }
+
+    @Test
+    void serverNoContextTakeoverIsNegotiated() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(true, true, false));
+
+        Map<String, String> response = handshake(port, "permessage-deflate");
+
+        assertEquals("101", response.get(":status"));
+        assertEquals("permessage-deflate;server_no_context_takeover", response.get("sec-websocket-extensions"));
+    }
+
+    @Test
+    void bothNoContextTakeoverParametersAreNegotiated() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(true, true, true));
+
+        Map<String, String> response = handshake(port, "permessage-deflate");
+
+        assertEquals("permessage-deflate;server_no_context_takeover;client_no_context_takeover",
+                response.get("sec-websocket-extensions"));
+    }
+
+    @Test
+    void contextTakeoverKeptWhenNotConfigured() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(true, false, false));
+
+        Map<String, String> response = handshake(port, "permessage-deflate");
+
+        assertEquals("permessage-deflate", response.get("sec-websocket-extensions"));
+    }
+
+    @Test
+    void parameterAlreadyRequestedIsNotDuplicated() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(true, true, false));
+
+        Map<String, String> response = handshake(port, "permessage-deflate; server_no_context_takeover");
+
+        assertEquals("101", response.get(":status"));
+        assertEquals("permessage-deflate;server_no_context_takeover", response.get("sec-websocket-extensions"));
+    }
+
+    @Test
+    void onlyFirstDeflateOfferIsAccepted() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(true, true, false));
+
+        Map<String, String> response = handshake(port,
+                "permessage-deflate; client_no_context_takeover, permessage-deflate");
+
+        assertEquals("101", response.get(":status"));
+        assertEquals("permessage-deflate;server_no_context_takeover;client_no_context_takeover",
+                response.get("sec-websocket-extensions"));
+    }
+
+    @Test
+    void noExtensionWithoutClientRequest() throws Exception {
+        int port = start(new CompressionPolicyUpgradeStrategy(true, true, true));
+
+        Map<String, String> response = handshake(port, null);
+
+        assertEquals("101", response.get(":status"));
+        assertNull(response.get("sec-websocket-extensions"));
+    }
+
+    private int start(CompressionPolicyUpgradeStrategy strategy) throws Exception {
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("ws-handshake").toString());
+        Connector connector = new Connector();
+        connector.setPort(0);
+        tomcat.setConnector(connector);
+
+        Context context = tomcat.addContext("", null);
+        context.addServletContainerInitializer(new WsSci(), null);
+        WebSocketHttpRequestHandler handler = new WebSocketHttpRequestHandler(
+                new TextWebSocketHandler(), new DefaultHandshakeHandler(strategy));
+        Tomcat.addServlet(context, "ws", new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                try {
+                    handler.handleRequest(request, response);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        context.addServletMappingDecoded("/ws", "ws");
+
+        tomcat.start();
+        return connector.getLocalPort();
+    }
+
+    /**
+     * 发送升级请求，返回响应头（名称小写，状态码放在 ":status"）
+     */
+    private static Map<String, String> handshake(int port, String extensions) throws Exception {
+        StringBuilder request = new StringBuilder()
+                .append("GET /ws HTTP/1.1\r\n")
+                .append("Host: localhost:").append(port).append("\r\n")
+                .append("Upgrade: websocket\r\n")
+                .append("Connection: Upgrade\r\n")
+                .append("Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n")
+                .append("Sec-WebSocket-Version: 13\r\n");
+        if (extensions != null) {
+            request.append("Sec-WebSocket-Extensions: ").append(extensions).append("\r\n");
+        }
+        request.append("\r\n");
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            InputStream in = socket.getInputStream();
+            ByteArrayOutputStream head = new ByteArrayOutputStream();
+            int matched = 0;
+            while (matched < 4) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                head.write(b);
+                matched = (b == '\r' || b == '\n') && (matched % 2 == 0) == (b == '\r') ? matched + 1 : (b == '\r' ? 1 : 0);
+            }
+
+            String[] lines = head.toString(StandardCharsets.US_ASCII).split("\r\n");
+            Map<String, String> headers = new HashMap<>();
+            headers.put(":status", lines[0].split(" ")[1]);
+            for (int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if (colon > 0) {
+                    headers.put(lines[i].substring(0, colon).trim().toLowerCase(), lines[i].substring(colon + 1).trim());
+                }
+            }
+            return headers;
+        }
+    }
+}
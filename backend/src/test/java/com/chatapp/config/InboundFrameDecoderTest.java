@@ -0,0 +1,167 @@
+package com.chatapp.config;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * InboundFrameDecoder 单元测试
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class InboundFrameDecoderTest {
+
+    @Test
+    void decodesPrivateFrame() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode(
+                "{\"type\":\"private\",\"toUserId\":10086,\"content\":\"你好\",\"messageType\":2}");
+
+        assertEquals(new InboundFrame.PrivateFrame(10086L, "你好", 2), frame);
+    }
+
+    @Test
+    void decodesGroupFrame() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode(
+                "{\"type\":\"group\",\"groupId\":42,\"content\":\"大家好\",\"messageType\":1}");
+
+        assertEquals(new InboundFrame.GroupFrame(42L, "大家好", 1), frame);
+    }
+
+    @Test
+    void decodesTypingFrame() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode("{\"type\":\"typing\",\"toUserId\":7,\"isTyping\":true}");
+
+        assertEquals(new InboundFrame.TypingFrame(7L, true), frame);
+    }
+
+    @Test
+    void typingDefaultsToFalse() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode("{\"type\":\"typing\",\"toUserId\":7}");
+
+        assertEquals(new InboundFrame.TypingFrame(7L, false), frame);
+    }
+
+    @Test
+    void decodesReadReceiptFrame() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode("{\"type\":\"read_receipt\",\"messageId\":123456789}");
+
+        assertEquals(new InboundFrame.ReadReceiptFrame(123456789L), frame);
+    }
+
+    @Test
+    void decodesSingletonFrames() throws Exception {
+        assertSame(InboundFrame.HeartbeatFrame.INSTANCE, InboundFrameDecoder.decode("{\"type\":\"heartbeat\"}"));
+        assertSame(InboundFrame.GetOnlineUsersFrame.INSTANCE,
+                InboundFrameDecoder.decode("{\"type\":\"get_online_users\"}"));
+    }
+
+    @Test
+    void acceptsNumericStrings() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode(
+                "{\"type\":\"private\",\"toUserId\":\" 10086 \",\"content\":\"hi\",\"messageType\":\"3\"}");
+
+        assertEquals(new InboundFrame.PrivateFrame(10086L, "hi", 3), frame);
+    }
+
+    @Test
+    void messageTypeDefaultsToText() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode("{\"type\":\"group\",\"groupId\":42,\"content\":\"hi\"}");
+
+        assertEquals(new InboundFrame.GroupFrame(42L, "hi", 1), frame);
+    }
+
+    @Test
+    void fieldOrderDoesNotMatter() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode("{\"messageId\":5,\"type\":\"read_receipt\"}");
+
+        assertEquals(new InboundFrame.ReadReceiptFrame(5L), frame);
+    }
+
+    @Test
+    void skipsUnknownFields() throws Exception {
+        InboundFrame frame = InboundFrameDecoder.decode("{\"type\":\"private\",\"clientId\":\"abc\","
+                + "\"extra\":{\"nested\":[1,2,{\"toUserId\":1}]},\"toUserId\":9,\"content\":\"hi\"}");
+
+        assertEquals(new InboundFrame.PrivateFrame(9L, "hi", 1), frame);
+    }
+
+    @Test
+    void rejectsMissingType() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InboundFrameDecoder.decode("{\"toUserId\":1}"));
+
+        assertEquals("缺少消息类型", e.getMessage());
+    }
+
+    @Test
+    void rejectsUnknownType() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InboundFrameDecoder.decode("{\"type\":\"broadcast\"}"));
+
+        assertEquals("未知的消息类型: broadcast", e.getMessage());
+    }
+
+    @Test
+    void rejectsMissingRequiredField() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InboundFrameDecoder.decode("{\"type\":\"private\",\"content\":\"hi\"}"));
+
+        assertEquals("缺少字段: toUserId", e.getMessage());
+    }
+
+    @Test
+    void treatsNullIdAsMissing() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InboundFrameDecoder.decode("{\"type\":\"read_receipt\",\"messageId\":null}"));
+
+        assertEquals("缺少字段: messageId", e.getMessage());
+    }
+
+    @Test
+    void rejectsMalformedNumber() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InboundFrameDecoder.decode("{\"type\":\"group\",\"groupId\":\"42a\",\"content\":\"hi\"}"));
+
+        assertEquals("字段格式错误: groupId", e.getMessage());
+    }
+
+    @Test
+    void rejectsNonObjectFrame() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> InboundFrameDecoder.decode("[\"private\"]"));
+
+        assertEquals("消息格式错误", e.getMessage());
+    }
+
+    @Test
+    void decodesCborFrame() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", "private");
+        data.put("toUserId", 10086L);
+        data.put("content", "你好");
+        data.put("messageType", 1);
+        byte[] cbor = new CBORMapper().writeValueAsBytes(data);
+
+        InboundFrame frame = InboundFrameDecoder.decodeBinary(cbor, 0, cbor.length);
+
+        assertEquals(new InboundFrame.PrivateFrame(10086L, "你好", 1), frame);
+    }
+
+    @Test
+    void decodesCborFrameAtOffset() throws Exception {
+        byte[] cbor = new CBORMapper().writeValueAsBytes(Map.of("type", "read_receipt", "messageId", 77L));
+        byte[] buffer = new byte[cbor.length + 8];
+        System.arraycopy(cbor, 0, buffer, 3, cbor.length);
+
+        InboundFrame frame = InboundFrameDecoder.decodeBinary(buffer, 3, cbor.length);
+
+        assertEquals(new InboundFrame.ReadReceiptFrame(77L), frame);
+    }
+}
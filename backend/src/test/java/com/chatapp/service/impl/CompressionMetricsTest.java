@@ -0,0 +1,81 @@
+package com.chatapp.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CompressionMetrics 抽样统计单元测试
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class CompressionMetricsTest {
+
+    @Test
+    void onlySampledFramesAreMeasured() {
+        CompressionMetrics metrics = new CompressionMetrics(4, 256);
+        CountingMessage message = new CountingMessage();
+
+        for (int i = 0; i < 7; i++) {
+            metrics.record(message);
+        }
+
+        assertEquals(0, message.payloadReads);
+        assertEquals(7L, metrics.snapshot().get("frames"));
+    }
+
+    @Test
+    void sampledFramesAreBucketedBySize() {
+        CompressionMetrics metrics = new CompressionMetrics(2, 256);
+        TextMessage small = new TextMessage("{\"type\":\"typing\",\"fromUserId\":1}");
+        BinaryMessage large = new BinaryMessage(new byte[4096]);
+
+        metrics.record(small);
+        metrics.record(small);
+        metrics.record(large);
+        metrics.record(large);
+
+        Map<String, Object> snapshot = metrics.snapshot();
+        Map<?, ?> smallStats = (Map<?, ?>) snapshot.get("small");
+        Map<?, ?> largeStats = (Map<?, ?>) snapshot.get("large");
+        assertEquals(4L, snapshot.get("frames"));
+        assertEquals(1L, smallStats.get("sampled"));
+        assertEquals((long) small.getPayloadLength(), smallStats.get("sampledBytes"));
+        assertEquals(1L, largeStats.get("sampled"));
+        assertEquals(4096L, largeStats.get("sampledBytes"));
+        // 全零负载几乎可以完全压缩
+        assertTrue((double) largeStats.get("compressionRatio") < 0.05);
+    }
+
+    /**
+     * 记录负载被读取次数的消息
+     */
+    private static final class CountingMessage implements WebSocketMessage<String> {
+
+        int payloadReads;
+
+        @Override
+        public String getPayload() {
+            payloadReads++;
+            return "payload";
+        }
+
+        @Override
+        public int getPayloadLength() {
+            payloadReads++;
+            return 7;
+        }
+
+        @Override
+        public boolean isLast() {
+            return true;
+        }
+    }
+}
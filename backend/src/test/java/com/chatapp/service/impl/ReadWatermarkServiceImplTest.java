@@ -0,0 +1,192 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.entity.Conversation;
+import com.chatapp.entity.MessageReadWatermark;
+import com.chatapp.mapper.MessageReadWatermarkMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ReadWatermarkServiceImpl 合并写入单元测试
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class ReadWatermarkServiceImplTest {
+
+    private static final int PRIVATE = Conversation.TYPE_PRIVATE;
+    private static final int GROUP = Conversation.TYPE_GROUP;
+
+    private final FakeWatermarkMapper mapper = new FakeWatermarkMapper();
+    private final ReadWatermarkServiceImpl service = new ReadWatermarkServiceImpl(mapper);
+
+    @Test
+    void receiptsForOneConversationCoalesceToMax() {
+        service.advance(1L, PRIVATE, 2L, 10L);
+        service.advance(1L, PRIVATE, 2L, 30L);
+        service.advance(1L, PRIVATE, 2L, 20L);
+
+        service.flush();
+
+        assertEquals(1, mapper.statements.size());
+        assertEquals(1, mapper.statements.get(0).size());
+        assertEquals(30L, mapper.stored(1L, PRIVATE, 2L));
+        assertEquals(0, service.getStats().get("pending"));
+        assertEquals(3.0, service.getStats().get("coalescingRatio"));
+    }
+
+    @Test
+    void unflushedWatermarkIsVisibleToReads() {
+        mapper.rows.put(key(1L, GROUP, 5L), 40L);
+        service.advance(1L, GROUP, 5L, 50L);
+
+        assertEquals(50L, service.getLastReadMessageId(1L, GROUP, 5L));
+        assertEquals(0, mapper.statements.size());
+    }
+
+    @Test
+    void storedWatermarkWinsOverOlderPendingValue() {
+        mapper.rows.put(key(1L, GROUP, 5L), 80L);
+        service.advance(1L, GROUP, 5L, 50L);
+
+        assertEquals(80L, service.getLastReadMessageId(1L, GROUP, 5L));
+
+        service.flush();
+        assertEquals(80L, mapper.stored(1L, GROUP, 5L));
+    }
+
+    @Test
+    void missingWatermarkReadsAsZero() {
+        assertEquals(0L, service.getLastReadMessageId(1L, PRIVATE, 2L));
+    }
+
+    @Test
+    void incompleteReceiptsAreIgnored() {
+        service.advance(null, PRIVATE, 2L, 10L);
+        service.advance(1L, PRIVATE, null, 10L);
+        service.advance(1L, PRIVATE, 2L, null);
+
+        service.flush();
+
+        assertEquals(0, mapper.statements.size());
+        assertEquals(0L, service.getStats().get("receiptsReceived"));
+    }
+
+    @Test
+    void flushUserWritesOnlyThatUser() {
+        service.advance(1L, PRIVATE, 2L, 10L);
+        service.advance(1L, GROUP, 5L, 11L);
+        service.advance(3L, PRIVATE, 1L, 12L);
+
+        service.flushUser(1L);
+
+        assertEquals(10L, mapper.stored(1L, PRIVATE, 2L));
+        assertEquals(11L, mapper.stored(1L, GROUP, 5L));
+        assertNull(mapper.stored(3L, PRIVATE, 1L));
+        assertEquals(1, service.getStats().get("pending"));
+
+        service.flush();
+        assertEquals(12L, mapper.stored(3L, PRIVATE, 1L));
+    }
+
+    @Test
+    void largeFlushIsSplitIntoBatches() {
+        int conversations = ReadWatermarkServiceImpl.FLUSH_BATCH_SIZE * 2 + 1;
+        for (long target = 1; target <= conversations; target++) {
+            service.advance(1L, PRIVATE, target, target * 10);
+        }
+
+        service.flush();
+
+        assertEquals(3, mapper.statements.size());
+        for (List<MessageReadWatermark> statement : mapper.statements) {
+            assertTrue(statement.size() <= ReadWatermarkServiceImpl.FLUSH_BATCH_SIZE);
+        }
+        assertEquals(conversations, mapper.rows.size());
+        assertEquals((long) conversations, service.getStats().get("rowsFlushed"));
+        assertEquals(3L, service.getStats().get("flushStatements"));
+    }
+
+    @Test
+    void failedBatchIsRetriedOnNextFlush() {
+        service.advance(1L, PRIVATE, 2L, 10L);
+        mapper.failNext = true;
+
+        service.flush();
+
+        assertNull(mapper.stored(1L, PRIVATE, 2L));
+        assertEquals(1, service.getStats().get("pending"));
+        assertEquals(10L, service.getLastReadMessageId(1L, PRIVATE, 2L));
+
+        service.flush();
+
+        assertEquals(10L, mapper.stored(1L, PRIVATE, 2L));
+        assertEquals(0, service.getStats().get("pending"));
+    }
+
+    @Test
+    void watermarkAdvancedDuringWriteIsKeptForNextFlush() {
+        service.advance(1L, PRIVATE, 2L, 10L);
+        // 写入进行中又收到更新的回执
+        mapper.duringWrite = () -> service.advance(1L, PRIVATE, 2L, 20L);
+
+        service.flush();
+
+        assertEquals(10L, mapper.stored(1L, PRIVATE, 2L));
+        assertEquals(1, service.getStats().get("pending"));
+        assertEquals(20L, service.getLastReadMessageId(1L, PRIVATE, 2L));
+
+        mapper.duringWrite = null;
+        service.flush();
+        assertEquals(20L, mapper.stored(1L, PRIVATE, 2L));
+    }
+
+    private static String key(Long userId, int conversationType, Long targetId) {
+        return userId + ":" + conversationType + ":" + targetId;
+    }
+
+    /**
+     * 内存实现，写入语义与 MessageReadWatermarkMapper.xml 的 GREATEST 一致
+     */
+    private static class FakeWatermarkMapper implements MessageReadWatermarkMapper {
+
+        final Map<String, Long> rows = new HashMap<>();
+        final List<List<MessageReadWatermark>> statements = new ArrayList<>();
+        boolean failNext;
+        Runnable duringWrite;
+
+        Long stored(Long userId, int conversationType, Long targetId) {
+            return rows.get(key(userId, conversationType, targetId));
+        }
+
+        @Override
+        public Long findLastReadMessageId(Long userId, Integer conversationType, Long targetId) {
+            return rows.get(key(userId, conversationType, targetId));
+        }
+
+        @Override
+        public int upsertWatermarks(List<MessageReadWatermark> watermarks) {
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("数据库不可用");
+            }
+            statements.add(new ArrayList<>(watermarks));
+            for (MessageReadWatermark watermark : watermarks) {
+                rows.merge(key(watermark.getUserId(), watermark.getConversationType(), watermark.getTargetId()),
+                        watermark.getLastReadMessageId(), Math::max);
+            }
+            if (duringWrite != null) {
+                duringWrite.run();
+            }
+            return watermarks.size();
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.chatapp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.security.Principal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SessionOutboundQueue 单元测试：溢出淘汰策略与批量合并帧
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class SessionOutboundQueueTest {
+
+    private static final SessionOutboundQueue.OverflowPolicy DROPPABLE = SessionOutboundQueue.OverflowPolicy.DROP_OLDEST;
+    private static final SessionOutboundQueue.OverflowPolicy CHAT = SessionOutboundQueue.OverflowPolicy.DISCONNECT;
+
+    private final CBORMapper cborMapper = new CBORMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private final FakeSession session = new FakeSession();
+    private final ManualExecutor writer = new ManualExecutor();
+    private final List<String> failedSessions = new ArrayList<>();
+
+    @Test
+    void droppableFrameEvictsOldestDroppableNotChat() {
+        SessionOutboundQueue queue = newQueue(3);
+        queue.offer(text("chat-1"), CHAT);
+        queue.offer(text("typing-1"), DROPPABLE);
+        queue.offer(text("chat-2"), CHAT);
+
+        assertTrue(queue.offer(text("typing-2"), DROPPABLE));
+        writer.runAll();
+
+        assertEquals(List.of("chat-1", "chat-2", "typing-2"), session.sent);
+        assertEquals(1L, queue.snapshot().get("dropped"));
+    }
+
+    @Test
+    void droppableFrameIsRejectedWhenQueueHoldsOnlyChat() {
+        SessionOutboundQueue queue = newQueue(2);
+        queue.offer(text("chat-1"), CHAT);
+        queue.offer(text("chat-2"), CHAT);
+
+        assertFalse(queue.offer(text("unread"), DROPPABLE));
+        writer.runAll();
+
+        assertEquals(List.of("chat-1", "chat-2"), session.sent);
+        assertNull(session.closeStatus);
+        assertTrue(failedSessions.isEmpty());
+    }
+
+    @Test
+    void chatFrameEvictsDroppableToMakeRoom() {
+        SessionOutboundQueue queue = newQueue(2);
+        queue.offer(text("chat-1"), CHAT);
+        queue.offer(text("typing"), DROPPABLE);
+
+        assertTrue(queue.offer(text("chat-2"), CHAT));
+        writer.runAll();
+
+        assertEquals(List.of("chat-1", "chat-2"), session.sent);
+        assertNull(session.closeStatus);
+    }
+
+    @Test
+    void chatFrameDisconnectsWhenNothingCanBeEvicted() {
+        SessionOutboundQueue queue = newQueue(2);
+        queue.offer(text("chat-1"), CHAT);
+        queue.offer(text("chat-2"), CHAT);
+
+        assertFalse(queue.offer(text("chat-3"), CHAT));
+        writer.runAll();
+
+        assertTrue(session.sent.isEmpty());
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.closeStatus);
+        assertEquals(List.of(session.getId()), failedSessions);
+    }
+
+    @Test
+    void failedWriteClosesSession() {
+        SessionOutboundQueue queue = newQueue(4);
+        session.failWrites = true;
+        queue.offer(text("chat-1"), CHAT);
+        queue.offer(text("chat-2"), CHAT);
+
+        writer.runAll();
+
+        assertEquals(CloseStatus.SESSION_NOT_RELIABLE, session.closeStatus);
+        assertEquals(List.of(session.getId()), failedSessions);
+        assertEquals(1L, queue.snapshot().get("failed"));
+        assertFalse(queue.offer(text("chat-3"), CHAT));
+    }
+
+    @Test
+    void cborHeaderUsesShortestEncoding() {
+        assertHeader(2, 0x82);
+        assertHeader(23, 0x97);
+        assertHeader(24, 0x98, 24);
+        assertHeader(255, 0x98, 0xFF);
+        assertHeader(256, 0x99, 0x01, 0x00);
+        assertHeader(65535, 0x99, 0xFF, 0xFF);
+    }
+
+    @Test
+    void cborHeaderMatchesJacksonEncoding() throws Exception {
+        for (int count : new int[]{2, 23, 24, 255, 256, 1000}) {
+            byte[] jackson = cborMapper.writeValueAsBytes(new int[count]);
+            int headerLength = SessionOutboundQueue.cborArrayHeaderLength(count);
+            ByteBuffer header = ByteBuffer.allocate(headerLength);
+            SessionOutboundQueue.putCborArrayHeader(header, count);
+
+            byte[] expected = new byte[headerLength];
+            System.arraycopy(jackson, 0, expected, 0, headerLength);
+            assertArrayEquals(expected, header.array());
+        }
+    }
+
+    @Test
+    void mergedCborFrameDecodesToArrayOfEvents() throws Exception {
+        for (int count : new int[]{2, 23, 24, 300}) {
+            List<SessionOutboundQueue.Outbound> batch = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                byte[] event = cborMapper.writeValueAsBytes(Map.of("type", "private", "id", i));
+                batch.add(new SessionOutboundQueue.Outbound(new BinaryMessage(event), null, false));
+            }
+
+            WebSocketMessage<?> merged = SessionOutboundQueue.merge(batch);
+
+            BinaryMessage binary = (BinaryMessage) merged;
+            ByteBuffer payload = binary.getPayload();
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            List<?> events = cborMapper.readValue(bytes, List.class);
+            assertEquals(count, events.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, ((Map<?, ?>) events.get(i)).get("id"));
+            }
+        }
+    }
+
+    @Test
+    void mergeLeavesSourcePayloadsReadable() throws Exception {
+        BinaryMessage first = new BinaryMessage(cborMapper.writeValueAsBytes(Map.of("id", 1)));
+        BinaryMessage second = new BinaryMessage(cborMapper.writeValueAsBytes(Map.of("id", 2)));
+        int firstLength = first.getPayloadLength();
+
+        SessionOutboundQueue.merge(List.of(
+                new SessionOutboundQueue.Outbound(first, null, false),
+                new SessionOutboundQueue.Outbound(second, null, false)));
+
+        assertEquals(firstLength, first.getPayload().remaining());
+    }
+
+    @Test
+    void mergedJsonFrameIsArrayOfEvents() throws Exception {
+        WebSocketMessage<?> merged = SessionOutboundQueue.merge(List.of(
+                new SessionOutboundQueue.Outbound(new TextMessage("{\"id\":1}"), null, false),
+                new SessionOutboundQueue.Outbound(new TextMessage("{\"id\":2}"), null, false)));
+
+        List<?> events = jsonMapper.readValue(((TextMessage) merged).getPayload(), List.class);
+        assertEquals(List.of(Map.of("id", 1), Map.of("id", 2)), events);
+    }
+
+    @Test
+    void mixedEncodingsAreNotMerged() throws Exception {
+        assertNull(SessionOutboundQueue.merge(List.of(
+                new SessionOutboundQueue.Outbound(new TextMessage("{\"id\":1}"), null, false),
+                new SessionOutboundQueue.Outbound(new BinaryMessage(cborMapper.writeValueAsBytes(1)), null, false))));
+        assertNull(SessionOutboundQueue.merge(List.of(
+                new SessionOutboundQueue.Outbound(new BinaryMessage(cborMapper.writeValueAsBytes(1)), null, false),
+                new SessionOutboundQueue.Outbound(new TextMessage("{\"id\":1}"), null, false))));
+    }
+
+    private SessionOutboundQueue newQueue(int capacity) {
+        return new SessionOutboundQueue(session, capacity, writer, failedSessions::add);
+    }
+
+    private static TextMessage text(String payload) {
+        return new TextMessage(payload);
+    }
+
+    private static void assertHeader(int count, int... expected) {
+        byte[] bytes = new byte[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            bytes[i] = (byte) expected[i];
+        }
+        assertEquals(expected.length, SessionOutboundQueue.cborArrayHeaderLength(count));
+        ByteBuffer header = ByteBuffer.allocate(expected.length);
+        SessionOutboundQueue.putCborArrayHeader(header, count);
+        assertEquals(0, header.remaining());
+        assertArrayEquals(bytes, header.array());
+    }
+
+    /**
+     * 任务由测试手动执行的写线程池
+     */
+    private static final class ManualExecutor implements Executor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * 记录写出内容与关闭状态的会话
+     */
+    private static final class FakeSession implements WebSocketSession {
+
+        final List<String> sent = new ArrayList<>();
+        final Map<String, Object> attributes = new HashMap<>();
+        boolean failWrites;
+        CloseStatus closeStatus;
+
+        @Override
+        public String getId() {
+            return "session-1";
+        }
+
+        @Override
+        public URI getUri() {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHandshakeHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public Principal getPrincipal() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return null;
+        }
+
+        @Override
+        public String getAcceptedProtocol() {
+            return null;
+        }
+
+        @Override
+        public void setTextMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getTextMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        }
+
+        @Override
+        public int getBinaryMessageSizeLimit() {
+            return 0;
+        }
+
+        @Override
+        public List<WebSocketExtension> getExtensions() {
+            return List.of();
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (failWrites) {
+                throw new IOException("写出超时");
+            }
+            sent.add(((TextMessage) message).getPayload());
+        }
+
+        @Override
+        public boolean isOpen() {
+            return closeStatus == null;
+        }
+
+        @Override
+        public void close() {
+            close(CloseStatus.NORMAL);
+        }
+
+        @Override
+        public void close(CloseStatus status) {
+            closeStatus = status;
+        }
+    }
+}
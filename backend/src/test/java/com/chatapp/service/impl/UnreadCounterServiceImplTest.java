@@ -0,0 +1,220 @@
+package com.chatapp.service.impl;
+
+import com.chatapp.mapper.MessageMapper;
+import com.chatapp.service.ReadWatermarkService;
+import com.chatapp.service.WebSocketSessionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UnreadCounterServiceImpl 重建与新消息并发单元测试
+ *
+ * 新消息在重建统计期间登记、提交或计入时，缓存的计数既不漏计也不重复计入
+ *
+ * @author ChatApp
+ * @since 1.0.0
+ */
+class UnreadCounterServiceImplTest {
+
+    private static final Long USER = 1L;
+    private static final Long SENDER = 7L;
+
+    // 已提交的未读消息数：发送方ID -> 条数
+    private final Map<Long, Integer> committed = new HashMap<>();
+    private final List<Map<String, Object>> pushed = new ArrayList<>();
+    private int queries;
+    // 第一次统计读取结果之后执行，模拟统计期间到达的新消息
+    private Runnable duringFirstQuery;
+
+    private final UnreadCounterServiceImpl service = new UnreadCounterServiceImpl(
+            messageMapper(), sessionService(), new FakeReadWatermarkService());
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void cachedCounterAddsReceivedMessageAfterCommit() {
+        committed.put(SENDER, 2);
+        assertEquals(2, service.getTotalUnread(USER));
+
+        List<TransactionSynchronization> transaction = receiveInTransaction();
+        committed.merge(SENDER, 1, Integer::sum);
+        assertEquals(2, service.getTotalUnread(USER));
+        complete(transaction, TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(3, service.getTotalUnread(USER));
+        assertEquals(1, queries);
+        assertEquals(1, pushed.size());
+        assertEquals(1, pushed.get(0).get("delta"));
+        assertEquals(3, pushed.get(0).get("totalUnread"));
+    }
+
+    @Test
+    void rolledBackMessageIsNotCounted() {
+        committed.put(SENDER, 2);
+        assertEquals(2, service.getTotalUnread(USER));
+
+        complete(receiveInTransaction(), TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(2, service.getTotalUnread(USER));
+        assertTrue(pushed.isEmpty());
+    }
+
+    @Test
+    void messageCommittedAndCountedDuringRebuildIsCountedOnce() {
+        committed.put(SENDER, 2);
+        duringFirstQuery = () -> {
+            List<TransactionSynchronization> transaction = receiveInTransaction();
+            committed.merge(SENDER, 1, Integer::sum);
+            complete(transaction, TransactionSynchronization.STATUS_COMMITTED);
+        };
+
+        assertEquals(3, service.getTotalUnread(USER));
+        assertEquals(3, service.getUnreadFrom(USER, SENDER));
+    }
+
+    @Test
+    void messageIncludedInRebuildButCountedAfterItIsNotDoubleCounted() {
+        committed.put(SENDER, 2);
+        List<List<TransactionSynchronization>> inFlight = new ArrayList<>();
+        // 消息在统计读取之前已写入（统计结果包含它），提交后的计入在重建完成之后才执行
+        committed.merge(SENDER, 1, Integer::sum);
+        duringFirstQuery = () -> inFlight.add(receiveInTransaction());
+
+        assertEquals(3, service.getTotalUnread(USER));
+        complete(inFlight.get(0), TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(3, service.getTotalUnread(USER));
+        assertEquals(3, pushed.get(pushed.size() - 1).get("totalUnread"));
+    }
+
+    @Test
+    void messageCommittedAfterRebuildReadIsNotLost() {
+        committed.put(SENDER, 2);
+        List<List<TransactionSynchronization>> inFlight = new ArrayList<>();
+        // 统计读取时消息尚未提交（统计结果不包含它）
+        duringFirstQuery = () -> inFlight.add(receiveInTransaction());
+
+        assertEquals(2, service.getTotalUnread(USER));
+        committed.merge(SENDER, 1, Integer::sum);
+        complete(inFlight.get(0), TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(3, service.getTotalUnread(USER));
+        assertEquals(3, service.getUnreadFrom(USER, SENDER));
+    }
+
+    @Test
+    void rebuildIsNotCachedWhileMessagesKeepArriving() {
+        committed.put(SENDER, 2);
+        List<TransactionSynchronization> transaction = receiveInTransaction();
+
+        assertEquals(2, service.getTotalUnread(USER));
+        assertEquals(UnreadCounterServiceImpl.MAX_REBUILD_ATTEMPTS, queries);
+
+        committed.merge(SENDER, 1, Integer::sum);
+        complete(transaction, TransactionSynchronization.STATUS_COMMITTED);
+        int queriesAfterCommit = queries;
+
+        assertEquals(3, service.getTotalUnread(USER));
+        assertEquals(queriesAfterCommit, queries);
+    }
+
+    /**
+     * 在事务中登记一条发给 USER 的新消息，返回该事务注册的同步回调
+     */
+    private List<TransactionSynchronization> receiveInTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.onMessageReceived(USER, SENDER);
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(List<TransactionSynchronization> transaction, int status) {
+        for (TransactionSynchronization synchronization : transaction) {
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private MessageMapper messageMapper() {
+        return (MessageMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{MessageMapper.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("countUnreadMessagesGroupBySender")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    queries++;
+                    List<Map<String, Object>> rows = new ArrayList<>();
+                    committed.forEach((fromUserId, count) -> {
+                        Map<String, Object> row = new HashMap<>();
+                        row.put("from_user_id", fromUserId);
+                        row.put("unread_count", count);
+                        rows.add(row);
+                    });
+                    if (duringFirstQuery != null) {
+                        Runnable hook = duringFirstQuery;
+                        duringFirstQuery = null;
+                        hook.run();
+                    }
+                    return rows;
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private WebSocketSessionService sessionService() {
+        return (WebSocketSessionService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{WebSocketSessionService.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isUserOnline":
+                            return true;
+                        case "sendToUser":
+                            pushed.add((Map<String, Object>) args[1]);
+                            return method.getReturnType() == boolean.class ? true : null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static final class FakeReadWatermarkService implements ReadWatermarkService {
+
+        @Override
+        public void advance(Long userId, int conversationType, Long targetId, Long messageId) {
+        }
+
+        @Override
+        public long getLastReadMessageId(Long userId, int conversationType, Long targetId) {
+            return 0;
+        }
+
+        @Override
+        public void flushUser(Long userId) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Map<String, Object> getStats() {
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+-- 会话表回填迁移脚本
+-- 消息发送路径开始增量维护 conversations 表（最后一条消息、未读数），
+-- 执行此脚本根据现有 messages 数据初始化会话表，并添加会话列表查询索引。
+-- 依赖 message_conversation_key_migration.sql 已执行（使用 conversation_key 列）。
+
+USE chat_app;
+
+-- 1. 会话列表查询索引（如果不存在）- 兼容 MySQL
+SET @idx_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'conversations' AND index_name = 'idx_user_list');
+SET @sql := IF(@idx_exists = 0, 'CREATE INDEX idx_user_list ON conversations(user_id, deleted, last_message_time);', 'SELECT ''idx_user_list exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2. 回填私聊会话：每个私聊会话键的最后一条消息，双方各一行
+INSERT INTO conversations (user_id, target_id, conversation_type, last_message_id, last_message_time, unread_count)
+SELECT p.user_id, p.target_id, 1, m.id, m.send_time,
+       (SELECT COUNT(*) FROM messages u 
+        WHERE u.to_user_id = p.user_id AND u.from_user_id = p.target_id 
+        AND u.group_id IS NULL AND u.status = 0 AND u.deleted = 0)
+FROM (
+    SELECT from_user_id AS user_id, to_user_id AS target_id, MAX(id) AS last_id
+    FROM messages WHERE group_id IS NULL AND to_user_id IS NOT NULL AND deleted = 0
+    GROUP BY from_user_id, to_user_id
+    UNION
+    SELECT to_user_id AS user_id, from_user_id AS target_id, MAX(id) AS last_id
+    FROM messages WHERE group_id IS NULL AND to_user_id IS NOT NULL AND deleted = 0
+    GROUP BY to_user_id, from_user_id
+) p
+INNER JOIN messages m ON m.id = (
+    SELECT MAX(x.id) FROM messages x 
+    WHERE x.conversation_key = CONCAT(LEAST(p.user_id, p.target_id), '_', GREATEST(p.user_id, p.target_id))
+    AND x.deleted = 0
+)
+ON DUPLICATE KEY UPDATE
+    last_message_id = VALUES(last_message_id),
+    last_message_time = VALUES(last_message_time),
+    unread_count = VALUES(unread_count);
+
+-- 3. 回填群聊会话：每个有效成员一行，指向群内最后一条消息（群聊暂无逐成员已读状态，未读数从0开始）
+INSERT INTO conversations (user_id, target_id, conversation_type, last_message_id, last_message_time, unread_count)
+SELECT gm.user_id, gm.group_id, 2, m.id, m.send_time, 0
+FROM group_members gm
+INNER JOIN (
+    SELECT group_id, MAX(id) AS last_id FROM messages 
+    WHERE group_id IS NOT NULL AND deleted = 0 
+    GROUP BY group_id
+) g ON g.group_id = gm.group_id
+INNER JOIN messages m ON m.id = g.last_id
+WHERE gm.status = 1 AND gm.deleted = 0
+ON DUPLICATE KEY UPDATE
+    last_message_id = VALUES(last_message_id),
+    last_message_time = VALUES(last_message_time);
+
+-- 4. 验证
+SELECT conversation_type, COUNT(*) AS conversation_count FROM conversations GROUP BY conversation_type;
@@ -0,0 +1,40 @@
+-- 群聊最后一条消息迁移脚本
+-- 群消息发送不再为每个成员更新 conversations 行，只更新 chat_groups 上的最后一条消息，
+-- 成员的群聊会话在查询会话列表时关联群组表。成员入群时创建会话行，退群、被移出或解散时软删除。
+-- 执行此脚本添加列、回填最后一条消息并整理现有群聊会话行。
+
+USE chat_app;
+
+-- 1. 群组表添加最后一条消息列
+ALTER TABLE chat_groups
+ADD COLUMN last_message_id BIGINT NULL COMMENT '群内最后一条消息ID',
+ADD COLUMN last_message_time TIMESTAMP NULL COMMENT '群内最后消息时间';
+
+-- 2. 回填每个群的最后一条消息
+UPDATE chat_groups g
+INNER JOIN (
+    SELECT group_id, MAX(id) AS last_id FROM messages
+    WHERE group_id IS NOT NULL AND deleted = 0
+    GROUP BY group_id
+) x ON x.group_id = g.id
+INNER JOIN messages m ON m.id = x.last_id
+SET g.last_message_id = m.id,
+    g.last_message_time = m.send_time;
+
+-- 3. 为还没有会话行的有效成员创建群聊会话（以入群时间作为创建时间）
+INSERT INTO conversations (user_id, target_id, conversation_type, create_time)
+SELECT gm.user_id, gm.group_id, 2, gm.join_time
+FROM group_members gm
+WHERE gm.status = 1 AND gm.deleted = 0
+ON DUPLICATE KEY UPDATE deleted = 0;
+
+-- 4. 软删除已退出或被移出成员的群聊会话
+UPDATE conversations c
+LEFT JOIN group_members gm
+    ON gm.group_id = c.target_id AND gm.user_id = c.user_id AND gm.status = 1 AND gm.deleted = 0
+SET c.deleted = 1
+WHERE c.conversation_type = 2 AND c.deleted = 0 AND gm.id IS NULL;
+
+-- 5. 验证
+SELECT COUNT(*) AS groups_with_messages FROM chat_groups WHERE last_message_id IS NOT NULL;
+SELECT deleted, COUNT(*) AS group_conversation_count FROM conversations WHERE conversation_type = 2 GROUP BY deleted;
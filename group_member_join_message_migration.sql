@@ -0,0 +1,28 @@
+-- 群成员入群消息位置迁移脚本
+-- group_members 添加 join_message_id（入群时群内最后一条消息ID）。
+-- 还没有已读水位的群会话从该位置开始统计未读，不再按 send_time / create_time 比较时间。
+-- 新成员入群和重新入群时由应用写入；历史成员按入群时间回填。
+-- 依赖 MySQL 8.0.14+（会话列表的未读上限查询在派生表中引用外层列）。
+
+USE chat_app;
+
+-- 1. 添加 join_message_id 列（如果不存在）- 兼容 MySQL
+SET @col_exists := (SELECT COUNT(1) FROM information_schema.columns 
+  WHERE table_schema = DATABASE() AND table_name = 'group_members' AND column_name = 'join_message_id');
+SET @sql := IF(@col_exists = 0, 
+  'ALTER TABLE group_members ADD COLUMN join_message_id BIGINT NULL COMMENT ''入群时群内最后一条消息ID（之后的消息计入未读）'' AFTER join_time;', 
+  'SELECT ''join_message_id exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2. 回填历史成员：入群时间之前群内的最后一条消息（按 (group_id, id) 索引倒序找第一条早于入群时间的消息）
+UPDATE group_members gm
+SET gm.join_message_id = COALESCE(
+        (SELECT m.id FROM messages m
+         WHERE m.group_id = gm.group_id AND m.send_time < gm.join_time
+         ORDER BY m.id DESC
+         LIMIT 1),
+        0)
+WHERE gm.join_message_id IS NULL;
+
+-- 3. 验证：以下结果应为0
+SELECT COUNT(*) AS missing_join_message_id FROM group_members WHERE join_message_id IS NULL;
@@ -0,0 +1,15 @@
+-- 图片内容哈希索引迁移脚本
+-- 上传时按 content_hash 查找同内容的已有图片，复用其尺寸、占位图和缩略图记录，
+-- 重复上传的图片不再解码和重新生成缩略图。
+
+USE chat_app;
+
+-- 1. 为 content_hash 添加索引（如果不存在）- 兼容 MySQL（不支持 IF NOT EXISTS）
+SET @idx_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'images' AND index_name = 'idx_images_content_hash');
+SET @sql := IF(@idx_exists = 0, 'CREATE INDEX idx_images_content_hash ON images(content_hash);', 'SELECT ''idx_images_content_hash exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2. 验证：重复内容的图片数量
+SELECT COUNT(*) AS images_with_duplicates
+FROM (SELECT content_hash FROM images WHERE content_hash IS NOT NULL GROUP BY content_hash HAVING COUNT(*) > 1) t;
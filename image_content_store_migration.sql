@@ -0,0 +1,26 @@
+-- 图片本地内容寻址存储迁移脚本
+-- 新上传的图片内容保存在本地目录（按SHA-256命名），images 表只保留元数据和 content_hash；
+-- content_hash 为空的历史图片仍从 data 列读取。
+-- 执行后可用 --image.storage.migrate-on-startup=true 启动服务，把已有图片迁移出数据库。
+
+USE chat_app;
+
+-- 1. data 列允许为空
+ALTER TABLE images MODIFY COLUMN data LONGBLOB NULL COMMENT '二进制数据（内容保存在本地存储时为空）';
+
+-- 2. 添加 content_hash 列（如果不存在）- 兼容 MySQL
+SET @col_exists := (SELECT COUNT(1) FROM information_schema.columns 
+  WHERE table_schema = DATABASE() AND table_name = 'images' AND column_name = 'content_hash');
+SET @sql := IF(@col_exists = 0, 
+  'ALTER TABLE images ADD COLUMN content_hash CHAR(64) NULL COMMENT ''内容SHA-256，非空表示内容保存在本地内容寻址存储'' AFTER size;', 
+  'SELECT ''content_hash exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 3. 验证
+SELECT COUNT(*) AS total_images,
+       SUM(content_hash IS NULL) AS stored_in_database,
+       SUM(content_hash IS NOT NULL) AS stored_on_disk
+FROM images;
+
+-- 4. 迁移完成后可回收 data 列占用的空间（会重建表，请在低峰期执行）
+-- OPTIMIZE TABLE images;
@@ -0,0 +1,30 @@
+-- 图片缩略图迁移脚本
+-- 上传时记录原图尺寸和内联占位图，缩略图由后台生成并保存在本地内容寻址存储中，
+-- image_thumbnails 只保存元数据和内容哈希。历史图片没有尺寸信息，继续使用原图。
+
+USE chat_app;
+
+-- 1. images 添加 width、height、placeholder 列（如果不存在）- 兼容 MySQL
+SET @col_exists := (SELECT COUNT(1) FROM information_schema.columns 
+  WHERE table_schema = DATABASE() AND table_name = 'images' AND column_name = 'placeholder');
+SET @sql := IF(@col_exists = 0, 
+  'ALTER TABLE images ADD COLUMN width INT NULL COMMENT ''原图宽度'' AFTER original_name, ADD COLUMN height INT NULL COMMENT ''原图高度'' AFTER width, ADD COLUMN placeholder VARCHAR(2048) NULL COMMENT ''内联占位图(data URI)'' AFTER height;', 
+  'SELECT ''placeholder exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2. 缩略图表
+CREATE TABLE IF NOT EXISTS image_thumbnails (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '缩略图ID',
+    image_id BIGINT NOT NULL COMMENT '原图ID',
+    max_edge INT NOT NULL COMMENT '规格：长边上限(像素)',
+    content_type VARCHAR(100) NOT NULL COMMENT 'MIME类型',
+    width INT NOT NULL COMMENT '宽度',
+    height INT NOT NULL COMMENT '高度',
+    size BIGINT NOT NULL COMMENT '大小(字节)',
+    content_hash CHAR(64) NOT NULL COMMENT '内容SHA-256（本地内容寻址存储）',
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE KEY uk_image_thumbnails_image_edge (image_id, max_edge)
+) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图片缩略图表';
+
+-- 3. 验证
+SELECT COUNT(*) AS images_with_size FROM images WHERE width IS NOT NULL;
@@ -0,0 +1,54 @@
+-- 私聊会话键迁移脚本
+-- 为 messages 表添加规范化的私聊会话键 conversation_key（较小用户ID_较大用户ID），
+-- 私聊历史、最后一条消息、删除聊天记录等查询统一走 (conversation_key, id) 索引，
+-- 不再使用 (from=A AND to=B) OR (from=B AND to=A) 的条件。
+
+USE chat_app;
+
+-- 1. 添加 conversation_key 列（如果不存在）- 兼容 MySQL
+SET @col_exists := (SELECT COUNT(1) FROM information_schema.columns 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND column_name = 'conversation_key');
+SET @sql := IF(@col_exists = 0, 
+  'ALTER TABLE messages ADD COLUMN conversation_key VARCHAR(41) NULL COMMENT ''私聊会话键（较小用户ID_较大用户ID），群聊为空'' AFTER group_id;', 
+  'SELECT ''conversation_key exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 2. 按主键区间分批回填历史私聊消息，避免长事务锁表
+--    每批只扫描 id 区间内的行（主键范围扫描），总扫描量与表大小成正比；
+--    按 conversation_key IS NULL + LIMIT 分批在索引建立前每批都要从头扫过已回填的行
+DROP PROCEDURE IF EXISTS backfill_conversation_key;
+DELIMITER $$
+CREATE PROCEDURE backfill_conversation_key()
+BEGIN
+    DECLARE batch_start BIGINT;
+    DECLARE max_id BIGINT;
+    SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) INTO batch_start, max_id FROM messages;
+    WHILE batch_start <= max_id DO
+        UPDATE messages
+        SET conversation_key = CONCAT(LEAST(from_user_id, to_user_id), '_', GREATEST(from_user_id, to_user_id))
+        WHERE id BETWEEN batch_start AND batch_start + 9999
+        AND conversation_key IS NULL
+        AND group_id IS NULL
+        AND to_user_id IS NOT NULL;
+        SET batch_start = batch_start + 10000;
+    END WHILE;
+END$$
+DELIMITER ;
+CALL backfill_conversation_key();
+DROP PROCEDURE IF EXISTS backfill_conversation_key;
+
+-- 3. 创建 (conversation_key, id) 复合索引（如果不存在）
+SET @idx_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'idx_conversation_key_id');
+SET @sql2 := IF(@idx_exists = 0, 'CREATE INDEX idx_conversation_key_id ON messages(conversation_key, id);', 'SELECT ''idx_conversation_key_id exists'';');
+PREPARE stmt2 FROM @sql2; EXECUTE stmt2; DEALLOCATE PREPARE stmt2;
+
+-- 4. 删除已被 conversation_key 索引取代的 (from_user_id, to_user_id, id) 索引（如果存在）
+SET @old_idx_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'idx_from_to_id');
+SET @sql3 := IF(@old_idx_exists > 0, 'DROP INDEX idx_from_to_id ON messages;', 'SELECT ''idx_from_to_id not exists'';');
+PREPARE stmt3 FROM @sql3; EXECUTE stmt3; DEALLOCATE PREPARE stmt3;
+
+-- 5. 验证：以下结果应为0
+SELECT COUNT(*) AS missing_conversation_key FROM messages 
+WHERE group_id IS NULL AND to_user_id IS NOT NULL AND conversation_key IS NULL;
@@ -0,0 +1,17 @@
+-- 消息历史游标分页迁移脚本
+-- /messages/private/history 与 /messages/group/history 支持 beforeMessageId 游标分页，
+-- 执行此脚本添加对应的复合索引，使深翻页与首页代价相同。
+
+USE chat_app;
+
+-- 私聊两个方向各走一次 (from_user_id, to_user_id, id) 索引范围扫描（如果不存在）- 兼容 MySQL
+SET @idx_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'idx_from_to_id');
+SET @sql := IF(@idx_exists = 0, 'CREATE INDEX idx_from_to_id ON messages(from_user_id, to_user_id, id);', 'SELECT ''idx_from_to_id exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+-- 群聊走 (group_id, id) 索引（message_sync_cursor_migration.sql 中已创建则跳过）
+SET @idx2_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'idx_group_id_id');
+SET @sql2 := IF(@idx2_exists = 0, 'CREATE INDEX idx_group_id_id ON messages(group_id, id);', 'SELECT ''idx_group_id_id exists'';');
+PREPARE stmt2 FROM @sql2; EXECUTE stmt2; DEALLOCATE PREPARE stmt2;
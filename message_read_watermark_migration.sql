@@ -0,0 +1,41 @@
+-- 已读水位迁移脚本
+-- 已读状态由"逐条更新 messages.status"改为"每个用户每个会话一个已读水位"，
+-- id 不大于水位的消息视为已读，私聊和群聊的未读数都按水位推导。
+-- 执行此脚本创建水位表并根据现有已读状态初始化水位。
+
+USE chat_app;
+
+-- 1. 创建已读水位表
+CREATE TABLE IF NOT EXISTS message_read_watermarks (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    conversation_type INT NOT NULL COMMENT '会话类型: 1-私聊, 2-群聊',
+    target_id BIGINT NOT NULL COMMENT '会话目标ID（私聊为对方用户ID，群聊为群组ID）',
+    last_read_message_id BIGINT NOT NULL DEFAULT 0 COMMENT '已读的最大消息ID',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+    PRIMARY KEY (user_id, conversation_type, target_id)
+) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='已读水位表';
+
+-- 2. 初始化私聊水位：有未读消息的停在最早一条未读之前，否则停在最后一条消息。
+--    最早未读之后已标记为已读的旧消息 status=1，未读统计只计 status=0，不会重新变为未读
+INSERT INTO message_read_watermarks (user_id, conversation_type, target_id, last_read_message_id)
+SELECT m.to_user_id, 1, m.from_user_id,
+       COALESCE(MIN(CASE WHEN m.status = 0 THEN m.id END) - 1, MAX(m.id))
+FROM messages m
+WHERE m.group_id IS NULL AND m.to_user_id IS NOT NULL AND m.deleted = 0
+GROUP BY m.to_user_id, m.from_user_id
+ON DUPLICATE KEY UPDATE last_read_message_id = last_read_message_id;
+
+-- 3. 初始化群聊水位：群聊此前没有成员级已读状态（conversations.unread_count 只增不减），
+--    现有群会话统一视为已读到最后一条消息
+INSERT INTO message_read_watermarks (user_id, conversation_type, target_id, last_read_message_id)
+SELECT c.user_id, 2, c.target_id, COALESCE(c.last_message_id, 0)
+FROM conversations c
+WHERE c.conversation_type = 2 AND c.deleted = 0
+ON DUPLICATE KEY UPDATE last_read_message_id = last_read_message_id;
+
+-- 4. 会话表的未读数改为按水位推导，不再维护
+ALTER TABLE conversations MODIFY COLUMN unread_count INT DEFAULT 0 COMMENT '未读消息数（已废弃，未读数由 message_read_watermarks 推导）';
+
+-- 5. 验证
+SELECT conversation_type, COUNT(*) AS watermark_count FROM message_read_watermarks GROUP BY conversation_type;
@@ -0,0 +1,60 @@
+-- 消息同步游标迁移脚本
+-- 离线消息由"每条消息每个接收者一行推送记录"改为"每个用户每个会话一个已投递游标"，
+-- 上线同步按 messages.id > 游标 范围读取。执行此脚本创建游标表并根据现有推送记录初始化游标。
+
+USE chat_app;
+
+-- 1. 创建消息同步游标表
+CREATE TABLE IF NOT EXISTS message_sync_cursors (
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    conversation_type INT NOT NULL COMMENT '会话类型: 1-私聊收件箱, 2-群聊',
+    target_id BIGINT NOT NULL COMMENT '会话目标ID（私聊为0，群聊为群组ID）',
+    last_message_id BIGINT NOT NULL DEFAULT 0 COMMENT '已投递的最大消息ID',
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+
+    PRIMARY KEY (user_id, conversation_type, target_id)
+) ENGINE=INNODB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='消息同步游标表';
+
+-- 2. 为范围读取添加复合索引（如果不存在）- 兼容 MySQL（不支持 IF NOT EXISTS）
+SET @idx_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'idx_to_user_id_id');
+SET @sql := IF(@idx_exists = 0, 'CREATE INDEX idx_to_user_id_id ON messages(to_user_id, id);', 'SELECT ''idx_to_user_id_id exists'';');
+PREPARE stmt FROM @sql; EXECUTE stmt; DEALLOCATE PREPARE stmt;
+
+SET @idx2_exists := (SELECT COUNT(1) FROM information_schema.statistics 
+  WHERE table_schema = DATABASE() AND table_name = 'messages' AND index_name = 'idx_group_id_id');
+SET @sql2 := IF(@idx2_exists = 0, 'CREATE INDEX idx_group_id_id ON messages(group_id, id);', 'SELECT ''idx_group_id_id exists'';');
+PREPARE stmt2 FROM @sql2; EXECUTE stmt2; DEALLOCATE PREPARE stmt2;
+
+-- 3. 初始化私聊收件箱游标：有未推送/推送失败记录的从最早一条之前开始，否则从当前最大消息ID开始
+INSERT INTO message_sync_cursors (user_id, conversation_type, target_id, last_message_id)
+SELECT u.id, 1, 0,
+       COALESCE(
+           (SELECT MIN(r.message_id) - 1
+            FROM message_push_records r
+            INNER JOIN messages m ON m.id = r.message_id
+            WHERE r.user_id = u.id AND r.push_status IN (0, 2) AND m.group_id IS NULL),
+           (SELECT MAX(m.id) FROM messages m WHERE m.to_user_id = u.id AND m.group_id IS NULL),
+           0)
+FROM users u
+ON DUPLICATE KEY UPDATE last_message_id = last_message_id;
+
+-- 4. 初始化群聊游标：规则同上，按群成员逐群初始化
+INSERT INTO message_sync_cursors (user_id, conversation_type, target_id, last_message_id)
+SELECT gm.user_id, 2, gm.group_id,
+       COALESCE(
+           (SELECT MIN(r.message_id) - 1
+            FROM message_push_records r
+            INNER JOIN messages m ON m.id = r.message_id
+            WHERE r.user_id = gm.user_id AND r.push_status IN (0, 2) AND m.group_id = gm.group_id),
+           (SELECT MAX(m.id) FROM messages m WHERE m.group_id = gm.group_id),
+           0)
+FROM group_members gm
+WHERE gm.status = 1 AND gm.deleted = 0
+ON DUPLICATE KEY UPDATE last_message_id = last_message_id;
+
+-- 5. 验证
+SELECT conversation_type, COUNT(*) AS cursor_count FROM message_sync_cursors GROUP BY conversation_type;
+
+-- 迁移完成后 message_push_records 中的待推送记录不再使用，
+-- 已推送记录由定时任务 cleanupPushedRecords 按原规则清理
@@ -195,6 +195,20 @@ export const chatApi = {
     return api.get('/messages/offline')
   },
 
+  /**
+   * 标记与某个用户的私聊消息全部已读
+   */
+  markAllMessagesAsRead: (fromUserId: number): Promise<AxiosResponse<ApiResponse<void>>> => {
+    return api.put('/messages/read/all', null, { params: { fromUserId } })
+  },
+
+  /**
+   * 标记群聊消息全部已读（已读水位推进到群的最后一条消息）
+   */
+  markGroupMessagesAsRead: (groupId: number): Promise<AxiosResponse<ApiResponse<void>>> => {
+    return api.put('/messages/read/group', null, { params: { groupId } })
+  },
+
   /**
    * 标记离线消息为已读（新增）
    */
@@ -415,6 +429,9 @@ export const fileApi = {
 export const imageApi = {
   /** 获取图片二进制URL（供前端img使用） */
   url: (id: string | number) => `http://localhost:8080/api/images/${id}`,
+
+  /** 获取缩略图URL：返回长边不小于size的缩略图，缩略图未生成时后端返回原图 */
+  thumbnailUrl: (id: string | number, size: number = 480) => `http://localhost:8080/api/images/${id}/thumbnail?size=${size}`,
   
   /** 通过文件名获取图片URL */
   urlByFilename: (filename: string) => `http://localhost:8080/api/images/file/${encodeURIComponent(filename)}`
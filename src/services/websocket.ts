@@ -165,6 +165,11 @@ export class WebSocketService {
         this.handleGroupMessage(message)
         break
 
+      case 'offline_batch':
+        // 离线消息分批下发，逐条按原消息类型处理
+        ;(message.events || []).forEach((event: WebSocketMessage) => this.handleMessage(event))
+        break
+
       case 'typing':
         this.handleTypingIndicator(message)
         break
@@ -177,6 +182,10 @@ export class WebSocketService {
         this.handleOnlineUsers(message)
         break
 
+      case 'unread_update':
+        this.handleUnreadUpdate(message)
+        break
+
       case 'system':
         this.handleSystemMessage(message)
         break
@@ -279,6 +288,14 @@ export class WebSocketService {
     chatStore.updateOnlineUsers(message.userIds)
   }
 
+  /**
+   * 处理未读数变化（服务端推送变化后的绝对值，直接覆盖本地计数）
+   */
+  private handleUnreadUpdate(message: any): void {
+    const chatStore = useChatStore()
+    chatStore.applyUnreadUpdate(message.fromUserId, message.unreadCount)
+  }
+
   /**
    * 处理系统消息
    */
@@ -278,7 +278,7 @@ export const useAuthStore = defineStore('auth', {
         console.log('用户信息:', {
           username: authUser.username,
           token: authUser.token ? authUser.token.substring(0, 10) + '...' : null,
-          timestamp: authUser.token?.split(':')[2] || '无'
+          tokenLength: authUser.token?.length || 0
         })
 
         // 验证token存在性
@@ -324,105 +324,54 @@ export const useAuthStore = defineStore('auth', {
           return false
         }
         
-        try {
-          // 尝试Base64解码token（后端格式）
-          const decoded = atob(token)
-          const parts = decoded.split(':')
-          console.log('Base64解码后token结构:', parts)
-          
-          if (parts.length !== 3) {
-            console.warn('Base64 token格式无效，应有3部分')
-            console.groupEnd()
-            return false
-          }
-          
-          const [username, uuid, timestamp] = parts
-          
-          if (!username || !uuid || !timestamp) {
-            console.warn('Base64 token部分为空')
-            console.groupEnd()
-            return false
-          }
-          
-          const timestampNum = Number(timestamp)
-          if (isNaN(timestampNum)) {
-            console.warn('无效的时间戳:', timestamp)
-            console.groupEnd()
-            return false
-          }
-          
-          // 检查token是否过期（假设有3600秒有效期）
-          const tokenAge = Date.now() - timestampNum
-          const maxAge = 3600 * 1000 // 3600秒
-          const minutes = Math.floor(tokenAge / (60 * 1000))
-          
-          console.log('Base64 token信息:', {
-            用户名: username,
-            UUID: uuid.substring(0, 8) + '...',
-            时间戳: new Date(timestampNum).toLocaleString(),
-            有效期: `${minutes}分钟/${Math.floor(maxAge/(60 * 1000))}分钟`
-          })
-          
-          if (tokenAge > maxAge) {
-            console.warn(`Base64 token已过期 (${minutes}分钟)`)
-            console.groupEnd()
-            return false
-          }
-          
-          console.log('Base64 token验证通过')
+        // 后端格式: base64url(userId:签发时间:过期时间:用户名).base64url(签名)
+        // 签名只能由后端校验，这里只检查格式和过期时间
+        const segments = token.split('.')
+        if (segments.length !== 2 || !segments[0] || !segments[1]) {
+          console.warn('token格式无效，应为 payload.signature')
+          console.groupEnd()
+          return false
+        }
+
+        const base64 = segments[0].replace(/-/g, '+').replace(/_/g, '/')
+        const padded = base64 + '='.repeat((4 - (base64.length % 4)) % 4)
+        const bytes = Uint8Array.from(atob(padded), c => c.charCodeAt(0))
+        const payload = new TextDecoder().decode(bytes)
+        const firstColon = payload.indexOf(':')
+        const secondColon = payload.indexOf(':', firstColon + 1)
+        const thirdColon = payload.indexOf(':', secondColon + 1)
+        if (firstColon <= 0 || secondColon <= 0 || thirdColon <= 0) {
+          console.warn('token内容格式无效')
+          console.groupEnd()
+          return false
+        }
+
+        const userId = payload.substring(0, firstColon)
+        const expiresAt = Number(payload.substring(secondColon + 1, thirdColon))
+        const username = payload.substring(thirdColon + 1)
+        if (!userId || !username || isNaN(expiresAt)) {
+          console.warn('token部分为空或过期时间无效')
           console.groupEnd()
-          return true
-          
-        } catch (base64Error) {
-          // Base64解码失败，尝试原始格式
-          console.log('Base64解码失败，尝试原始格式:', base64Error.message)
-          
-          const parts = token.split(':')
-          console.log('原始token结构:', parts)
-          
-          if (parts.length !== 3) {
-            console.warn('原始token格式无效，应有3部分')
-            console.groupEnd()
-            return false
-          }
-          
-          const [username, uuid, timestamp] = parts
-          
-          if (!username || !uuid || !timestamp) {
-            console.warn('原始token部分为空')
-            console.groupEnd()
-            return false
-          }
-          
-          const timestampNum = Number(timestamp)
-          if (isNaN(timestampNum)) {
-            console.warn('无效的时间戳:', timestamp)
-            console.groupEnd()
-            return false
-          }
-          
-          // 检查token是否过期（假设有效期24小时）
-          const tokenAge = Date.now() - timestampNum
-          const maxAge = 24 * 60 * 60 * 1000 // 24小时
-          const hours = Math.floor(tokenAge / (60 * 60 * 1000))
-          
-          console.log('原始token信息:', {
-            用户名: username,
-            UUID: uuid.substring(0, 4) + '...',
-            时间戳: new Date(timestampNum).toLocaleString(),
-            有效期: `${hours}小时/${Math.floor(maxAge/(60 * 60 * 1000))}小时`
-          })
-          
-          if (tokenAge > maxAge) {
-            console.warn(`原始token已过期 (${hours}小时)`)
-            console.groupEnd()
-            return false
-          }
-          
-          console.log('原始token验证通过')
+          return false
+        }
+
+        const remainingMinutes = Math.floor((expiresAt - Date.now()) / (60 * 1000))
+        console.log('token信息:', {
+          用户ID: userId,
+          用户名: username,
+          过期时间: new Date(expiresAt).toLocaleString(),
+          剩余: `${remainingMinutes}分钟`
+        })
+
+        if (Date.now() >= expiresAt) {
+          console.warn('token已过期')
           console.groupEnd()
-          return true
+          return false
         }
+
+        console.log('token验证通过')
+        console.groupEnd()
+        return true
         
       } catch (e) {
         console.error('验证过程中出错', e)
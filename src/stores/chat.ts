@@ -11,6 +11,8 @@ interface ChatState {
   activeConversationId: string | null
   isTyping: Record<string, boolean>
   loading: boolean
+  // 每个会话最近一次回执给服务端的已读消息ID，避免重复回执
+  readReceiptIds: Record<string, number>
 }
 
 export const useChatStore = defineStore('chat', {
@@ -20,7 +22,8 @@ export const useChatStore = defineStore('chat', {
     messages: {},
     activeConversationId: null,
     isTyping: {},
-    loading: false
+    loading: false,
+    readReceiptIds: {}
   }),
 
   getters: {
@@ -466,6 +469,14 @@ export const useChatStore = defineStore('chat', {
       // 加载历史消息
       await this.loadChatHistory(conversationId)
 
+      if (conversation.type === 'group') {
+        // 群聊按群的最后一条消息标记已读，不受已加载历史条数的限制
+        this.markGroupConversationRead(conversationId)
+      } else {
+        // 回执最新消息，服务端推进已读水位并清零未读数
+        this.markConversationRead(conversationId)
+      }
+
       console.log('活动对话设置成功:', conversationId)
       console.log('对话参与者:', conversation.participantIds)
     },
@@ -528,6 +539,7 @@ export const useChatStore = defineStore('chat', {
         ; (this as any).messages = {}
         ; (this as any).activeConversationId = null
         ; (this as any).isTyping = {}
+        ; (this as any).readReceiptIds = {}
     },
 
     // ==================== WebSocket 相关方法 ====================
@@ -783,15 +795,78 @@ export const useChatStore = defineStore('chat', {
           conversation.lastMessage = message
           conversation.timestamp = new Date(message.createTime)
           
-          // 如果不是当前活跃会话且不是自己发送的消息，增加未读数
-          if (conversationId !== (this as any).activeConversationId && senderIdStr !== currentUserIdStr) {
+          // 群聊未读数在本地累加；私聊未读数以服务端推送的 unread_update 为准
+          if (conversation.type === 'group' &&
+              conversationId !== (this as any).activeConversationId && senderIdStr !== currentUserIdStr) {
             conversation.unreadCount = (conversation.unreadCount || 0) + 1
             console.log('更新未读数:', conversation.unreadCount, '会话ID:', conversationId)
           }
         }
+
+        // 当前打开的会话收到对方消息时直接回执已读
+        if (conversationId === (this as any).activeConversationId && senderIdStr !== currentUserIdStr) {
+          this.markConversationRead(conversationId)
+        }
+      }
+    },
+
+    // 将会话标记为已读：回执会话中对方发来的最新消息，服务端据此推进已读水位
+    markConversationRead(conversationId: string) {
+      const authStore = useAuthStore()
+      const currentUserIdStr = authStore.userInfo?.id?.toString()
+      const conversation = (this as any).conversations.find((conv: Conversation) => conv.id === conversationId)
+      if (!conversation || !currentUserIdStr) return
+
+      conversation.unreadCount = 0
+
+      // 只回执对方发来且已由服务端分配ID的消息
+      const messages: Message[] = (this as any).messages[conversationId] || []
+      let latestId = 0
+      messages.forEach((msg: Message) => {
+        const senderIdStr = (msg.fromUserId || msg.senderId)?.toString()
+        if (senderIdStr && senderIdStr !== currentUserIdStr && msg.status !== 'sending' && msg.id > latestId) {
+          latestId = msg.id
+        }
+      })
+      if (!latestId || latestId <= ((this as any).readReceiptIds[conversationId] || 0)) return
+      ; (this as any).readReceiptIds[conversationId] = latestId
+
+      const wsService = getWebSocketService()
+      if (wsService.isConnected) {
+        wsService.sendReadReceipt(latestId)
+      } else if (conversation.type === 'group') {
+        this.markGroupConversationRead(conversationId)
+      } else {
+        const fromUserId = conversation.participantIds.find((id: string) => id !== currentUserIdStr)
+        if (fromUserId) {
+          chatApi.markAllMessagesAsRead(parseInt(fromUserId)).catch((error: any) => {
+            console.error('标记会话已读失败:', error)
+          })
+        }
       }
     },
 
+    // 将群聊标记为全部已读：服务端把已读水位推进到群的最后一条消息
+    markGroupConversationRead(conversationId: string) {
+      const conversation = (this as any).conversations.find((conv: Conversation) => conv.id === conversationId)
+      const groupId = parseInt(conversationId.replace('group_', ''))
+      if (!conversation || isNaN(groupId)) return
+
+      conversation.unreadCount = 0
+
+      // 已加载的消息都已覆盖，之后收到新消息时才需要再回执
+      const messages: Message[] = (this as any).messages[conversationId] || []
+      messages.forEach((msg: Message) => {
+        if (msg.status !== 'sending' && msg.id > ((this as any).readReceiptIds[conversationId] || 0)) {
+          ; (this as any).readReceiptIds[conversationId] = msg.id
+        }
+      })
+
+      chatApi.markGroupMessagesAsRead(groupId).catch((error: any) => {
+        console.error('标记群聊已读失败:', error)
+      })
+    },
+
     // 标记消息为已读
     markMessageAsRead(messageId: number) {
       Object.values((this as any).messages).forEach((messageList: any) => {
@@ -804,6 +879,24 @@ export const useChatStore = defineStore('chat', {
       })
     },
 
+    // 应用服务端推送的私聊未读数
+    applyUnreadUpdate(fromUserId: number, unreadCount: number) {
+      const authStore = useAuthStore()
+      const currentUserIdStr = authStore.userInfo?.id?.toString()
+      const fromUserIdStr = fromUserId?.toString()
+      if (!currentUserIdStr || !fromUserIdStr) return
+
+      const conversation = (this as any).conversations.find((conv: Conversation) =>
+        conv.type === 'private' &&
+        conv.participantIds.includes(currentUserIdStr) &&
+        conv.participantIds.includes(fromUserIdStr)
+      )
+      // 当前打开的会话保持为0，由已读流程清零服务端计数
+      if (conversation && conversation.id !== (this as any).activeConversationId) {
+        conversation.unreadCount = unreadCount || 0
+      }
+    },
+
     // 更新在线用户列表
     updateOnlineUsers(userIds: number[]) {
       ; (this as any).contacts.forEach((contact: User) => {
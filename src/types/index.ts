@@ -111,6 +111,17 @@ export interface Message {
   receiverId?: number // 映射到toUserId
   isRecalled?: boolean
   recallTime?: string
+  // 图片消息预览（仅实时推送的图片消息携带）
+  imagePreview?: ImagePreview
+}
+
+// 图片消息预览信息
+export interface ImagePreview {
+  imageId: number
+  width?: number
+  height?: number
+  placeholder?: string   // 内联占位图（data URI）
+  thumbnailSizes: number[]
 }
 
 // 会话
@@ -49,4 +49,19 @@ export function getUserAvatarUrl(user?: AvatarUserLike): string {
 
   // 直接返回原始值
   return ava
-}
\ No newline at end of file
+}
+export interface AvatarGroupLike {
+  id: number | string
+  avatar?: string | null
+  groupAvatar?: string | null
+}
+
+// 群头像请求地址：优先使用后端返回的带版本号地址（/api/group/{id}/avatar?v=...），
+// 该地址内容不变，浏览器可直接使用缓存
+export function getGroupAvatarRequestUrl(group: AvatarGroupLike): string {
+  const ava = group.avatar || group.groupAvatar
+  if (typeof ava === 'string' && ava.startsWith(`/api/group/${String(group.id)}/avatar`)) {
+    return `${API_PREFIX}${ava}`
+  }
+  return `${API_PREFIX}/api/group/${String(group.id)}/avatar`
+}